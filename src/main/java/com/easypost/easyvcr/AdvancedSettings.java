@@ -1,5 +1,11 @@
 package com.easypost.easyvcr;
 
+import com.easypost.easyvcr.clients.httpurlconnection.RecordableRequestBody;
+import com.easypost.easyvcr.faults.FaultInjector;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.time.Clock;
+import java.util.Random;
 import java.util.logging.Logger;
 
 public final class AdvancedSettings {
@@ -11,9 +17,23 @@ public final class AdvancedSettings {
 
     public int manualDelay = 0;
 
+    public double delayScale = 1.0;
+
+    public Clock clock = Clock.systemUTC();
+
+    public Random random = new Random();
+
     public TimeFrame timeFrame = TimeFrame.forever();
 
     public ExpirationActions whenExpired = ExpirationActions.Warn;
 
     public Logger logger = null;
+
+    public boolean teeResponseStreams = false;
+
+    public long requestBodySpillThreshold = RecordableRequestBody.DEFAULT_SPILL_THRESHOLD;
+
+    public SSLSocketFactory sslSocketFactory = null;
+
+    public FaultInjector faultInjector = null;
 }
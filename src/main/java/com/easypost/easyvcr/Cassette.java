@@ -1,16 +1,27 @@
 package com.easypost.easyvcr;
 
+import com.easypost.easyvcr.daemon.CassetteDaemonClient;
 import com.easypost.easyvcr.internal.Files;
 import com.easypost.easyvcr.internal.Utilities;
 import com.easypost.easyvcr.internal.json.Serialization;
 import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.LatencyDistribution;
+import com.easypost.easyvcr.requestelements.Response;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Cassette used to store and retrieve requests and responses for EasyVCR.
@@ -32,6 +43,17 @@ public final class Cassette {
      */
     private boolean locked;
 
+    /**
+     * Response bodies larger than this many bytes are stored in separate files, or -1 to store every body
+     * in the cassette itself.
+     */
+    private long bodyFileThreshold = -1;
+
+    /**
+     * The cassette daemon to look up recorded interactions in, or null to read them from the cassette file.
+     */
+    private CassetteDaemonClient daemon;
+
     /**
      * Constructor for Cassette.
      *
@@ -43,6 +65,43 @@ public final class Cassette {
         filePath = Utilities.getFilePath(folderPath, cassetteName + ".json");
     }
 
+    /**
+     * Store response bodies larger than the given size in separate files next to the cassette, instead of in the
+     * cassette itself. Stored bodies are memory-mapped when replayed, so they are never loaded on the heap as a whole.
+     *
+     * @param thresholdBytes The size in bytes (UTF-8 encoded) above which a body is stored in a separate file,
+     *                       or -1 to store every body in the cassette.
+     * @return This cassette.
+     */
+    public Cassette storeLargeBodiesInFiles(long thresholdBytes) {
+        if (thresholdBytes < -1) {
+            throw new IllegalArgumentException("thresholdBytes must be -1 or greater");
+        }
+        this.bodyFileThreshold = thresholdBytes;
+        return this;
+    }
+
+    /**
+     * Look up the recorded interactions of this cassette in a cassette daemon, instead of reading the cassette file
+     * for every request. New interactions are still recorded to the cassette file.
+     *
+     * @param daemon The client of the daemon, or null to read the cassette file again.
+     * @return This cassette.
+     */
+    public Cassette replayFrom(CassetteDaemonClient daemon) {
+        this.daemon = daemon;
+        return this;
+    }
+
+    /**
+     * Gets the cassette daemon the recorded interactions of this cassette are looked up in.
+     *
+     * @return The client of the daemon, or null if the interactions are read from the cassette file.
+     */
+    public CassetteDaemonClient getDaemon() {
+        return this.daemon;
+    }
+
     /**
      * Gets the number of interactions in the cassette.
      *
@@ -70,6 +129,26 @@ public final class Cassette {
      */
     public void erase() {
         getFile().delete();
+        File[] bodyFiles = getBodyFolder().listFiles();
+        if (bodyFiles != null) {
+            for (File bodyFile : bodyFiles) {
+                bodyFile.delete();
+            }
+        }
+        getBodyFolder().delete();
+    }
+
+    /**
+     * Gets the folder holding the response bodies stored in separate files.
+     *
+     * @return The folder holding the body files of this cassette.
+     */
+    private File getBodyFolder() {
+        return new File(getFile().getAbsoluteFile().getParentFile(), getBodyFolderName());
+    }
+
+    private String getBodyFolderName() {
+        return name + ".bodies";
     }
 
     /**
@@ -86,6 +165,15 @@ public final class Cassette {
         locked = false;
     }
 
+    /**
+     * Check whether this cassette is locked.
+     *
+     * @return True if the cassette is locked.
+     */
+    public boolean isLocked() {
+        return locked;
+    }
+
     /**
      * Read all the interactions recorded on this cassette.
      *
@@ -107,14 +195,20 @@ public final class Cassette {
         }
         JsonElement cassetteParseResult = JsonParser.parseString(jsonString);
 
+        File folder = getFile().getAbsoluteFile().getParentFile();
         for (JsonElement interaction : cassetteParseResult.getAsJsonArray()) {
-            interactions.add(Serialization.convertJsonToObject(interaction, HttpInteraction.class));
+            HttpInteraction httpInteraction = Serialization.convertJsonToObject(interaction, HttpInteraction.class);
+            if (httpInteraction.getResponse() != null && httpInteraction.getResponse().getBodyFile() != null) {
+                httpInteraction.getResponse().setBodyFileFolder(folder);
+            }
+            interactions.add(httpInteraction);
         }
         return interactions;
     }
 
     /**
      * Overwrite an existing interaction on this cassette, or add a new one if it doesn't exist.
+     * The latencies of the overwritten interaction are kept in the new one's latency distribution.
      *
      * @param httpInteraction The interaction to write to the cassette
      * @param matchRules      The rules to match the interaction against
@@ -136,6 +230,12 @@ public final class Cassette {
         if (matchingIndex < 0) {
             existingInteractions.add(httpInteraction);
         } else {
+            // keep the latencies of the earlier takes, so replays can draw delays from all of them
+            HttpInteraction earlierTake = existingInteractions.get(matchingIndex);
+            LatencyDistribution latency = earlierTake.getLatency() != null
+                    ? earlierTake.getLatency()
+                    : LatencyDistribution.of(earlierTake.getDuration());
+            httpInteraction.setLatency(latency.add(httpInteraction.getDuration()));
             existingInteractions.set(matchingIndex, httpInteraction);
         }
 
@@ -166,6 +266,44 @@ public final class Cassette {
         return getFile().exists();
     }
 
+    /**
+     * Move a response body to a separate file if it is larger than the threshold.
+     * Files are named after the hash of their contents, so re-recording the same body reuses the same file.
+     *
+     * @param response The response to check.
+     * @throws IOException If the body file could not be written.
+     */
+    private void storeLargeBody(Response response) throws IOException {
+        if (response == null || response.getBodyFile() != null || response.getBody() == null) {
+            return;
+        }
+        ByteBuffer bytes = response.getBodyBytes();
+        if (bytes.remaining() <= bodyFileThreshold) {
+            return;
+        }
+
+        String fileName = Utilities.toSha256String(bytes) + ".body";
+        File folder = getFile().getAbsoluteFile().getParentFile();
+        File bodyFile = new File(getBodyFolder(), fileName);
+        if (!bodyFile.exists()) {
+            getBodyFolder().mkdirs();
+            try (FileChannel channel = FileChannel.open(bodyFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+        }
+        // always use forward slashes, so cassettes can be shared across platforms
+        response.setBodyFile(getBodyFolderName() + "/" + fileName, folder);
+    }
+
+    private static void removeIfNull(JsonObject json, String field) {
+        if (json.get(field) instanceof JsonNull) {
+            json.remove(field);
+        }
+    }
+
     /**
      * Write a list of interactions to this cassette.
      *
@@ -175,8 +313,49 @@ public final class Cassette {
     private void write(List<HttpInteraction> httpInteractions) throws VCRException, IOException {
         checkIfLocked();
 
-        String cassetteString = Serialization.convertObjectToJson(httpInteractions);
+        if (bodyFileThreshold >= 0) {
+            for (HttpInteraction httpInteraction : httpInteractions) {
+                storeLargeBody(httpInteraction.getResponse());
+            }
+        }
+
+        JsonArray cassetteJson = Serialization.convertObjectToJsonTree(httpInteractions).getAsJsonArray();
+        for (JsonElement interaction : cassetteJson) {
+            // optional fields are left out of recordings that don't use them
+            removeIfNull(interaction.getAsJsonObject(), "timings");
+            removeIfNull(interaction.getAsJsonObject(), "latency");
+            JsonElement response = interaction.getAsJsonObject().get("response");
+            if (response != null && response.isJsonObject()) {
+                removeIfNull(response.getAsJsonObject(), "bodyFile");
+            }
+        }
+        String cassetteString = Serialization.convertJsonTreeToJson(cassetteJson);
 
         Files.writeFile(filePath, cassetteString);
+        deleteUnusedBodyFiles(httpInteractions);
+    }
+
+    /**
+     * Delete the body files no interaction of this cassette refers to any more (e.g. after re-recording an
+     * interaction with a different body).
+     *
+     * @param httpInteractions All interactions of this cassette.
+     */
+    private void deleteUnusedBodyFiles(List<HttpInteraction> httpInteractions) {
+        File[] bodyFiles = getBodyFolder().listFiles((folder, fileName) -> fileName.endsWith(".body"));
+        if (bodyFiles == null || bodyFiles.length == 0) {
+            return;
+        }
+        Set<String> usedBodyFiles = new HashSet<>();
+        for (HttpInteraction httpInteraction : httpInteractions) {
+            if (httpInteraction.getResponse() != null && httpInteraction.getResponse().getBodyFile() != null) {
+                usedBodyFiles.add(httpInteraction.getResponse().getBodyFile());
+            }
+        }
+        for (File bodyFile : bodyFiles) {
+            if (!usedBodyFiles.contains(getBodyFolderName() + "/" + bodyFile.getName())) {
+                bodyFile.delete();
+            }
+        }
     }
 }
@@ -20,6 +20,22 @@ public class CensorElement {
         this.caseSensitive = caseSensitive;
     }
 
+    /**
+     * Get the value of the element to censor.
+     * @return The value of the element to censor.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Get whether the value must match exactly to trigger a censor.
+     * @return True if the value is case-sensitive.
+     */
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
     /**
      * Return whether the element matches the name, accounting for case sensitivity.
      * @param key The name to check.
@@ -1,17 +1,25 @@
 package com.easypost.easyvcr;
 
+import com.easypost.easyvcr.internal.BoundedLruCache;
+import com.easypost.easyvcr.internal.JsonPathAutomaton;
+import com.easypost.easyvcr.internal.NormalizedUrl;
+import com.easypost.easyvcr.internal.QueryParameters;
 import com.easypost.easyvcr.internal.Utilities;
 import com.easypost.easyvcr.internal.json.Serialization;
 import com.google.gson.JsonParseException;
-import com.easypost.easyvcr.internal.ApachePatch;
 
-import java.net.URI;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Censoring capabilities for EasyVCR.
@@ -40,6 +48,31 @@ public final class Censors {
      */
     private final List<RegexCensorElement> pathElementsToCensor;
 
+    /**
+     * The body element paths to censor.
+     */
+    private final List<CensorElement> bodyPathsToCensor;
+
+    /**
+     * The body element paths to censor, compiled into an automaton, or null if there are none.
+     */
+    private JsonPathAutomaton bodyPathAutomaton;
+
+    /**
+     * Optional cache of censored bodies, keyed by a hash of the original body and the body censor configuration.
+     */
+    private BoundedLruCache<String, String> bodyCensorCache;
+
+    /**
+     * Fingerprint of the current body censor configuration, rebuilt whenever the body censors change.
+     */
+    private String bodyCensorFingerprint;
+
+    /**
+     * Minimum size of a top-level JSON array before it is censored in parallel, or 0 to always censor sequentially.
+     */
+    private int parallelArrayThreshold;
+
     /**
      * Initialize a new instance of the Censors factory, using default censor string.
      */
@@ -55,6 +88,7 @@ public final class Censors {
     public Censors(String censorString) {
         this.queryParamsToCensor = new ArrayList<>();
         this.bodyElementsToCensor = new ArrayList<>();
+        this.bodyPathsToCensor = new ArrayList<>();
         this.headersToCensor = new ArrayList<>();
         this.pathElementsToCensor = new ArrayList<>();
         this.censorText = censorString;
@@ -125,6 +159,72 @@ public final class Censors {
         return censoredList;
     }
 
+    /**
+     * Apply censors to a JSON list, splitting it into chunks that are censored in parallel on the common ForkJoin pool.
+     * The censored chunks are reassembled in their original order, so the result is identical to
+     * {@link #applyJsonCensors(List, String, List)}.
+     *
+     * @param list             JSON list to process.
+     * @param censorText       Text to use when censoring an element.
+     * @param elementsToCensor List of elements to find and censor.
+     * @return Censored JSON list.
+     */
+    private static List<Object> applyJsonCensorsInParallel(List<Object> list, String censorText,
+                                                           List<CensorElement> elementsToCensor) {
+        // a few chunks per worker, so one slow chunk doesn't hold up the whole list
+        int chunkSize = Math.max(1, list.size() / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        return ForkJoinPool.commonPool()
+                .invoke(new CensorListChunkTask(list, 0, list.size(), chunkSize, censorText, elementsToCensor));
+    }
+
+    /**
+     * ForkJoin task that censors a range of a JSON list, splitting the range in half until it is small enough.
+     */
+    private static final class CensorListChunkTask extends RecursiveTask<List<Object>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Object> list;
+        private final int start;
+        private final int end;
+        private final int chunkSize;
+        private final String censorText;
+        private final List<CensorElement> elementsToCensor;
+
+        //CHECKSTYLE.OFF: ParameterNumber
+        CensorListChunkTask(List<Object> list, int start, int end, int chunkSize, String censorText,
+                            List<CensorElement> elementsToCensor) {
+            this.list = list;
+            this.start = start;
+            this.end = end;
+            this.chunkSize = chunkSize;
+            this.censorText = censorText;
+            this.elementsToCensor = elementsToCensor;
+        }
+        //CHECKSTYLE.ON: ParameterNumber
+
+        @Override
+        protected List<Object> compute() {
+            if (end - start <= chunkSize) {
+                return applyJsonCensors(list.subList(start, end), censorText, elementsToCensor);
+            }
+
+            int middle = start + (end - start) / 2;
+            CensorListChunkTask left =
+                    new CensorListChunkTask(list, start, middle, chunkSize, censorText, elementsToCensor);
+            CensorListChunkTask right =
+                    new CensorListChunkTask(list, middle, end, chunkSize, censorText, elementsToCensor);
+            left.fork();
+            List<Object> rightResult = right.compute();
+            List<Object> leftResult = left.join();
+
+            // reassemble in order
+            List<Object> censoredList = new ArrayList<>(leftResult.size() + rightResult.size());
+            censoredList.addAll(leftResult);
+            censoredList.addAll(rightResult);
+            return censoredList;
+        }
+    }
+
     /**
      * Apply censors to a JSON dictionary.
      *
@@ -195,16 +295,44 @@ public final class Censors {
      * @return The censored JSON string.
      */
     public static String censorJsonData(String data, String censorText, List<CensorElement> elementsToCensor) {
+        return censorJsonData(data, censorText, elementsToCensor, null, 0);
+    }
+
+    /**
+     * Apply censors to a JSON string.
+     *
+     * @param data                   The JSON string to censor.
+     * @param censorText             The string to use to censor sensitive information.
+     * @param elementsToCensor       The body elements to censor by key.
+     * @param pathAutomaton          The compiled body element paths to censor, or null if there are none.
+     * @param parallelArrayThreshold Minimum size of a top-level JSON array before it is censored in parallel,
+     *                               or 0 to always censor sequentially.
+     * @return The censored JSON string.
+     */
+    private static String censorJsonData(String data, String censorText, List<CensorElement> elementsToCensor,
+                                         JsonPathAutomaton pathAutomaton, int parallelArrayThreshold) {
         Map<String, Object> bodyDictionary;
         try {
             bodyDictionary = Serialization.convertJsonToObject(data, Map.class);
-            Map<String, Object> censoredBodyDictionary = applyJsonCensors(bodyDictionary, censorText, elementsToCensor);
+            Map<String, Object> censoredBodyDictionary = bodyDictionary;
+            if (elementsToCensor.size() > 0) {
+                censoredBodyDictionary = applyJsonCensors(bodyDictionary, censorText, elementsToCensor);
+            }
+            applyJsonPathCensors(censoredBodyDictionary, censorText, pathAutomaton);
             return censoredBodyDictionary == null ? data : Serialization.convertObjectToJson(censoredBodyDictionary);
         } catch (Exception ignored) {
             // body is not a JSON dictionary
             try {
                 List<Object> bodyList = Serialization.convertJsonToObject(data, List.class);
-                List<Object> censoredBodyList = applyJsonCensors(bodyList, censorText, elementsToCensor);
+                List<Object> censoredBodyList = bodyList;
+                if (elementsToCensor.size() > 0) {
+                    if (parallelArrayThreshold > 0 && bodyList != null && bodyList.size() >= parallelArrayThreshold) {
+                        censoredBodyList = applyJsonCensorsInParallel(bodyList, censorText, elementsToCensor);
+                    } else {
+                        censoredBodyList = applyJsonCensors(bodyList, censorText, elementsToCensor);
+                    }
+                }
+                applyJsonPathCensors(censoredBodyList, censorText, pathAutomaton);
                 return censoredBodyList == null ? data : Serialization.convertObjectToJson(censoredBodyList);
             } catch (Exception notJsonData) {
                 throw new JsonParseException("Body is not a JSON dictionary or list");
@@ -212,6 +340,90 @@ public final class Censors {
         }
     }
 
+    /**
+     * Apply path censors to a parsed JSON element, in place.
+     *
+     * @param root          The parsed JSON dictionary or list to censor.
+     * @param censorText    Text to use when censoring an element.
+     * @param pathAutomaton The compiled body element paths to censor, or null if there are none.
+     */
+    private static void applyJsonPathCensors(Object root, String censorText, JsonPathAutomaton pathAutomaton) {
+        if (root == null || pathAutomaton == null) {
+            return;
+        }
+        BitSet states = pathAutomaton.initialStates();
+        if (states != null) {
+            applyJsonPathCensors(root, censorText, pathAutomaton, states);
+        }
+    }
+
+    /**
+     * Apply path censors to a parsed JSON element, in place.
+     * Subtrees that no path can reach are skipped entirely.
+     *
+     * @param value         The JSON dictionary or list to censor.
+     * @param censorText    Text to use when censoring an element.
+     * @param pathAutomaton The compiled body element paths to censor.
+     * @param states        The automaton states for this element.
+     */
+    private static void applyJsonPathCensors(Object value, String censorText, JsonPathAutomaton pathAutomaton,
+                                             BitSet states) {
+        if (Utilities.isDictionary(value)) {
+            Iterator<Map.Entry<String, Object>> entries = ((Map<String, Object>) value).entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, Object> entry = entries.next();
+                BitSet nextStates = pathAutomaton.stepIntoKey(states, entry.getKey());
+                if (nextStates == null) {
+                    // no path can reach anything under this key
+                    continue;
+                }
+                Object child = entry.getValue();
+                if (pathAutomaton.accepts(nextStates)) {
+                    if (child == null) {
+                        // same as key censoring, a censored null is dropped rather than replaced
+                        entries.remove();
+                    } else {
+                        entry.setValue(censoredValue(child, censorText));
+                    }
+                } else {
+                    applyJsonPathCensors(child, censorText, pathAutomaton, nextStates);
+                }
+            }
+        } else if (Utilities.isList(value)) {
+            List<Object> list = (List<Object>) value;
+            for (int i = 0; i < list.size(); i++) {
+                BitSet nextStates = pathAutomaton.stepIntoIndex(states, i);
+                if (nextStates == null) {
+                    continue;
+                }
+                Object child = list.get(i);
+                if (pathAutomaton.accepts(nextStates)) {
+                    if (child != null) {
+                        list.set(i, censoredValue(child, censorText));
+                    }
+                } else {
+                    applyJsonPathCensors(child, censorText, pathAutomaton, nextStates);
+                }
+            }
+        }  // either a primitive or null, nothing below to censor
+    }
+
+    /**
+     * Get the replacement for a censored JSON value.
+     *
+     * @param value      The value being censored.
+     * @param censorText Text to use when censoring a primitive value.
+     * @return An empty dictionary, an empty list, or the censor text, depending on the type of the value.
+     */
+    private static Object censoredValue(Object value, String censorText) {
+        if (Utilities.isDictionary(value)) {
+            return new HashMap<>();
+        } else if (Utilities.isList(value)) {
+            return new ArrayList<>();
+        }
+        return censorText;
+    }
+
     /**
      * Check if the current JSON element should be censored.
      *
@@ -233,18 +445,35 @@ public final class Censors {
      */
     public static String applyBodyParameterCensors(String body, String censorText,
                                                    List<CensorElement> bodyElementsToCensor) {
+        return applyBodyParameterCensors(body, censorText, bodyElementsToCensor, null, 0);
+    }
+
+    /**
+     * Censor the appropriate body elements.
+     *
+     * @param body                   String representation of request body to apply censors to.
+     * @param censorText             The string to use to censor sensitive information.
+     * @param bodyElementsToCensor   The body elements to censor by key.
+     * @param pathAutomaton          The compiled body element paths to censor, or null if there are none.
+     * @param parallelArrayThreshold Minimum size of a top-level JSON array before it is censored in parallel,
+     *                               or 0 to always censor sequentially.
+     * @return Censored string representation of request body.
+     */
+    private static String applyBodyParameterCensors(String body, String censorText,
+                                                    List<CensorElement> bodyElementsToCensor,
+                                                    JsonPathAutomaton pathAutomaton, int parallelArrayThreshold) {
         if (body == null || body.length() == 0) {
             // short circuit if body is null or empty
             return body;
         }
 
-        if (bodyElementsToCensor.size() == 0) {
+        if (bodyElementsToCensor.size() == 0 && pathAutomaton == null) {
             // short circuit if there are no censors to apply
             return body;
         }
 
         // TODO: Future different content type support here, only JSON is supported currently
-        return censorJsonData(body, censorText, bodyElementsToCensor);
+        return censorJsonData(body, censorText, bodyElementsToCensor, pathAutomaton, parallelArrayThreshold);
     }
 
     /**
@@ -303,10 +532,11 @@ public final class Censors {
             return url;
         }
 
-        URI uri = URI.create(url);
+        // parse once, then slice the original string rather than rebuilding the URL from decoded parts
+        NormalizedUrl normalizedUrl = NormalizedUrl.parse(url);
 
-        String path = Utilities.extractPathFromUri(uri);
-        Map<String, String> queryParameters = Utilities.queryParametersToMap(uri);
+        String path = normalizedUrl.getAuthorityAndPath();
+        String rawQuery = normalizedUrl.getRawQuery();
 
         String censoredPath;
         String censoredQueryString;
@@ -324,35 +554,75 @@ public final class Censors {
             censoredPath = tempPath;
         }
 
-        if (queryParameters.size() == 0) {
+        if (rawQuery == null || rawQuery.length() == 0) {
             // short circuit if there are no query parameters to censor
             censoredQueryString = null;
+        } else if (queryParamsToCensor.size() == 0) {
+            // don't need to censor query parameters
+            censoredQueryString = rawQuery;
         } else {
-            if (queryParamsToCensor.size() == 0) {
-                // don't need to censor query parameters
-                censoredQueryString = uri.getQuery();
-            } else {
-                // censor query parameters
-                List<String> queryKeys = new ArrayList<>(queryParameters.keySet());
-                for (String queryKey : queryKeys) {
-                    if (elementShouldBeCensored(queryKey, queryParamsToCensor)) {
-                        queryParameters.put(queryKey, censorText);
-                    }
-                }
-
-                List<ApachePatch.NameValuePair> censoredQueryParametersList =
-                        Utilities.mapToQueryParameters(queryParameters);
-                censoredQueryString =
-                        ApachePatch.URLEncodedUtils.format(censoredQueryParametersList, StandardCharsets.UTF_8);
-            }
+            // censor query parameters
+            censoredQueryString = censorQueryString(rawQuery, censorText, queryParamsToCensor);
         }
 
-        String censoredUrl = censoredPath;
+        String scheme = normalizedUrl.getScheme();
+        StringBuilder censoredUrl = new StringBuilder(url.length() + censorText.length());
+        if (scheme != null) {
+            censoredUrl.append(scheme).append("://");
+        }
+        censoredUrl.append(censoredPath);
         if (censoredQueryString != null) {
-            censoredUrl += "?" + censoredQueryString;
+            censoredUrl.append('?').append(censoredQueryString);
+        }
+        censoredUrl.append(normalizedUrl.getFragmentWithSeparator());
+
+        return censoredUrl.toString();
+    }
+
+    /**
+     * Censor the values of the matching parameters in a raw query string.
+     * Parameter order and the encoding of uncensored parameters are preserved.
+     *
+     * @param rawQuery            The raw (still encoded) query string.
+     * @param censorText          The string to use to censor sensitive information.
+     * @param queryParamsToCensor The query parameters to censor.
+     * @return The censored raw query string.
+     */
+    private static String censorQueryString(String rawQuery, String censorText,
+                                            List<CensorElement> queryParamsToCensor) {
+        String encodedCensorText;
+        try {
+            encodedCensorText = URLEncoder.encode(censorText, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e);
         }
 
-        return uri.getScheme() + "://" + censoredUrl;
+        StringBuilder censoredQuery = new StringBuilder(rawQuery.length());
+        int length = rawQuery.length();
+        int parameterStart = 0;
+        while (parameterStart <= length) {
+            int parameterEnd = parameterStart;
+            while (parameterEnd < length && rawQuery.charAt(parameterEnd) != '&'
+                    && rawQuery.charAt(parameterEnd) != ';') {
+                parameterEnd++;
+            }
+            int separator = rawQuery.indexOf('=', parameterStart);
+            int nameEnd = separator >= 0 && separator < parameterEnd ? separator : parameterEnd;
+            String name = QueryParameters.decode(rawQuery, parameterStart, nameEnd);
+
+            if (elementShouldBeCensored(name, queryParamsToCensor)) {
+                censoredQuery.append(rawQuery, parameterStart, nameEnd).append('=').append(encodedCensorText);
+            } else {
+                censoredQuery.append(rawQuery, parameterStart, parameterEnd);
+            }
+            if (parameterEnd < length) {
+                // keep the original separator
+                censoredQuery.append(rawQuery.charAt(parameterEnd));
+            }
+            parameterStart = parameterEnd + 1;
+        }
+        return censoredQuery.toString();
     }
 
     /**
@@ -363,6 +633,7 @@ public final class Censors {
      */
     public Censors censorBodyElements(List<CensorElement> elements) {
         bodyElementsToCensor.addAll(elements);
+        bodyCensorFingerprint = null;
         return this;
     }
 
@@ -377,6 +648,7 @@ public final class Censors {
         for (String elementKey : elementKeys) {
             bodyElementsToCensor.add(new CensorElement(elementKey, caseSensitive));
         }
+        bodyCensorFingerprint = null;
         return this;
     }
 
@@ -390,6 +662,43 @@ public final class Censors {
         return censorBodyElementsByKeys(elementKeys, false);
     }
 
+    /**
+     * Add a rule to censor specified body elements by JSON-path-like expressions.
+     * Unlike censoring by key, only the elements at the given paths are censored
+     * (e.g. "$.card.id" censors the "id" of the top-level "card" object, but no other "id").
+     * Supported syntax: "$" (root), ".name" or "['name']" (child key), ".*" (any key), "[n]" (list index),
+     * "[*]" (any list element) and ".." (any depth, e.g. "$..id").
+     *
+     * @param paths         JSON paths of body elements to censor.
+     * @param caseSensitive Whether to use case-sensitive key matching.
+     * @return This Censors factory.
+     * @throws IllegalArgumentException If a path is not valid.
+     */
+    public Censors censorBodyElementsByPath(List<String> paths, boolean caseSensitive) {
+        List<CensorElement> newPaths = new ArrayList<>(bodyPathsToCensor);
+        for (String path : paths) {
+            newPaths.add(new CensorElement(path, caseSensitive));
+        }
+        // compile before storing, so an invalid path doesn't leave this factory half-updated
+        JsonPathAutomaton automaton = new JsonPathAutomaton(newPaths);
+        bodyPathsToCensor.clear();
+        bodyPathsToCensor.addAll(newPaths);
+        bodyPathAutomaton = automaton;
+        bodyCensorFingerprint = null;
+        return this;
+    }
+
+    /**
+     * Add a rule to censor specified body elements by JSON-path-like expressions.
+     *
+     * @param paths JSON paths of body elements to censor.
+     * @return This Censors factory.
+     * @throws IllegalArgumentException If a path is not valid.
+     */
+    public Censors censorBodyElementsByPath(List<String> paths) {
+        return censorBodyElementsByPath(paths, false);
+    }
+
     /**
      * Add a rule to censor specified headers.
      * Note: This will censor the header keys in both the request and response.
@@ -498,6 +807,74 @@ public final class Censors {
         return censorPathElementsByPattern(patterns, false);
     }
 
+    /**
+     * Cache censored bodies, so repeated identical bodies are only parsed and censored once.
+     * Bodies are keyed by a SHA-256 hash of their contents and the current body censor configuration.
+     *
+     * @param maxEntries Maximum number of censored bodies to keep before evicting the least recently used one.
+     * @return This Censors factory.
+     */
+    public Censors cacheCensoredBodies(int maxEntries) {
+        bodyCensorCache = new BoundedLruCache<>(maxEntries);
+        return this;
+    }
+
+    /**
+     * Censor top-level JSON array bodies with at least the given number of elements in parallel.
+     * The array is split into chunks that are censored on the common ForkJoin pool and reassembled in order,
+     * so the censored body is identical to the one produced sequentially.
+     *
+     * @param threshold Minimum number of top-level array elements before censoring in parallel.
+     * @return This Censors factory.
+     */
+    public Censors censorLargeArraysInParallel(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold must be greater than 0");
+        }
+        parallelArrayThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Get the number of body censor lookups that were served from the cache.
+     *
+     * @return The number of body censor cache hits, or 0 if caching is disabled.
+     */
+    public long getBodyCensorCacheHits() {
+        return bodyCensorCache == null ? 0 : bodyCensorCache.getHits();
+    }
+
+    /**
+     * Get the number of body censor lookups that had to censor the body from scratch.
+     *
+     * @return The number of body censor cache misses, or 0 if caching is disabled.
+     */
+    public long getBodyCensorCacheMisses() {
+        return bodyCensorCache == null ? 0 : bodyCensorCache.getMisses();
+    }
+
+    /**
+     * Build a fingerprint of the current body censor configuration.
+     *
+     * @return Fingerprint of the censor text and every body censor element.
+     */
+    private String getBodyCensorFingerprint() {
+        String fingerprint = bodyCensorFingerprint;
+        if (fingerprint == null) {
+            StringBuilder builder = new StringBuilder(censorText == null ? "" : censorText);
+            for (CensorElement element : bodyElementsToCensor) {
+                builder.append('\n').append(element.getClass().getName()).append(':').append(element.caseSensitive)
+                        .append(':').append(element.value);
+            }
+            for (CensorElement path : bodyPathsToCensor) {
+                builder.append("\npath:").append(path.caseSensitive).append(':').append(path.value);
+            }
+            fingerprint = builder.toString();
+            bodyCensorFingerprint = fingerprint;
+        }
+        return fingerprint;
+    }
+
     /**
      * Censor the appropriate body elements.
      *
@@ -505,7 +882,22 @@ public final class Censors {
      * @return Censored string representation of request body.
      */
     public String applyBodyParameterCensors(String body) {
-        return applyBodyParameterCensors(body, this.censorText, this.bodyElementsToCensor);
+        BoundedLruCache<String, String> cache = bodyCensorCache;
+        if (cache == null || body == null || body.length() == 0
+                || (bodyElementsToCensor.size() == 0 && bodyPathAutomaton == null)) {
+            // caching disabled, or nothing worth caching
+            return applyBodyParameterCensors(body, this.censorText, this.bodyElementsToCensor,
+                    this.bodyPathAutomaton, this.parallelArrayThreshold);
+        }
+
+        String key = Utilities.toSha256String(getBodyCensorFingerprint(), body);
+        String censoredBody = cache.get(key);
+        if (censoredBody == null) {
+            censoredBody = applyBodyParameterCensors(body, this.censorText, this.bodyElementsToCensor,
+                    this.bodyPathAutomaton, this.parallelArrayThreshold);
+            cache.put(key, censoredBody);
+        }
+        return censoredBody;
     }
 
     /**
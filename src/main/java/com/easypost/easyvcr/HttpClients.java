@@ -3,10 +3,14 @@ package com.easypost.easyvcr;
 import com.easypost.easyvcr.clients.httpurlconnection.RecordableHttpURLConnection;
 import com.easypost.easyvcr.clients.httpurlconnection.RecordableHttpsURLConnection;
 import com.easypost.easyvcr.clients.httpurlconnection.RecordableURL;
+import com.easypost.easyvcr.internal.HandshakeTimingSocketFactory;
 
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.security.GeneralSecurityException;
 
 /**
  * HttpClient singleton for EasyVCR.
@@ -128,4 +132,30 @@ public abstract class HttpClients {
             throws IOException, RecordingExpirationException {
         return newRecordableURL(url, cassette, mode, null).openConnectionSecure();
     }
+
+    /**
+     * Get a new SSL socket factory to share across HTTPS clients, via {@link AdvancedSettings#sslSocketFactory}.
+     * Connections created with the same factory can reuse each other's kept-alive connections and resume each
+     * other's TLS sessions (abbreviated handshakes), and their handshake time is recorded.
+     *
+     * @return SSLSocketFactory factory using a new SSL context with the default key and trust managers.
+     * @throws GeneralSecurityException If the SSL context could not be created.
+     */
+    public static SSLSocketFactory newSharedSSLSocketFactory() throws GeneralSecurityException {
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, null, null);
+        return newSharedSSLSocketFactory(context);
+    }
+
+    /**
+     * Get a new SSL socket factory to share across HTTPS clients, via {@link AdvancedSettings#sslSocketFactory}.
+     * Connections created with the same factory can reuse each other's kept-alive connections and resume each
+     * other's TLS sessions (abbreviated handshakes), and their handshake time is recorded.
+     *
+     * @param context SSLContext to create sockets with (e.g. with custom key or trust managers).
+     * @return SSLSocketFactory factory using the given SSL context.
+     */
+    public static SSLSocketFactory newSharedSSLSocketFactory(SSLContext context) {
+        return new HandshakeTimingSocketFactory(context.getSocketFactory());
+    }
 }
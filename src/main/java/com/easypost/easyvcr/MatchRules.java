@@ -1,9 +1,9 @@
 package com.easypost.easyvcr;
 
+import com.easypost.easyvcr.internal.QueryParameters;
 import com.easypost.easyvcr.internal.Utilities;
 import com.easypost.easyvcr.requestelements.Request;
 
-import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -51,30 +51,12 @@ public final class MatchRules {
      */
     public MatchRules byBaseUrl() {
         by((received, recorded) -> {
-            String receivedUri = getBaseUrl(received.getUri());
-            String recordedUri = getBaseUrl(recorded.getUri());
-            return receivedUri.equalsIgnoreCase(recordedUri);
+            // compare scheme, host, port and path in place, without rebuilding either URL
+            return received.getNormalizedUri().baseUrlEqualsIgnoreCase(recorded.getNormalizedUri());
         });
         return this;
     }
 
-    /**
-     * Extract the base URL from a URI.
-     *
-     * @param url The URI to extract the base URL from.
-     * @return The base URL.
-     */
-    private static String getBaseUrl(URI url) {
-        String baseUrl = url.getScheme() + "://" + url.getHost();
-        if (url.getPort() != -1) {
-            baseUrl += ":" + url.getPort();
-        }
-        if (url.getPath() != null) {
-            baseUrl += url.getPath();
-        }
-        return baseUrl;
-    }
-
     /**
      * Add a rule to compare the bodies of the requests.
      *
@@ -160,17 +142,10 @@ public final class MatchRules {
         } else {
             byBaseUrl();
             by((received, recorded) -> {
-                Map<String, String> receivedQuery = Utilities.queryParametersToMap(received.getUri());
-                Map<String, String> recordedQuery = Utilities.queryParametersToMap(recorded.getUri());
-                if (receivedQuery.size() != recordedQuery.size()) {
-                    return false;
-                }
-                for (Map.Entry<String, String> entry : receivedQuery.entrySet()) {
-                    if (!recordedQuery.containsKey(entry.getKey())) {
-                        return false;
-                    }
-                }
-                return true;
+                // the in-flight request is compared against every recorded request, so its query is only parsed once
+                QueryParameters receivedQuery = received.getNormalizedUri().getQueryParameters();
+                QueryParameters recordedQuery = recorded.getNormalizedUri().getQueryParameters();
+                return receivedQuery.hasSameNames(recordedQuery);
             });
         }
 
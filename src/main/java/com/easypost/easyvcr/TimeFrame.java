@@ -1,5 +1,6 @@
 package com.easypost.easyvcr;
 
+import java.time.Clock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
@@ -67,8 +68,19 @@ public class TimeFrame {
      * @return Whether this time frame has lapsed.
      */
     public boolean hasLapsed(Instant fromTime) {
+        return hasLapsed(fromTime, Clock.systemUTC());
+    }
+
+    /**
+     * Check if this time frame has lapsed from the given time, by the time of a clock.
+     *
+     * @param fromTime Time to add time frame to.
+     * @param clock    Clock to read the current time from (e.g. a {@link VirtualClock}).
+     * @return Whether this time frame has lapsed.
+     */
+    public boolean hasLapsed(Instant fromTime, Clock clock) {
         Instant startTimePlusFrame = timePlusFrame(fromTime);
-        return startTimePlusFrame.isBefore(Instant.now());
+        return startTimePlusFrame.isBefore(clock == null ? Instant.now() : clock.instant());
     }
 
     /**
@@ -78,8 +90,19 @@ public class TimeFrame {
      * @return Whether this time frame has lapsed.
      */
     public boolean hasLapsed(long fromTimeEpochTimestamp) {
+        return hasLapsed(fromTimeEpochTimestamp, Clock.systemUTC());
+    }
+
+    /**
+     * Check if this time frame has lapsed from the given time, by the time of a clock.
+     *
+     * @param fromTimeEpochTimestamp Epoch timestamp of the time to add time frame to.
+     * @param clock                  Clock to read the current time from (e.g. a {@link VirtualClock}).
+     * @return Whether this time frame has lapsed.
+     */
+    public boolean hasLapsed(long fromTimeEpochTimestamp, Clock clock) {
         Instant fromTime = Instant.ofEpochSecond(fromTimeEpochTimestamp);
-        return hasLapsed(fromTime);
+        return hasLapsed(fromTime, clock);
     }
 
     /**
@@ -0,0 +1,96 @@
+package com.easypost.easyvcr;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A clock that only moves when it is advanced.
+ * <p>
+ * Set it as {@link AdvancedSettings#clock} to simulate replay delays in virtual time: instead of sleeping,
+ * each simulated delay advances the clock, and code under test reads the elapsed time from the clock.
+ * The clock is shared by all threads, so it advances by the sum of all simulated delays.
+ */
+public final class VirtualClock extends Clock {
+    /**
+     * The time the clock started at.
+     */
+    private final Instant start;
+    /**
+     * The time the clock has been advanced by, in nanoseconds (shared with copies in other zones).
+     */
+    private final AtomicLong elapsedNanos;
+    private final ZoneId zone;
+
+    /**
+     * Constructor for VirtualClock, starting at the current time.
+     */
+    public VirtualClock() {
+        this(Instant.now());
+    }
+
+    /**
+     * Constructor for VirtualClock.
+     *
+     * @param start The time to start the clock at.
+     */
+    public VirtualClock(Instant start) {
+        this(start, new AtomicLong(), ZoneOffset.UTC);
+    }
+
+    private VirtualClock(Instant start, AtomicLong elapsedNanos, ZoneId zone) {
+        this.start = start;
+        this.elapsedNanos = elapsedNanos;
+        this.zone = zone;
+    }
+
+    /**
+     * Move the clock forward.
+     *
+     * @param amount The amount of time to move the clock forward by.
+     * @param unit   The unit of the amount.
+     */
+    public void advance(long amount, TimeUnit unit) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("A clock can't be moved backward");
+        }
+        elapsedNanos.addAndGet(unit.toNanos(amount));
+    }
+
+    /**
+     * Move the clock forward.
+     *
+     * @param duration The amount of time to move the clock forward by.
+     */
+    public void advance(Duration duration) {
+        advance(duration.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the time the clock has been moved forward by since it started.
+     *
+     * @return The elapsed time.
+     */
+    public Duration getElapsed() {
+        return Duration.ofNanos(elapsedNanos.get());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zoneId) {
+        return zoneId.equals(zone) ? this : new VirtualClock(start, elapsedNanos, zoneId);
+    }
+
+    @Override
+    public Instant instant() {
+        return start.plusNanos(elapsedNanos.get());
+    }
+}
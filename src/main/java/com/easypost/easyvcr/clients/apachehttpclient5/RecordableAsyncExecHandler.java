@@ -0,0 +1,365 @@
+package com.easypost.easyvcr.clients.apachehttpclient5;
+
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.RecordingExpirationException;
+import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.interactionconverters.ApacheHttpClient5InteractionConverter;
+import com.easypost.easyvcr.internal.ConsoleFallbackLogger;
+import com.easypost.easyvcr.internal.ExpirationActionExtensions;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Request;
+import com.easypost.easyvcr.requestelements.Response;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.easypost.easyvcr.internal.Utilities.startDelay;
+
+/**
+ * An Apache HttpClient 5 async exec chain handler that records requests to and replays responses from a cassette.
+ * <p>
+ * Install it first in the exec chain (see {@link RecordableHttpAsyncClients}), so it sees requests as the caller
+ * made them and responses after redirects and retries.
+ * Replayed responses are handed to the caller's response consumer on an executor (never on an I/O reactor
+ * thread), without a connection being leased. Recorded response bodies are copied as the caller's response
+ * consumer consumes them; the interaction is recorded once the exchange completes.
+ * <p>
+ * Request bodies are collected before the request is matched or sent, so the request entity producer has to be
+ * able to produce its data when asked (as in-memory producers do).
+ */
+public final class RecordableAsyncExecHandler implements AsyncExecChainHandler {
+    /**
+     * The name the handler is installed under in the exec chain.
+     */
+    public static final String NAME = "easyvcr";
+
+    /**
+     * The Cassette that this handler is recording to and reading from.
+     */
+    private final Cassette cassette;
+    /**
+     * The VCR mode that this handler is using.
+     */
+    private final Mode mode;
+    /**
+     * The AdvancedSettings that this handler is using.
+     */
+    private final AdvancedSettings advancedSettings;
+    /**
+     * The executor that replayed responses are delivered on.
+     */
+    private final Executor executor;
+    /**
+     * The ApacheHttpClient5InteractionConverter that converts requests and responses to HttpInteractions.
+     */
+    private final ApacheHttpClient5InteractionConverter converter;
+    /**
+     * Logger to use for logging (uses custom logger internally if set, otherwise logs to console).
+     */
+    private final ConsoleFallbackLogger logger;
+
+    /**
+     * Constructor for the RecordableAsyncExecHandler class.
+     *
+     * @param cassette         The cassette to use.
+     * @param mode             The mode to use.
+     * @param advancedSettings The advanced settings to use.
+     * @param executor         The executor to deliver replayed responses on.
+     * @throws RecordingExpirationException If the expiration settings are not compatible with the mode.
+     */
+    public RecordableAsyncExecHandler(Cassette cassette, Mode mode, AdvancedSettings advancedSettings,
+                                      Executor executor) throws RecordingExpirationException {
+        if (cassette == null) {
+            throw new IllegalArgumentException("Cassette cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.cassette = cassette;
+        this.mode = mode;
+        this.advancedSettings = advancedSettings != null ? advancedSettings : new AdvancedSettings();
+        this.executor = executor;
+        this.converter = new ApacheHttpClient5InteractionConverter();
+        this.logger = new ConsoleFallbackLogger(this.advancedSettings.logger, "EasyVCR");
+        ExpirationActionExtensions.checkCompatibleSettings(this.advancedSettings.whenExpired, mode);
+    }
+
+    /**
+     * Constructor for the RecordableAsyncExecHandler class, delivering replayed responses on the common pool.
+     *
+     * @param cassette         The cassette to use.
+     * @param mode             The mode to use.
+     * @param advancedSettings The advanced settings to use.
+     * @throws RecordingExpirationException If the expiration settings are not compatible with the mode.
+     */
+    public RecordableAsyncExecHandler(Cassette cassette, Mode mode, AdvancedSettings advancedSettings)
+            throws RecordingExpirationException {
+        this(cassette, mode, advancedSettings, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for the RecordableAsyncExecHandler class, delivering replayed responses on the common pool.
+     *
+     * @param cassette The cassette to use.
+     * @param mode     The mode to use.
+     * @throws RecordingExpirationException If the expiration settings are not compatible with the mode.
+     */
+    public RecordableAsyncExecHandler(Cassette cassette, Mode mode) throws RecordingExpirationException {
+        this(cassette, mode, new AdvancedSettings());
+    }
+
+    @Override
+    public void execute(HttpRequest request, AsyncEntityProducer entityProducer, AsyncExecChain.Scope scope,
+                        AsyncExecChain chain, AsyncExecCallback asyncExecCallback)
+            throws HttpException, IOException {
+        if (mode == Mode.Bypass) {
+            chain.proceed(request, entityProducer, scope, asyncExecCallback);
+            return;
+        }
+
+        byte[] body = collectEntity(entityProducer);
+        Request recordedRequest =
+                converter.createRecordedRequest(request, body == null ? "" : new String(body, StandardCharsets.UTF_8),
+                        advancedSettings.censors);
+        if (mode != Mode.Record) {
+            HttpInteraction matchingInteraction;
+            try {
+                matchingInteraction =
+                        converter.loadExistingInteraction(cassette, recordedRequest, advancedSettings, mode, logger);
+            } catch (VCRException | RecordingExpirationException e) {
+                asyncExecCallback.failed(e);
+                return;
+            }
+            if (matchingInteraction != null) {
+                replay(matchingInteraction, asyncExecCallback);
+                return;
+            }
+            if (mode == Mode.Replay) {
+                asyncExecCallback.failed(new VCRException("No matching interaction found."));
+                return;
+            }
+        }
+
+        // the original producer was used up collecting the body, send the collected bytes instead (not copied)
+        AsyncEntityProducer collectedEntity = body == null ? null
+                : new BasicAsyncEntityProducer(body, parseContentType(entityProducer.getContentType()),
+                        entityProducer.isChunked());
+        long start = System.nanoTime();
+        chain.proceed(request, collectedEntity, scope,
+                new RecordingCallback(asyncExecCallback, request, recordedRequest, start));
+    }
+
+    /**
+     * Collect the data of a request entity producer.
+     *
+     * @param entityProducer The request entity producer, may be null.
+     * @return The request body, or null if there is no entity.
+     * @throws IOException If the producer doesn't produce its data when asked.
+     */
+    private static byte[] collectEntity(AsyncEntityProducer entityProducer) throws IOException {
+        if (entityProducer == null) {
+            return null;
+        }
+        EntityCapture capture = new EntityCapture();
+        while (!capture.ended) {
+            int before = capture.size();
+            entityProducer.produce(capture);
+            if (!capture.ended && capture.size() == before && entityProducer.available() <= 0) {
+                throw new IOException("Request entity producer did not produce its data when asked");
+            }
+        }
+        return capture.toByteArray();
+    }
+
+    private static ContentType parseContentType(String contentType) {
+        return contentType == null ? null : ContentType.parseLenient(contentType);
+    }
+
+    /**
+     * Replay a recorded interaction on the executor, after the simulated delay (if any).
+     *
+     * @param interaction       The recorded interaction.
+     * @param asyncExecCallback The callback to hand the response to.
+     */
+    private void replay(HttpInteraction interaction, AsyncExecCallback asyncExecCallback) {
+        Runnable delivery = () -> deliverReplay(interaction, asyncExecCallback);
+        long delay = startDelay(interaction, advancedSettings);
+        if (delay > 0) {
+            // schedule rather than sleep, so no thread is blocked while waiting
+            DelayScheduler.INSTANCE.schedule(() -> executor.execute(delivery), delay, TimeUnit.NANOSECONDS);
+        } else {
+            executor.execute(delivery);
+        }
+    }
+
+    /**
+     * Hand a recorded response to the caller's response consumer.
+     *
+     * @param interaction       The recorded interaction.
+     * @param asyncExecCallback The callback to hand the response to.
+     */
+    private void deliverReplay(HttpInteraction interaction, AsyncExecCallback asyncExecCallback) {
+        try {
+            Response response = interaction.getResponse();
+            response.addReplayHeaders();
+            HttpResponse httpResponse = converter.toHttpResponse(response);
+            // a read-only view of the cassette's copy of the body
+            ByteBuffer body = response.getBodyBytes();
+            EntityDetails entityDetails = null;
+            if (body.hasRemaining()) {
+                Header contentType = httpResponse.getFirstHeader("Content-Type");
+                entityDetails = new BasicEntityDetails(body.remaining(),
+                        parseContentType(contentType == null ? null : contentType.getValue()));
+            }
+            AsyncDataConsumer dataConsumer = asyncExecCallback.handleResponse(httpResponse, entityDetails);
+            if (dataConsumer != null) {
+                dataConsumer.updateCapacity(increment -> {
+                    // the whole body is handed over at once
+                });
+                dataConsumer.consume(body);
+                dataConsumer.streamEnd(null);
+            }
+            asyncExecCallback.completed();
+        } catch (Exception e) {
+            asyncExecCallback.failed(e);
+        }
+    }
+
+    /**
+     * Passes the exchange through to the caller's callback, recording the interaction once it completes.
+     */
+    private final class RecordingCallback implements AsyncExecCallback {
+        private final AsyncExecCallback delegate;
+        private final HttpRequest request;
+        private final Request recordedRequest;
+        private final long start;
+        private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        private HttpResponse response;
+        private long duration;
+
+        RecordingCallback(AsyncExecCallback delegate, HttpRequest request, Request recordedRequest, long start) {
+            this.delegate = delegate;
+            this.request = request;
+            this.recordedRequest = recordedRequest;
+            this.start = start;
+        }
+
+        @Override
+        public AsyncDataConsumer handleResponse(HttpResponse httpResponse, EntityDetails entityDetails)
+                throws HttpException, IOException {
+            // time how long it takes to get the initial response, like the HttpURLConnection clients do
+            this.duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            this.response = httpResponse;
+            AsyncDataConsumer dataConsumer = delegate.handleResponse(httpResponse, entityDetails);
+            if (entityDetails == null) {
+                return dataConsumer;
+            }
+            return new RecordingDataConsumer(dataConsumer, captured);
+        }
+
+        @Override
+        public void handleInformationResponse(HttpResponse httpResponse) throws HttpException, IOException {
+            delegate.handleInformationResponse(httpResponse);
+        }
+
+        @Override
+        public void completed() {
+            try {
+                // decoded straight from the captured bytes, without copying them first
+                String body = captured.toString(StandardCharsets.UTF_8.name());
+                Response recordedResponse =
+                        converter.createRecordedResponse(response, request.getUri(), body, advancedSettings.censors);
+                HttpInteraction interaction = converter.createInteraction(recordedRequest, recordedResponse, duration);
+                synchronized (cassette) {
+                    cassette.updateInteraction(interaction, advancedSettings.matchRules, false);
+                }
+            } catch (Exception e) {
+                delegate.failed(e);
+                return;
+            }
+            delegate.completed();
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            delegate.failed(cause);
+        }
+    }
+
+    /**
+     * A data channel that collects everything written to it.
+     */
+    private static final class EntityCapture extends ByteArrayOutputStream implements DataStreamChannel {
+        private boolean ended;
+
+        @Override
+        public void requestOutput() {
+            // data is pulled in a loop until the stream ends
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int count = src.remaining();
+            if (src.hasArray()) {
+                write(src.array(), src.arrayOffset() + src.position(), count);
+                src.position(src.limit());
+            } else {
+                byte[] bytes = new byte[count];
+                src.get(bytes);
+                write(bytes, 0, count);
+            }
+            return count;
+        }
+
+        @Override
+        public void endStream() {
+            ended = true;
+        }
+
+        @Override
+        public void endStream(List<? extends Header> trailers) {
+            ended = true;
+        }
+    }
+
+    /**
+     * The scheduler simulated replay delays wait on.
+     */
+    private static final class DelayScheduler {
+        private static final ScheduledExecutorService INSTANCE = createScheduler();
+
+        private static ScheduledExecutorService createScheduler() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "easyvcr-replay-delay");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.easypost.easyvcr.clients.apachehttpclient5;
+
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.RecordingExpirationException;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+
+/**
+ * Apache HttpClient 5 async client builders configured to use cassettes.
+ * Requires the optional org.apache.httpcomponents.client5:httpclient5 dependency.
+ */
+public abstract class RecordableHttpAsyncClients {
+
+    /**
+     * Get a new async client builder configured to use cassettes.
+     * In Bypass mode, the builder is returned as is, without EasyVCR in the exec chain.
+     *
+     * @param cassette         Cassette to use.
+     * @param mode             Mode to use.
+     * @param advancedSettings AdvancedSettings to use.
+     * @return HttpAsyncClientBuilder builder to configure further and build the client with.
+     * @throws RecordingExpirationException If the expiration settings are not compatible with the mode.
+     */
+    public static HttpAsyncClientBuilder custom(Cassette cassette, Mode mode, AdvancedSettings advancedSettings)
+            throws RecordingExpirationException {
+        return install(HttpAsyncClients.custom(), cassette, mode, advancedSettings);
+    }
+
+    /**
+     * Get a new async client builder configured to use cassettes.
+     * In Bypass mode, the builder is returned as is, without EasyVCR in the exec chain.
+     *
+     * @param cassette Cassette to use.
+     * @param mode     Mode to use.
+     * @return HttpAsyncClientBuilder builder to configure further and build the client with.
+     * @throws RecordingExpirationException If the expiration settings are not compatible with the mode.
+     */
+    public static HttpAsyncClientBuilder custom(Cassette cassette, Mode mode) throws RecordingExpirationException {
+        return custom(cassette, mode, new AdvancedSettings());
+    }
+
+    /**
+     * Install EasyVCR first in the exec chain of an existing async client builder.
+     * In Bypass mode, the builder is returned as is.
+     *
+     * @param builder          HttpAsyncClientBuilder builder to install EasyVCR in.
+     * @param cassette         Cassette to use.
+     * @param mode             Mode to use.
+     * @param advancedSettings AdvancedSettings to use.
+     * @return HttpAsyncClientBuilder the same builder.
+     * @throws RecordingExpirationException If the expiration settings are not compatible with the mode.
+     */
+    public static HttpAsyncClientBuilder install(HttpAsyncClientBuilder builder, Cassette cassette, Mode mode,
+                                                 AdvancedSettings advancedSettings)
+            throws RecordingExpirationException {
+        if (mode == Mode.Bypass) {
+            return builder;
+        }
+        return builder.addExecInterceptorFirst(RecordableAsyncExecHandler.NAME,
+                new RecordableAsyncExecHandler(cassette, mode, advancedSettings));
+    }
+}
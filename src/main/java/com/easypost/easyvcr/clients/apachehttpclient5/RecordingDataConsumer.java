@@ -0,0 +1,78 @@
+package com.easypost.easyvcr.clients.apachehttpclient5;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A data consumer that passes the response body through to the caller's consumer while keeping a copy of
+ * the body.
+ */
+final class RecordingDataConsumer implements AsyncDataConsumer {
+    /**
+     * The caller's consumer, or null if the caller discards the body.
+     */
+    private final AsyncDataConsumer delegate;
+    /**
+     * The copy of every byte consumed.
+     */
+    private final ByteArrayOutputStream captured;
+
+    /**
+     * Constructor for RecordingDataConsumer.
+     *
+     * @param delegate The caller's consumer, or null if the caller discards the body.
+     * @param captured The stream to copy the body to.
+     */
+    RecordingDataConsumer(AsyncDataConsumer delegate, ByteArrayOutputStream captured) {
+        this.delegate = delegate;
+        this.captured = captured;
+    }
+
+    @Override
+    public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+        if (delegate != null) {
+            delegate.updateCapacity(capacityChannel);
+        } else {
+            capacityChannel.update(Integer.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public void consume(ByteBuffer src) throws IOException {
+        // consumers have to take all of the data, copy it before the caller's consumer reads it
+        ByteBuffer view = src.duplicate();
+        if (view.hasArray()) {
+            captured.write(view.array(), view.arrayOffset() + view.position(), view.remaining());
+        } else {
+            byte[] bytes = new byte[view.remaining()];
+            view.get(bytes);
+            captured.write(bytes, 0, bytes.length);
+        }
+        if (delegate != null) {
+            delegate.consume(src);
+        } else {
+            src.position(src.limit());
+        }
+    }
+
+    @Override
+    public void streamEnd(List<? extends Header> trailers) throws HttpException, IOException {
+        if (delegate != null) {
+            delegate.streamEnd(trailers);
+        }
+    }
+
+    @Override
+    public void releaseResources() {
+        if (delegate != null) {
+            delegate.releaseResources();
+        }
+    }
+}
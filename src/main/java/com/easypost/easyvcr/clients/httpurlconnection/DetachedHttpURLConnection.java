@@ -0,0 +1,80 @@
+package com.easypost.easyvcr.clients.httpurlconnection;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HttpURLConnection that never connects, used in place of a real connection while replaying.
+ * It only keeps the request state (method, headers, timeouts, etc.), which can be copied onto a real
+ * connection if one turns out to be needed after all.
+ */
+final class DetachedHttpURLConnection extends HttpURLConnection {
+    /**
+     * Constructor for DetachedHttpURLConnection.
+     *
+     * @param url The URL of the request.
+     */
+    DetachedHttpURLConnection(URL url) {
+        super(url);
+    }
+
+    /**
+     * Copy the request state of this connection onto a real connection.
+     *
+     * @param to The real connection to copy to.
+     * @throws ProtocolException If the request method is not valid for the real connection.
+     */
+    void copyRequestState(HttpURLConnection to) throws ProtocolException {
+        copyCommonRequestState(this, to);
+        if (fixedContentLengthLong != -1) {
+            to.setFixedLengthStreamingMode(fixedContentLengthLong);
+        } else if (fixedContentLength != -1) {
+            to.setFixedLengthStreamingMode(fixedContentLength);
+        } else if (chunkLength != -1) {
+            to.setChunkedStreamingMode(chunkLength);
+        }
+    }
+
+    /**
+     * Copy the request state that every kind of connection has in common.
+     *
+     * @param from The detached connection to copy from.
+     * @param to   The real connection to copy to.
+     * @throws ProtocolException If the request method is not valid for the real connection.
+     */
+    static void copyCommonRequestState(HttpURLConnection from, HttpURLConnection to) throws ProtocolException {
+        to.setRequestMethod(from.getRequestMethod());
+        to.setDoInput(from.getDoInput());
+        to.setDoOutput(from.getDoOutput());
+        to.setAllowUserInteraction(from.getAllowUserInteraction());
+        to.setUseCaches(from.getUseCaches());
+        to.setIfModifiedSince(from.getIfModifiedSince());
+        to.setConnectTimeout(from.getConnectTimeout());
+        to.setReadTimeout(from.getReadTimeout());
+        to.setInstanceFollowRedirects(from.getInstanceFollowRedirects());
+        for (Map.Entry<String, List<String>> header : from.getRequestProperties().entrySet()) {
+            for (String value : header.getValue()) {
+                to.addRequestProperty(header.getKey(), value);
+            }
+        }
+    }
+
+    @Override
+    public void connect() throws IOException {
+        throw new IOException("Cannot connect a detached connection");
+    }
+
+    @Override
+    public void disconnect() {
+        // never connected, nothing to do
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return false;
+    }
+}
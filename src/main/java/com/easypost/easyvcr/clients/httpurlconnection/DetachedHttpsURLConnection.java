@@ -0,0 +1,99 @@
+package com.easypost.easyvcr.clients.httpurlconnection;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.URL;
+import java.security.cert.Certificate;
+
+/**
+ * An HttpsURLConnection that never connects, used in place of a real connection while replaying.
+ * It only keeps the request state (method, headers, timeouts, TLS settings, etc.), which can be copied onto a real
+ * connection if one turns out to be needed after all.
+ */
+final class DetachedHttpsURLConnection extends HttpsURLConnection {
+    /**
+     * The socket factory set on this connection, or null if the default is used.
+     */
+    private SSLSocketFactory sslSocketFactory;
+    /**
+     * Whether a hostname verifier was set on this connection.
+     */
+    private boolean hostnameVerifierSet;
+
+    /**
+     * Constructor for DetachedHttpsURLConnection.
+     *
+     * @param url The URL of the request.
+     */
+    DetachedHttpsURLConnection(URL url) {
+        super(url);
+    }
+
+    /**
+     * Copy the request state of this connection onto a real connection.
+     *
+     * @param to The real connection to copy to.
+     * @throws ProtocolException If the request method is not valid for the real connection.
+     */
+    void copyRequestState(HttpsURLConnection to) throws ProtocolException {
+        DetachedHttpURLConnection.copyCommonRequestState(this, to);
+        if (fixedContentLengthLong != -1) {
+            to.setFixedLengthStreamingMode(fixedContentLengthLong);
+        } else if (fixedContentLength != -1) {
+            to.setFixedLengthStreamingMode(fixedContentLength);
+        } else if (chunkLength != -1) {
+            to.setChunkedStreamingMode(chunkLength);
+        }
+        if (sslSocketFactory != null) {
+            to.setSSLSocketFactory(sslSocketFactory);
+        }
+        if (hostnameVerifierSet) {
+            to.setHostnameVerifier(getHostnameVerifier());
+        }
+    }
+
+    @Override
+    public void setSSLSocketFactory(SSLSocketFactory sf) {
+        super.setSSLSocketFactory(sf);
+        this.sslSocketFactory = sf;
+    }
+
+    @Override
+    public void setHostnameVerifier(HostnameVerifier v) {
+        super.setHostnameVerifier(v);
+        this.hostnameVerifierSet = true;
+    }
+
+    @Override
+    public String getCipherSuite() {
+        throw new IllegalStateException("connection not yet open");
+    }
+
+    @Override
+    public Certificate[] getLocalCertificates() {
+        throw new IllegalStateException("connection not yet open");
+    }
+
+    @Override
+    public Certificate[] getServerCertificates() {
+        throw new IllegalStateException("connection not yet open");
+    }
+
+    @Override
+    public void connect() throws IOException {
+        throw new IOException("Cannot connect a detached connection");
+    }
+
+    @Override
+    public void disconnect() {
+        // never connected, nothing to do
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return false;
+    }
+}
@@ -5,11 +5,15 @@ import com.easypost.easyvcr.Cassette;
 import com.easypost.easyvcr.Mode;
 import com.easypost.easyvcr.RecordingExpirationException;
 import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.faults.Fault;
+import com.easypost.easyvcr.faults.FaultType;
 import com.easypost.easyvcr.interactionconverters.HttpUrlConnectionInteractionConverter;
 import com.easypost.easyvcr.internal.ConsoleFallbackLogger;
 import com.easypost.easyvcr.internal.ExpirationActionExtensions;
+import com.easypost.easyvcr.internal.TeeInputStream;
 import com.easypost.easyvcr.requestelements.HttpInteraction;
 import com.easypost.easyvcr.requestelements.Request;
+import com.easypost.easyvcr.requestelements.Timings;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -20,15 +24,20 @@ import java.net.MalformedURLException;
 import java.net.ProtocolException;
 import java.net.Proxy;
 import java.net.SocketPermission;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.UnknownServiceException;
 import java.security.Permission;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
-import static com.easypost.easyvcr.internal.Utilities.createInputStream;
+import static com.easypost.easyvcr.internal.Utilities.replayResponseBody;
 import static com.easypost.easyvcr.internal.Utilities.simulateDelay;
 
 public final class RecordableHttpURLConnection extends HttpURLConnection {
@@ -41,10 +50,28 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
 
     /**
      * The internal HttpURLConnection that this class wraps.
+     * While replaying, this is a detached connection that only holds the request state, until a real connection
+     * is needed to record an interaction.
      */
     private HttpURLConnection connection;
     /**
-     * Stores the request body until the connection is made.
+     * The proxy to use when opening the real connection.
+     */
+    private final Proxy proxy;
+    /**
+     * Whether the request body still needs to be written once the real connection is opened.
+     */
+    private boolean requestBodyPending;
+    /**
+     * The request converted to an EasyVCR request, captured before the request is sent.
+     */
+    private Request recordedRequest;
+    /**
+     * The breakdown of the time spent opening the real connection, once it was opened.
+     */
+    private Timings timings;
+    /**
+     * Stores the request body until the connection is made (null when bypassing).
      */
     private final RecordableRequestBody requestBody;
     /**
@@ -67,6 +94,24 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
      * Internal cached HttpInteraction storing the request and response details.
      */
     private HttpInteraction cachedInteraction;
+    /**
+     * Whether the cached interaction is still waiting for its response body to be streamed to the caller
+     * before it can be recorded to the cassette (only used if response streams are teed).
+     */
+    private boolean awaitingResponseBody;
+    /**
+     * The stream handed to the caller while the response body is being recorded (only used if response streams
+     * are teed).
+     */
+    private TeeInputStream recordingStream;
+    /**
+     * Whether the cached interaction was replayed from the cassette (rather than recorded from a real connection).
+     */
+    private boolean replayed;
+    /**
+     * The faults injected into the replayed interaction, if any.
+     */
+    private Fault fault;
 
     /**
      * Logger to use for logging (uses custom logger internally if set, otherwise logs to console).
@@ -88,18 +133,27 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
             throws IOException, RecordingExpirationException {
         // this super is not used
         super(url);
-        if (proxy == null) {
-            this.connection = (HttpURLConnection) url.openConnection();
+        this.proxy = proxy;
+        this.mode = mode;
+        this.advancedSettings = advancedSettings;
+        if (mode == Mode.Replay || mode == Mode.Auto) {
+            // don't touch the network stack unless an interaction actually needs to be recorded
+            this.connection = new DetachedHttpURLConnection(url);
         } else {
-            this.connection = (HttpURLConnection) url.openConnection(proxy);
+            this.connection = openRealConnection();
         }
-        this.requestBody = new RecordableRequestBody();
         this.cachedInteraction = null;
         this.cassette = cassette;
-        this.mode = mode;
-        this.advancedSettings = advancedSettings;
-        this.converter = new HttpUrlConnectionInteractionConverter();
-        this.logger = new ConsoleFallbackLogger(advancedSettings.logger, "EasyVCR");
+        if (mode == Mode.Bypass) {
+            // every call goes straight to the real connection, nothing is buffered, converted or logged
+            this.requestBody = null;
+            this.converter = null;
+            this.logger = null;
+        } else {
+            this.requestBody = new RecordableRequestBody(advancedSettings.requestBodySpillThreshold);
+            this.converter = new HttpUrlConnectionInteractionConverter();
+            this.logger = new ConsoleFallbackLogger(advancedSettings.logger, "EasyVCR");
+        }
         ExpirationActionExtensions.checkCompatibleSettings(advancedSettings.whenExpired, mode);
     }
 
@@ -195,6 +249,30 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
         }
     }
 
+    /**
+     * Get the first value of a header of a cached interaction, ignoring the case of its name (as HTTP does).
+     *
+     * @param interaction The cached interaction.
+     * @param name        The name of the header (null for the status line).
+     * @return The value of the header, or null if the response doesn't have it.
+     */
+    private static String getHeaderValue(HttpInteraction interaction, String name) {
+        Map<String, List<String>> headers = interaction.getResponse().getHeaders();
+        if (headers == null) {
+            return null;
+        }
+        List<String> values = headers.get(name);
+        if (values == null && name != null) {
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (name.equalsIgnoreCase(header.getKey())) {
+                    values = header.getValue();
+                    break;
+                }
+            }
+        }
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
     /**
      * Get an integer from the cache.
      *
@@ -227,13 +305,202 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
         // only need to execute this once, on the first getX(), since no more setX() is allowed at that point
         // so the request and response won't be changing
         // important to call directly on connection, rather than this.function() to avoid potential recursion
+        Request request = getRecordedRequest();
+        try {
+            attachRealConnection();
+            connectRealConnection();
+        } catch (IOException e) {
+            throw new VCRException("Could not open connection: " + e.getMessage());
+        }
+        if (this.advancedSettings.teeResponseStreams) {
+            // leave the body on the connection, it is recorded as the caller reads it
+            this.cachedInteraction =
+                    this.converter.createInteraction(request, this.connection, this.advancedSettings.censors, false);
+            attachTimings();
+            this.awaitingResponseBody = recordToCassette;
+            return;
+        }
         this.cachedInteraction =
-                this.converter.createInteraction(this.connection, this.requestBody, this.advancedSettings.censors);
+                this.converter.createInteraction(request, this.connection, this.advancedSettings.censors, true);
+        attachTimings();
         if (recordToCassette) {
             this.cassette.updateInteraction(this.cachedInteraction, this.advancedSettings.matchRules, false);
         }
     }
 
+    /**
+     * Attach the breakdown of the time spent opening the real connection to the cached interaction,
+     * together with the response times measured while converting the response.
+     */
+    private void attachTimings() {
+        Timings responseTimings = this.cachedInteraction.getTimings();
+        if (responseTimings != null) {
+            this.timings.setFirstByte(responseTimings.getFirstByte());
+            this.timings.setTransfer(responseTimings.getTransfer());
+        }
+        this.cachedInteraction.setTimings(this.timings);
+    }
+
+    /**
+     * Get the request converted to an EasyVCR request, converting it on first use.
+     * This has to happen before the request is sent, since the request headers can't be read from the connection
+     * after that (without disconnecting it, which would close the socket rather than let it be reused).
+     *
+     * @return The EasyVCR request, or null if the request could not be converted.
+     */
+    private Request getRecordedRequest() {
+        if (this.recordedRequest == null) {
+            this.recordedRequest =
+                    this.converter.createRecordedRequest(this.connection, this.requestBody,
+                            this.advancedSettings.censors);
+        }
+        return this.recordedRequest;
+    }
+
+    /**
+     * Open a real connection to the URL.
+     *
+     * @return The real connection.
+     * @throws IOException If the connection could not be opened.
+     */
+    private HttpURLConnection openRealConnection() throws IOException {
+        if (this.proxy == null) {
+            return (HttpURLConnection) this.url.openConnection();
+        }
+        return (HttpURLConnection) this.url.openConnection(this.proxy);
+    }
+
+    /**
+     * Connect the real connection if it isn't connected yet, timing how long that takes.
+     *
+     * @throws IOException If the connection could not be opened.
+     */
+    private void connectRealConnection() throws IOException {
+        if (this.timings != null) {
+            return;
+        }
+        long start = System.nanoTime();
+        this.connection.connect();
+        // plain HTTP, there is no handshake
+        this.timings = new Timings(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 0);
+    }
+
+    /**
+     * Replace the detached connection used while replaying with a real connection, carrying over the request state
+     * (and request body, if it was already sent).
+     *
+     * @throws IOException If the real connection could not be opened.
+     */
+    private void attachRealConnection() throws IOException {
+        if (!(this.connection instanceof DetachedHttpURLConnection)) {
+            return;
+        }
+        DetachedHttpURLConnection detached = (DetachedHttpURLConnection) this.connection;
+        HttpURLConnection realConnection = openRealConnection();
+        detached.copyRequestState(realConnection);
+        this.connection = realConnection;
+        if (this.requestBodyPending) {
+            this.requestBodyPending = false;
+            writeRequestBody();
+        }
+    }
+
+    /**
+     * Write the request body to the real connection.
+     *
+     * @throws IOException If the request body could not be written.
+     */
+    private void writeRequestBody() throws IOException {
+        // the request can't be read from the connection once it is sent, so capture it now
+        getRecordedRequest();
+        connectRealConnection();
+        // have to write this at the last second, otherwise locks us out
+        OutputStream output = null;
+        try {
+            output = this.connection.getOutputStream();
+            this.requestBody.writeTo(output);
+        } catch (Exception e) {
+            throw new IOException(e);
+        } finally {
+            if (output != null) {
+                output.close();
+            }
+        }
+    }
+
+    /**
+     * Get the stream the caller reads the live response body from while it is being recorded.
+     * The interaction is recorded to the cassette once the caller closes the stream.
+     *
+     * @return The stream of the response body.
+     * @throws IOException If the response body could not be read.
+     */
+    private InputStream getRecordingStream() throws IOException {
+        if (this.recordingStream == null) {
+            InputStream source;
+            try {
+                source = this.connection.getInputStream();
+            } catch (IOException ignored) {  // nothing in body if bad status code from server
+                source = this.connection.getErrorStream();
+            }
+            if (source == null) {
+                source = this.cachedInteraction.getResponse().getBodyInputStream();
+            }
+            this.recordingStream = new TeeInputStream(source, this::recordResponseBody);
+        }
+        return this.recordingStream;
+    }
+
+    /**
+     * Get the response body of the cached interaction; a replayed body is paced like the recorded one if delays
+     * are simulated.
+     *
+     * @return The stream of the response body.
+     */
+    private InputStream getCachedResponseBody() {
+        if (this.replayed) {
+            InputStream body = replayResponseBody(this.cachedInteraction, this.advancedSettings);
+            if (this.fault != null) {
+                body = this.fault.applyToBody(body, this.cachedInteraction.getResponse().getBodyBytes().remaining());
+            }
+            return body;
+        }
+        return this.cachedInteraction.getResponse().getBodyInputStream();
+    }
+
+    /**
+     * Add the captured response body to the cached interaction and record it to the cassette.
+     *
+     * @param body The captured response body.
+     * @throws IOException If the interaction could not be recorded.
+     */
+    private void recordResponseBody(byte[] body) throws IOException {
+        this.awaitingResponseBody = false;
+        this.cachedInteraction.getTimings()
+                .setTransfer(TimeUnit.NANOSECONDS.toMillis(this.recordingStream.getTransferNanos()));
+        this.converter.setRecordedResponseBody(this.cachedInteraction.getResponse(), body,
+                this.advancedSettings.censors);
+        try {
+            this.cassette.updateInteraction(this.cachedInteraction, this.advancedSettings.matchRules, false);
+        } catch (VCRException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Record the cached interaction if the caller never read (or never closed) the response body.
+     */
+    private void finishRecording() {
+        if (!this.awaitingResponseBody) {
+            return;
+        }
+        try {
+            getRecordingStream().close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Load an existing interaction from the cassette and cache it.
      *
@@ -242,8 +509,7 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
      * @throws InterruptedException If the thread is interrupted.
      */
     private boolean loadExistingInteraction() throws VCRException, RecordingExpirationException, InterruptedException {
-        Request request =
-                converter.createRecordedRequest(this.connection, this.requestBody, this.advancedSettings.censors);
+        Request request = getRecordedRequest();
         // null because couldn't be created
         if (request == null) {
             return false;
@@ -255,7 +521,7 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
         }
 
         // check the recording's expiration
-        if (advancedSettings.timeFrame.hasLapsed(matchingInteraction.getRecordedAt())) {
+        if (advancedSettings.timeFrame.hasLapsed(matchingInteraction.getRecordedAt(), advancedSettings.clock)) {
             // recording has expired
             switch (mode) {
                 case Replay:
@@ -294,10 +560,50 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
 
         simulateDelay(matchingInteraction, this.advancedSettings);
         this.cachedInteraction = matchingInteraction;
+        this.replayed = true;
+        if (this.advancedSettings.faultInjector != null) {
+            injectFault(request);
+        }
         this.cachedInteraction.getResponse().addReplayHeaders();
         return true;
     }
 
+    /**
+     * Pick the faults to inject into the replayed interaction, and apply the ones that take effect before the
+     * response is read.
+     *
+     * @param request The replayed request.
+     * @throws InterruptedException If interrupted while waiting for an injected delay.
+     */
+    private void injectFault(Request request) throws InterruptedException {
+        this.fault = this.advancedSettings.faultInjector.pick(request);
+        if (this.fault == null) {
+            return;
+        }
+        simulateDelay(this.fault.getExtraLatency(), this.advancedSettings);
+        if (this.fault.getType() == FaultType.ReadTimeout) {
+            if (this.connection.getReadTimeout() <= 0) {
+                // without a read timeout, a real connection waits for the response instead of timing out
+                this.fault = null;
+                return;
+            }
+            // a real connection gives up once its read timeout passed
+            simulateDelay(this.connection.getReadTimeout(), this.advancedSettings);
+        }
+        this.cachedInteraction = this.fault.applyToResponse(this.cachedInteraction);
+    }
+
+    /**
+     * Throw the injected read timeout, if any.
+     *
+     * @throws SocketTimeoutException If a read timeout is injected.
+     */
+    private void throwInjectedTimeout() throws SocketTimeoutException {
+        if (this.fault != null && this.fault.getType() == FaultType.ReadTimeout) {
+            throw new SocketTimeoutException("Read timed out");
+        }
+    }
+
     /**
      * Build an in-memory cache of the current request and response details if needed.
      *
@@ -337,6 +643,24 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
             default:
                 break;
         }
+        if (this.cachedInteraction != null) {
+            // the request was recorded or replayed, the body won't be sent or read again
+            discardRequestBody();
+        }
+    }
+
+    /**
+     * Discard the stored request body, deleting its temporary file if it was spilled to disk.
+     */
+    private void discardRequestBody() {
+        if (this.requestBody == null) {
+            return;
+        }
+        try {
+            this.requestBody.discard();
+        } catch (IOException e) {
+            this.logger.warning("Could not discard request body: " + e.getMessage());
+        }
     }
 
     /**
@@ -344,32 +668,34 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
      */
     private void clearCache() {
         this.cachedInteraction = null;
+        this.awaitingResponseBody = false;
+        this.recordingStream = null;
+        this.replayed = false;
+        this.fault = null;
     }
 
     @Override
     public void connect() throws IOException {
+        if (mode == Mode.Bypass) {
+            this.connection.connect();
+            return;
+        }
         try {
             if (this.requestBody.hasData()) {
                 setRequestProperty("Content-Type", "application/json"); // only supports JSON for now
                 this.connection.setDoOutput(
                         true); // have to set this to true to allow the ability to get and write to output stream
-                // have to write this at the last second, otherwise locks us out
-                OutputStream output = null;
-                try {
-                    output = this.connection.getOutputStream();
-                    byte[] jsonData = this.requestBody.getData();
-                    output.write(jsonData);
-                } catch (Exception e) {
-                    throw new IOException(e);
-                } finally {
-                    if (output != null) {
-                        output.close();
-                    }
+                if (this.connection instanceof DetachedHttpURLConnection) {
+                    // nothing to send yet, the body is only written if the real connection is ever opened
+                    this.requestBodyPending = true;
+                } else {
+                    writeRequestBody();
                 }
             }
-            buildCache(); // can't set anything after connecting, so might as well build the cache now
-            // will establish connection as a result of caching, so need to disconnect afterwards
-            this.connection.disconnect();
+            // can't set anything after connecting, so might as well build the cache now
+            // the response body is read to the end and closed while caching, which leaves the underlying socket
+            // free to be reused for the next request (no need to disconnect)
+            buildCache();
         } catch (VCRException | RecordingExpirationException e) {
             throw new RuntimeException(e);
         }
@@ -377,8 +703,14 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
 
     @Override
     public void disconnect() {
+        if (mode == Mode.Bypass) {
+            this.connection.disconnect();
+            return;
+        }
+        finishRecording();
         this.connection.disconnect();
         clearCache();
+        discardRequestBody();
     }
 
     @Override
@@ -648,6 +980,7 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
         }
         try {
             buildCache();
+            throwInjectedTimeout();
             return getIntegerElementFromCache((interaction) -> interaction.getResponse().getStatus().getCode(), 0);
         } catch (VCRException | RecordingExpirationException e) {
             throw new RuntimeException(e);
@@ -675,6 +1008,7 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
         }
         try {
             buildCache();
+            throwInjectedTimeout();
             return getStringElementFromCache((interaction) -> interaction.getResponse().getStatus().getMessage(), null);
         } catch (VCRException | RecordingExpirationException e) {
             throw new RuntimeException(e);
@@ -737,13 +1071,20 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
             buildCache();
 
             cachedInteractionExistsOtherwiseError();
+            if (this.fault != null && this.fault.getType() == FaultType.ReadTimeout) {
+                // nothing was received
+                return null;
+            }
 
             if (this.cachedInteraction.getResponse().getStatus().getCode() >= 400) {
                 // Client Error 4xx and Server Error 5xx
-                return createInputStream(this.cachedInteraction.getResponse().getBody());
+                if (this.awaitingResponseBody) {
+                    return getRecordingStream();
+                }
+                return getCachedResponseBody();
             }
             return null;
-        } catch (VCRException | RecordingExpirationException e) {
+        } catch (VCRException | RecordingExpirationException | IOException e) {
             throw new RuntimeException(e);
         }
     }
@@ -895,8 +1236,10 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
      */
     @Override
     public long getExpiration() {
-        // not in cassette, go to real connection
-        return this.connection.getExpiration();
+        if (mode == Mode.Bypass) {
+            return this.connection.getExpiration();
+        }
+        return getHeaderFieldDate("expires", 0);
     }
 
     /**
@@ -916,8 +1259,7 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
         }
         try {
             buildCache();
-            return getStringElementFromCache((interaction) -> interaction.getResponse().getHeaders().get(name).get(0),
-                    null);
+            return getStringElementFromCache((interaction) -> getHeaderValue(interaction, name), null);
         } catch (VCRException | RecordingExpirationException e) {
             throw new RuntimeException(e);
         }
@@ -1310,8 +1652,12 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
         }
         try {
             buildCache();
+            throwInjectedTimeout();
             cachedInteractionExistsOtherwiseError();
-            return createInputStream(this.cachedInteraction.getResponse().getBody());
+            if (this.awaitingResponseBody) {
+                return getRecordingStream();
+            }
+            return getCachedResponseBody();
         } catch (VCRException | RecordingExpirationException e) {
             throw new RuntimeException(e);
         }
@@ -1320,8 +1666,18 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
     @Override
     //CHECKSTYLE.OFF: ParameterName
     public long getHeaderFieldDate(String name, long Default) {
-        // not in cassette, go to real connection
-        return this.connection.getHeaderFieldDate(name, Default);
+        if (mode == Mode.Bypass) {
+            return this.connection.getHeaderFieldDate(name, Default);
+        }
+        String value = getHeaderField(name);
+        if (value == null) {
+            return Default;
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return Default;
+        }
     }
     //CHECKSTYLE.ON: ParameterName
 
@@ -1338,8 +1694,11 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
      */
     @Override
     public int getContentLength() {
-        // not in cassette, go to real connection
-        return this.connection.getContentLength();
+        if (mode == Mode.Bypass) {
+            return this.connection.getContentLength();
+        }
+        long length = getContentLengthLong();
+        return length > Integer.MAX_VALUE ? -1 : (int) length;
     }
 
     /**
@@ -1353,8 +1712,10 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
      */
     @Override
     public long getContentLengthLong() {
-        // not in cassette, go to real connection
-        return this.connection.getContentLengthLong();
+        if (mode == Mode.Bypass) {
+            return this.connection.getContentLengthLong();
+        }
+        return getHeaderFieldLong("content-length", -1);
     }
 
     /**
@@ -1367,8 +1728,10 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
      */
     @Override
     public long getDate() {
-        // not in cassette, go to real connection
-        return this.connection.getDate();
+        if (mode == Mode.Bypass) {
+            return this.connection.getDate();
+        }
+        return getHeaderFieldDate("date", 0);
     }
 
     /**
@@ -1381,8 +1744,10 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
      */
     @Override
     public long getLastModified() {
-        // not in cassette, go to real connection
-        return this.connection.getLastModified();
+        if (mode == Mode.Bypass) {
+            return this.connection.getLastModified();
+        }
+        return getHeaderFieldDate("last-modified", 0);
     }
 
     /**
@@ -1402,8 +1767,18 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
     @Override
     //CHECKSTYLE.OFF: ParameterName
     public int getHeaderFieldInt(String name, int Default) {
-        // not in cassette, go to real connection
-        return this.connection.getHeaderFieldInt(name, Default);
+        if (mode == Mode.Bypass) {
+            return this.connection.getHeaderFieldInt(name, Default);
+        }
+        String value = getHeaderField(name);
+        if (value == null) {
+            return Default;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return Default;
+        }
     }
     //CHECKSTYLE.ON: ParameterName
 
@@ -1425,8 +1800,18 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
     @Override
     //CHECKSTYLE.OFF: ParameterName
     public long getHeaderFieldLong(String name, long Default) {
-        // not in cassette, go to real connection
-        return this.connection.getHeaderFieldLong(name, Default);
+        if (mode == Mode.Bypass) {
+            return this.connection.getHeaderFieldLong(name, Default);
+        }
+        String value = getHeaderField(name);
+        if (value == null) {
+            return Default;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return Default;
+        }
     }
     //CHECKSTYLE.ON: ParameterName
 
@@ -1468,6 +1853,10 @@ public final class RecordableHttpURLConnection extends HttpURLConnection {
      */
     @Override
     public OutputStream getOutputStream() throws IOException {
+        if (mode == Mode.Bypass) {
+            // write straight to the real connection, so the body is sent however the response is read
+            return this.connection.getOutputStream();
+        }
         // use proxy requestBody to store inputted data
         if (!this.getDoOutput()) {
             throw new IOException("Cannot get output stream when doOutput is false");
@@ -1,22 +1,87 @@
 package com.easypost.easyvcr.clients.httpurlconnection;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Stores the body of a request until the connection is made.
+ * <p>
+ * The body is kept in memory in chunks that grow geometrically, so appending never copies what was already written.
+ * Once the body grows past the spill threshold, it is moved to a temporary file and further writes go straight
+ * to that file, until the body is discarded.
+ */
 public final class RecordableRequestBody extends OutputStream {
+    /**
+     * The default size above which the body is moved to a temporary file (8 MiB).
+     */
+    public static final long DEFAULT_SPILL_THRESHOLD = 8L * 1024 * 1024;
+
+    private static final int FIRST_CHUNK_SIZE = 256;
 
-    private byte[] data;
+    private static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * The size above which the body is moved to a temporary file.
+     */
+    private final long spillThreshold;
+    /**
+     * The in-memory chunks, each one (except the last) completely filled.
+     */
+    private final List<byte[]> chunks = new ArrayList<>();
+    /**
+     * The number of bytes used in the last chunk.
+     */
+    private int lastChunkUsed;
+    /**
+     * The total number of bytes written.
+     */
+    private long size;
+    /**
+     * The temporary file holding the body, or null if the body is still in memory.
+     */
+    private File spillFile;
+    /**
+     * The stream writing to the temporary file, or null if the body is still in memory.
+     */
+    private OutputStream spillOutput;
 
     /**
      * Constructor.
      */
     public RecordableRequestBody() {
-        this.data = new byte[0];
+        this(DEFAULT_SPILL_THRESHOLD);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param spillThreshold the size in bytes above which the body is moved to a temporary file
+     */
+    public RecordableRequestBody(long spillThreshold) {
+        if (spillThreshold < 0) {
+            throw new IllegalArgumentException("spillThreshold cannot be negative");
+        }
+        this.spillThreshold = spillThreshold;
     }
 
     @Override
     public void write(int b) throws IOException {
-        throw new UnsupportedOperationException();
+        if (spillOutput != null || size + 1 > spillThreshold) {
+            spill().write(b);
+        } else {
+            byte[] chunk = chunkWithSpace();
+            chunk[lastChunkUsed++] = (byte) b;
+        }
+        size++;
     }
 
     @Override
@@ -26,24 +91,160 @@ public final class RecordableRequestBody extends OutputStream {
 
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
-        byte[] newData = new byte[data.length + len];
-        System.arraycopy(data, 0, newData, 0, data.length);
-        System.arraycopy(b, off, newData, data.length, len);
-        data = newData;
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (spillOutput != null || size + len > spillThreshold) {
+            spill().write(b, off, len);
+            size += len;
+            return;
+        }
+        int remaining = len;
+        while (remaining > 0) {
+            byte[] chunk = chunkWithSpace();
+            int count = Math.min(remaining, chunk.length - lastChunkUsed);
+            System.arraycopy(b, off, chunk, lastChunkUsed, count);
+            lastChunkUsed += count;
+            off += count;
+            remaining -= count;
+        }
+        size += len;
+    }
+
+    /**
+     * Get the last chunk, adding a new (larger) chunk if the last one is full.
+     */
+    private byte[] chunkWithSpace() {
+        if (!chunks.isEmpty()) {
+            byte[] last = chunks.get(chunks.size() - 1);
+            if (lastChunkUsed < last.length) {
+                return last;
+            }
+        }
+        int chunkSize = chunks.isEmpty() ? FIRST_CHUNK_SIZE
+                : Math.min(chunks.get(chunks.size() - 1).length * 2, MAX_CHUNK_SIZE);
+        byte[] chunk = new byte[chunkSize];
+        chunks.add(chunk);
+        lastChunkUsed = 0;
+        return chunk;
+    }
+
+    /**
+     * Move the body to a temporary file if it isn't there yet.
+     *
+     * @return the stream writing to the temporary file
+     */
+    private OutputStream spill() throws IOException {
+        if (spillOutput == null) {
+            // deleted by discard(), once the connection is done with the body
+            File file = File.createTempFile("easyvcr-request-body", ".tmp");
+            OutputStream output = new FileOutputStream(file);
+            try {
+                writeChunksTo(output);
+            } catch (IOException e) {
+                output.close();
+                file.delete();
+                throw e;
+            }
+            chunks.clear();
+            lastChunkUsed = 0;
+            spillFile = file;
+            spillOutput = output;
+        }
+        return spillOutput;
+    }
+
+    private void writeChunksTo(OutputStream output) throws IOException {
+        for (int i = 0; i < chunks.size(); i++) {
+            byte[] chunk = chunks.get(i);
+            output.write(chunk, 0, i == chunks.size() - 1 ? lastChunkUsed : chunk.length);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (spillOutput != null) {
+            spillOutput.flush();
+        }
     }
 
     @Override
     public void close() throws IOException {
-        // do nothing
+        // do nothing, the body can still be written to until the connection is made
+    }
+
+    /**
+     * Write the body to another stream, without copying it into a single array first.
+     *
+     * @param output the stream to write the body to
+     * @throws IOException if the body could not be written
+     */
+    public void writeTo(OutputStream output) throws IOException {
+        if (spillFile == null) {
+            writeChunksTo(output);
+            return;
+        }
+        try (InputStream input = getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                output.write(buffer, 0, count);
+            }
+        }
+    }
+
+    /**
+     * Returns a new stream of the body.
+     *
+     * @return a stream of the body
+     * @throws IOException if the body could not be read
+     */
+    public InputStream getInputStream() throws IOException {
+        if (spillFile != null) {
+            spillOutput.flush();
+            return new FileInputStream(spillFile);
+        }
+        return new ChunkInputStream();
     }
 
     /**
-     * Returns the String data stored in this object.
+     * Returns a new channel of the body.
      *
-     * @return the String data stored in this object
+     * @return a channel of the body
+     * @throws IOException if the body could not be read
+     */
+    public ReadableByteChannel getChannel() throws IOException {
+        if (spillFile != null) {
+            spillOutput.flush();
+            return new FileInputStream(spillFile).getChannel();
+        }
+        return Channels.newChannel(new ChunkInputStream());
+    }
+
+    /**
+     * Returns the data stored in this object.
+     * This copies the whole body into a new array; prefer {@link #getInputStream()} or
+     * {@link #writeTo(OutputStream)} for large bodies.
+     *
+     * @return the data stored in this object
      */
     public byte[] getData() {
-        return data;
+        ByteArrayOutputStream output = new ByteArrayOutputStream((int) Math.min(size, Integer.MAX_VALUE - 8));
+        try {
+            writeTo(output);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Returns the number of bytes stored in this object.
+     *
+     * @return the number of bytes stored in this object
+     */
+    public long size() {
+        return size;
     }
 
     /**
@@ -52,6 +253,85 @@ public final class RecordableRequestBody extends OutputStream {
      * @return true if this object is storing any data, false otherwise
      */
     public boolean hasData() {
-        return data.length > 0;
+        return size > 0;
+    }
+
+    /**
+     * Check if the body has been moved to a temporary file.
+     *
+     * @return true if the body is stored in a temporary file, false if it is in memory
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Discard the body, deleting the temporary file if there is one.
+     *
+     * @throws IOException if the temporary file could not be closed
+     */
+    public void discard() throws IOException {
+        chunks.clear();
+        lastChunkUsed = 0;
+        size = 0;
+        if (spillOutput != null) {
+            try {
+                spillOutput.close();
+            } finally {
+                spillFile.delete();
+                spillOutput = null;
+                spillFile = null;
+            }
+        }
+    }
+
+    /**
+     * A stream over the in-memory chunks.
+     */
+    private final class ChunkInputStream extends InputStream {
+        private int chunkIndex;
+        private int position;
+
+        /**
+         * Get the number of readable bytes in a chunk.
+         */
+        private int chunkLength(int index) {
+            return index == chunks.size() - 1 ? lastChunkUsed : chunks.get(index).length;
+        }
+
+        /**
+         * Move to the next chunk with unread bytes.
+         *
+         * @return false if there is nothing left to read
+         */
+        private boolean advance() {
+            while (chunkIndex < chunks.size() && position >= chunkLength(chunkIndex)) {
+                chunkIndex++;
+                position = 0;
+            }
+            return chunkIndex < chunks.size();
+        }
+
+        @Override
+        public int read() {
+            if (!advance()) {
+                return -1;
+            }
+            return chunks.get(chunkIndex)[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!advance()) {
+                return -1;
+            }
+            int count = Math.min(len, chunkLength(chunkIndex) - position);
+            System.arraycopy(chunks.get(chunkIndex), position, b, off, count);
+            position += count;
+            return count;
+        }
     }
 }
@@ -259,6 +259,7 @@ public final class RecordableURL {
 
     /**
      * Open an HTTP connection to the URL.
+     * In Bypass mode, the connection passes every call straight through to a real connection.
      *
      * @return a RecordableHttpURLConnection instance.
      * @throws IOException if an I/O error occurs.
@@ -269,6 +270,7 @@ public final class RecordableURL {
 
     /**
      * Open an HTTP connection to the URL.
+     * In Bypass mode, the connection passes every call straight through to a real connection.
      *
      * @param proxy the proxy to use.
      * @return a RecordableHttpURLConnection instance.
@@ -280,6 +282,7 @@ public final class RecordableURL {
 
     /**
      * Open an HTTPS connection to the URL.
+     * In Bypass mode, the connection passes every call straight through to a real connection.
      *
      * @return a RecordableHttpsURLConnection instance.
      * @throws IOException if an I/O error occurs.
@@ -290,6 +293,7 @@ public final class RecordableURL {
 
     /**
      * Open an HTTPS connection to the URL.
+     * In Bypass mode, the connection passes every call straight through to a real connection.
      *
      * @param proxy the proxy to use.
      * @return a RecordableHttpsURLConnection instance.
@@ -0,0 +1,271 @@
+package com.easypost.easyvcr.clients.httpurlconnection;
+
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.RecordingExpirationException;
+import com.easypost.easyvcr.VCR;
+import com.easypost.easyvcr.VCRException;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.Proxy;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.net.URLStreamHandlerFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A URL stream handler factory that routes http and https URL connections through recordable connections
+ * using a VCR, so connections opened with {@code new URL(...).openConnection()} (e.g. deep in third-party
+ * libraries) are recorded and replayed too.
+ * <p>
+ * Call {@link #install()} to route all URLs in the JVM through this factory, or pass
+ * {@link #createURLStreamHandler(String)} handlers to URLs (or to a factory chain) directly.
+ * Connections are only intercepted while the VCR has a cassette inserted and isn't in Bypass mode, and only for
+ * the hosts the allow and deny lists let through; all other connections are the JDK's own connections.
+ * <p>
+ * Host rules are either exact host names or {@code *.domain} patterns (matching all subdomains of the domain).
+ * Denied hosts are never intercepted. If any hosts are allowed, only those are intercepted.
+ * The decision for each host is made once, after which checking a host is a single hash lookup.
+ */
+public final class RecordableURLStreamHandlerFactory implements URLStreamHandlerFactory {
+    /**
+     * The maximum number of host decisions kept, so hosts made up on the fly can't fill memory.
+     */
+    private static final int MAX_CACHED_HOSTS = 4096;
+    /**
+     * http URL with the JDK's own handler (created before any factory is installed), used to create URLs that
+     * open real connections.
+     */
+    private static final URL DEFAULT_HTTP_CONTEXT = defaultContext("http");
+    /**
+     * https URL with the JDK's own handler (created before any factory is installed), used to create URLs that
+     * open real connections.
+     */
+    private static final URL DEFAULT_HTTPS_CONTEXT = defaultContext("https");
+    /**
+     * Guards installing a factory in the JVM, which can only happen once.
+     */
+    private static final Object INSTALL_LOCK = new Object();
+    /**
+     * Whether a factory has been installed in the JVM.
+     */
+    private static boolean installedInJvm;
+    /**
+     * The factory URLs in the JVM are routed through, null to route them to the JDK's own connections.
+     */
+    private static volatile RecordableURLStreamHandlerFactory installed;
+
+    /**
+     * The VCR used for intercepted connections.
+     */
+    private final VCR vcr;
+    /**
+     * Allowed host rules (lower case); empty to allow all hosts.
+     */
+    private volatile Set<String> allowedHosts = Collections.emptySet();
+    /**
+     * Denied host rules (lower case).
+     */
+    private volatile Set<String> deniedHosts = Collections.emptySet();
+    /**
+     * Whether to intercept each host seen so far.
+     */
+    private final ConcurrentMap<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for RecordableURLStreamHandlerFactory.
+     *
+     * @param vcr The VCR to use for intercepted connections.
+     */
+    public RecordableURLStreamHandlerFactory(VCR vcr) {
+        if (vcr == null) {
+            throw new IllegalArgumentException("VCR cannot be null");
+        }
+        this.vcr = vcr;
+    }
+
+    /**
+     * Only intercept connections to specific hosts (and any other allowed hosts).
+     *
+     * @param hosts Host names or {@code *.domain} patterns.
+     * @return This RecordableURLStreamHandlerFactory.
+     */
+    public RecordableURLStreamHandlerFactory allowHosts(String... hosts) {
+        this.allowedHosts = withRules(this.allowedHosts, hosts);
+        this.decisions.clear();
+        return this;
+    }
+
+    /**
+     * Never intercept connections to specific hosts.
+     *
+     * @param hosts Host names or {@code *.domain} patterns.
+     * @return This RecordableURLStreamHandlerFactory.
+     */
+    public RecordableURLStreamHandlerFactory denyHosts(String... hosts) {
+        this.deniedHosts = withRules(this.deniedHosts, hosts);
+        this.decisions.clear();
+        return this;
+    }
+
+    /**
+     * Route all http and https URLs in the JVM through this factory.
+     * The JDK only allows a single factory to be set, so the first call sets a factory that routes through
+     * whichever RecordableURLStreamHandlerFactory was installed last. Only URLs created afterwards are routed.
+     *
+     * @throws IllegalStateException If another URL stream handler factory has already been set.
+     */
+    public void install() {
+        synchronized (INSTALL_LOCK) {
+            if (!installedInJvm) {
+                try {
+                    URL.setURLStreamHandlerFactory(protocol -> isHttp(protocol) ? new Handler(null, protocol) : null);
+                } catch (Error e) {
+                    throw new IllegalStateException("Another URL stream handler factory has already been set", e);
+                }
+                installedInJvm = true;
+            }
+            installed = this;
+        }
+    }
+
+    /**
+     * Stop routing URLs in the JVM through any RecordableURLStreamHandlerFactory.
+     * URLs then open the JDK's own connections again.
+     */
+    public static void uninstall() {
+        installed = null;
+    }
+
+    @Override
+    public URLStreamHandler createURLStreamHandler(String protocol) {
+        return isHttp(protocol) ? new Handler(this, protocol) : null;
+    }
+
+    /**
+     * Check whether connections to a host are intercepted.
+     *
+     * @param host The host name.
+     * @return True if connections to the host are intercepted (while the VCR is active).
+     */
+    public boolean intercepts(String host) {
+        Boolean decision = decisions.get(host);
+        if (decision == null) {
+            decision = decide(host.toLowerCase(Locale.ROOT));
+            if (decisions.size() < MAX_CACHED_HOSTS) {
+                decisions.put(host, decision);
+            }
+        }
+        return decision;
+    }
+
+    private boolean decide(String host) {
+        if (matches(deniedHosts, host)) {
+            return false;
+        }
+        Set<String> allowed = allowedHosts;
+        return allowed.isEmpty() || matches(allowed, host);
+    }
+
+    private static boolean matches(Set<String> rules, String host) {
+        if (rules.isEmpty()) {
+            return false;
+        }
+        if (rules.contains(host)) {
+            return true;
+        }
+        // "*.example.com" matches any host ending with ".example.com"
+        for (int dot = host.indexOf('.'); dot >= 0; dot = host.indexOf('.', dot + 1)) {
+            if (rules.contains("*" + host.substring(dot))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> withRules(Set<String> rules, String... hosts) {
+        Set<String> updated = new HashSet<>(rules);
+        for (String host : Arrays.asList(hosts)) {
+            updated.add(host.toLowerCase(Locale.ROOT));
+        }
+        return Collections.unmodifiableSet(updated);
+    }
+
+    private static boolean isHttp(String protocol) {
+        return "http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol);
+    }
+
+    private static URL defaultContext(String protocol) {
+        try {
+            return new URL(protocol, "localhost", "/");
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get a copy of a URL that opens the JDK's own connections.
+     *
+     * @param url The URL to copy.
+     * @return The copy of the URL.
+     * @throws MalformedURLException If the URL could not be copied.
+     */
+    private static URL toDefaultUrl(URL url) throws MalformedURLException {
+        // a URL created with a context of the same protocol uses the context's handler
+        URL context = "https".equalsIgnoreCase(url.getProtocol()) ? DEFAULT_HTTPS_CONTEXT : DEFAULT_HTTP_CONTEXT;
+        return new URL(context, url.toExternalForm());
+    }
+
+    /**
+     * Opens recordable connections for intercepted URLs, and the JDK's own connections for all others.
+     */
+    private static final class Handler extends URLStreamHandler {
+        /**
+         * The factory that created this handler, null to use the factory installed in the JVM.
+         */
+        private final RecordableURLStreamHandlerFactory owner;
+        private final boolean secure;
+
+        Handler(RecordableURLStreamHandlerFactory owner, String protocol) {
+            this.owner = owner;
+            this.secure = "https".equalsIgnoreCase(protocol);
+        }
+
+        @Override
+        protected URLConnection openConnection(URL url) throws IOException {
+            return openConnection(url, null);
+        }
+
+        @Override
+        protected URLConnection openConnection(URL url, Proxy proxy) throws IOException {
+            RecordableURLStreamHandlerFactory factory = owner != null ? owner : installed;
+            URL defaultUrl = toDefaultUrl(url);
+            if (factory == null || !factory.intercepts(url.getHost()) || factory.vcr.getCassetteName() == null
+                    || factory.vcr.getMode() == Mode.Bypass) {
+                return proxy == null ? defaultUrl.openConnection() : defaultUrl.openConnection(proxy);
+            }
+            try {
+                RecordableURL recordableUrl = factory.vcr.getHttpUrlConnection(defaultUrl);
+                if (secure) {
+                    return proxy == null ? recordableUrl.openConnectionSecure()
+                            : recordableUrl.openConnectionSecure(proxy);
+                }
+                return proxy == null ? recordableUrl.openConnection() : recordableUrl.openConnection(proxy);
+            } catch (VCRException | RecordingExpirationException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        protected int getDefaultPort() {
+            return secure ? 443 : 80;
+        }
+    }
+}
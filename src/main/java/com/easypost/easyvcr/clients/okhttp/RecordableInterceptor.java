@@ -0,0 +1,175 @@
+package com.easypost.easyvcr.clients.okhttp;
+
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.RecordingExpirationException;
+import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.interactionconverters.OkHttpInteractionConverter;
+import com.easypost.easyvcr.internal.ConsoleFallbackLogger;
+import com.easypost.easyvcr.internal.ExpirationActionExtensions;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Request;
+import com.easypost.easyvcr.requestelements.Response;
+import okhttp3.Interceptor;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static com.easypost.easyvcr.internal.Utilities.simulateDelay;
+
+/**
+ * An OkHttp interceptor that records requests to and replays responses from a cassette.
+ * <p>
+ * Add it as an application interceptor ({@code OkHttpClient.Builder.addInterceptor}), so replayed requests
+ * never reach the network. Replayed response bodies are read straight from the cassette.
+ * Recorded response bodies are copied as the caller reads them; the interaction is recorded once the caller
+ * closes the response body (whatever the caller didn't read is read then).
+ * Requires the optional com.squareup.okhttp3:okhttp dependency.
+ */
+public final class RecordableInterceptor implements Interceptor {
+    /**
+     * The Cassette that this interceptor is recording to and reading from.
+     */
+    private final Cassette cassette;
+    /**
+     * The VCR mode that this interceptor is using.
+     */
+    private final Mode mode;
+    /**
+     * The AdvancedSettings that this interceptor is using.
+     */
+    private final AdvancedSettings advancedSettings;
+    /**
+     * The OkHttpInteractionConverter that converts requests and responses to HttpInteractions.
+     */
+    private final OkHttpInteractionConverter converter;
+    /**
+     * Logger to use for logging (uses custom logger internally if set, otherwise logs to console).
+     */
+    private final ConsoleFallbackLogger logger;
+
+    /**
+     * Constructor for the RecordableInterceptor class.
+     *
+     * @param cassette         The cassette to use.
+     * @param mode             The mode to use.
+     * @param advancedSettings The advanced settings to use.
+     * @throws RecordingExpirationException If the expiration settings are not compatible with the mode.
+     */
+    public RecordableInterceptor(Cassette cassette, Mode mode, AdvancedSettings advancedSettings)
+            throws RecordingExpirationException {
+        if (cassette == null) {
+            throw new IllegalArgumentException("Cassette cannot be null");
+        }
+        this.cassette = cassette;
+        this.mode = mode;
+        this.advancedSettings = advancedSettings != null ? advancedSettings : new AdvancedSettings();
+        this.converter = new OkHttpInteractionConverter();
+        this.logger = new ConsoleFallbackLogger(this.advancedSettings.logger, "EasyVCR");
+        ExpirationActionExtensions.checkCompatibleSettings(this.advancedSettings.whenExpired, mode);
+    }
+
+    /**
+     * Constructor for the RecordableInterceptor class.
+     *
+     * @param cassette The cassette to use.
+     * @param mode     The mode to use.
+     * @throws RecordingExpirationException If the expiration settings are not compatible with the mode.
+     */
+    public RecordableInterceptor(Cassette cassette, Mode mode) throws RecordingExpirationException {
+        this(cassette, mode, new AdvancedSettings());
+    }
+
+    @Override
+    public okhttp3.Response intercept(Interceptor.Chain chain) throws IOException {
+        okhttp3.Request request = chain.request();
+        if (mode == Mode.Bypass) {
+            return chain.proceed(request);
+        }
+
+        String body = "";
+        RequestBody requestBody = request.body();
+        // duplex bodies are written while the response is read, so they can't be read up front
+        if (requestBody != null && !requestBody.isDuplex()) {
+            Buffer buffer = new Buffer();
+            requestBody.writeTo(buffer);
+            byte[] bytes = buffer.readByteArray();
+            body = new String(bytes, StandardCharsets.UTF_8);
+            if (requestBody.isOneShot()) {
+                // the body was used up reading it, send the bytes that were read instead
+                request = request.newBuilder()
+                        .method(request.method(), RequestBody.create(bytes, requestBody.contentType()))
+                        .build();
+            }
+        }
+        Request recordedRequest = converter.createRecordedRequest(request, body, advancedSettings.censors);
+
+        if (mode != Mode.Record) {
+            HttpInteraction matchingInteraction;
+            try {
+                matchingInteraction =
+                        converter.loadExistingInteraction(cassette, recordedRequest, advancedSettings, mode, logger);
+            } catch (VCRException | RecordingExpirationException e) {
+                throw new IOException(e);
+            }
+            if (matchingInteraction != null) {
+                try {
+                    simulateDelay(matchingInteraction, advancedSettings);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while simulating delay");
+                }
+                Response response = matchingInteraction.getResponse();
+                response.addReplayHeaders();
+                return converter.toOkHttpResponse(response, request);
+            }
+            if (mode == Mode.Replay) {
+                throw new IOException(new VCRException("No matching interaction found."));
+            }
+        }
+
+        // time how long it takes to get the initial response, like the HttpURLConnection clients do
+        long start = System.nanoTime();
+        okhttp3.Response response = chain.proceed(request);
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        ResponseBody responseBody = response.body();
+        if (responseBody == null) {
+            recordInteraction(recordedRequest, response, new byte[0], duration);
+            return response;
+        }
+        return response.newBuilder()
+                .body(new TeeResponseBody(responseBody,
+                        captured -> recordInteraction(recordedRequest, response, captured, duration)))
+                .build();
+    }
+
+    /**
+     * Record an interaction to the cassette.
+     *
+     * @param recordedRequest The EasyVCR request.
+     * @param response        The OkHttp response.
+     * @param body            The response body.
+     * @param duration        The time it took to receive the response head, in milliseconds.
+     */
+    private void recordInteraction(Request recordedRequest, okhttp3.Response response, byte[] body,
+                                   long duration) {
+        // OkHttp closes response bodies quietly, so failures would go unnoticed if they were thrown
+        try {
+            Response recordedResponse = converter.createRecordedResponse(response,
+                    new String(body, StandardCharsets.UTF_8), advancedSettings.censors);
+            HttpInteraction interaction = converter.createInteraction(recordedRequest, recordedResponse, duration);
+            synchronized (cassette) {
+                cassette.updateInteraction(interaction, advancedSettings.matchRules, false);
+            }
+        } catch (Exception e) {
+            this.logger.warning("Could not record interaction: " + e.getMessage());
+        }
+    }
+}
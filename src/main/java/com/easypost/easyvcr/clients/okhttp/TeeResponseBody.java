@@ -0,0 +1,105 @@
+package com.easypost.easyvcr.clients.okhttp;
+
+import com.easypost.easyvcr.internal.TeeInputStream;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+import java.io.IOException;
+
+/**
+ * A response body that passes the bytes of another response body through to the reader while keeping a copy of
+ * them. When the body is closed, whatever the reader didn't read yet is drained into the copy,
+ * and the complete copy is handed to a listener exactly once.
+ */
+final class TeeResponseBody extends ResponseBody {
+    /**
+     * The response body to read from.
+     */
+    private final ResponseBody delegate;
+    /**
+     * The listener to notify once the body is closed.
+     */
+    private final TeeInputStream.CloseListener listener;
+    /**
+     * The source the reader reads from, created on first use.
+     */
+    private BufferedSource source;
+
+    /**
+     * Constructor for TeeResponseBody.
+     *
+     * @param delegate The response body to read from.
+     * @param listener The listener to notify with the captured bytes once the body is closed.
+     */
+    TeeResponseBody(ResponseBody delegate, TeeInputStream.CloseListener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public BufferedSource source() {
+        if (source == null) {
+            source = Okio.buffer(new TeeSource(delegate.source()));
+        }
+        return source;
+    }
+
+    /**
+     * A source that copies every segment it reads, without copying the segments it passes through.
+     */
+    private final class TeeSource extends ForwardingSource {
+        /**
+         * The copy of every byte read from the underlying source.
+         */
+        private final Buffer captured = new Buffer();
+        /**
+         * Whether the source has been closed.
+         */
+        private boolean closed;
+
+        TeeSource(Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long count = super.read(sink, byteCount);
+            if (count > 0) {
+                sink.copyTo(captured, sink.size() - count, count);
+            }
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                // read whatever the reader didn't, so the whole body is recorded
+                while (super.read(captured, 8192) != -1) {
+                    // keep draining
+                }
+            } finally {
+                super.close();
+            }
+            listener.onClose(captured.readByteArray());
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.easypost.easyvcr.daemon;
+
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.internal.ConsoleFallbackLogger;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Request;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A long-lived local process that reads a folder of cassettes once and answers replay lookups from many
+ * processes (e.g. forked test JVMs), so each of them doesn't have to read and hold the cassettes itself.
+ * <p>
+ * Clients ({@link CassetteDaemonClient}) connect through an endpoint path: a Unix domain socket on Java 16+,
+ * or, on older Java versions (or with {@link #loopbackTcp()}), a file holding the port of a loopback TCP socket.
+ * Each lookup is a single round trip in a compact binary protocol.
+ * <p>
+ * Lookups are matched with the match rules of the daemon's advanced settings, like requests to a
+ * {@link com.easypost.easyvcr.server.ReplayServer}. Requests are expected to be censored by the client already.
+ * <p>
+ * A cassette file that changed (or appeared) since the daemon read it is read again on its next lookup, so
+ * interactions recorded while the daemon is running are found too.
+ */
+public final class CassetteDaemon {
+    /**
+     * The number of pending connections to queue before refusing new ones.
+     */
+    private static final int BACKLOG = 1024;
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * The folder the cassettes are read from.
+     */
+    private final File cassetteFolder;
+    /**
+     * The AdvancedSettings the daemon is using.
+     */
+    private final AdvancedSettings advancedSettings;
+    /**
+     * Logger to use for logging (uses custom logger internally if set, otherwise logs to console).
+     */
+    private final ConsoleFallbackLogger logger;
+    /**
+     * Whether to listen on loopback TCP even if Unix domain sockets are supported.
+     */
+    private boolean forceTcp;
+    /**
+     * The recorded interactions of each cassette, by cassette name.
+     */
+    private final Map<String, CassetteSnapshot> index = new ConcurrentHashMap<>();
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+
+    private ServerSocketChannel serverChannel;
+    private Path endpoint;
+    private ExecutorService handlers;
+    private volatile boolean running;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor for CassetteDaemon.
+     *
+     * @param cassetteFolder   The folder to read the cassettes from.
+     * @param advancedSettings The advanced settings to use.
+     */
+    public CassetteDaemon(String cassetteFolder, AdvancedSettings advancedSettings) {
+        if (cassetteFolder == null) {
+            throw new IllegalArgumentException("Cassette folder cannot be null");
+        }
+        this.cassetteFolder = new File(cassetteFolder);
+        this.advancedSettings = advancedSettings != null ? advancedSettings : new AdvancedSettings();
+        this.logger = new ConsoleFallbackLogger(this.advancedSettings.logger, "EasyVCR");
+    }
+
+    /**
+     * Constructor for CassetteDaemon.
+     *
+     * @param cassetteFolder The folder to read the cassettes from.
+     */
+    public CassetteDaemon(String cassetteFolder) {
+        this(cassetteFolder, new AdvancedSettings());
+    }
+
+    /**
+     * Listen on loopback TCP even if Unix domain sockets are supported.
+     * The port is written to the endpoint file, where clients read it from.
+     *
+     * @return This CassetteDaemon.
+     */
+    public CassetteDaemon loopbackTcp() {
+        this.forceTcp = true;
+        return this;
+    }
+
+    /**
+     * Read the cassettes and start answering lookups.
+     *
+     * @param endpoint The path clients connect through: the Unix domain socket, or the file holding the TCP port.
+     * @return This CassetteDaemon.
+     * @throws VCRException If a cassette could not be read.
+     * @throws IOException  If the daemon could not be started.
+     */
+    public synchronized CassetteDaemon start(Path endpoint) throws VCRException, IOException {
+        if (running) {
+            throw new IllegalStateException("Daemon is already running");
+        }
+        index.clear();
+        index.putAll(readCassettes());
+
+        if (!forceTcp && DaemonSockets.supportsUnixDomainSockets()) {
+            serverChannel = DaemonSockets.bind(endpoint, BACKLOG);
+        } else {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), BACKLOG);
+            int port = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+            // written next to the endpoint and moved into place, so clients never read a partial file
+            Path temporary = endpoint.resolveSibling(endpoint.getFileName() + ".tmp");
+            Files.write(temporary, (DaemonProtocol.TCP_ENDPOINT_PREFIX + port).getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, endpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        this.endpoint = endpoint;
+        handlers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "easyvcr-daemon");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        handlers.execute(this::acceptConnections);
+        return this;
+    }
+
+    /**
+     * Stop answering lookups, closing all connections and removing the endpoint.
+     *
+     * @throws IOException If the endpoint could not be removed.
+     */
+    public synchronized void stop() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        serverChannel.close();
+        for (SocketChannel connection : connections) {
+            connection.close();
+        }
+        handlers.shutdownNow();
+        Files.deleteIfExists(endpoint);
+    }
+
+    /**
+     * Get the names of the cassettes the daemon answers lookups for.
+     *
+     * @return The cassette names.
+     */
+    public Set<String> getCassetteNames() {
+        return index.keySet();
+    }
+
+    /**
+     * Get the number of lookups answered with a recorded interaction.
+     *
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups without a matching interaction (including lookups of unknown cassettes).
+     *
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Read every cassette in the cassette folder, in parallel.
+     *
+     * @return The interactions of each cassette, by cassette name.
+     * @throws VCRException If a cassette could not be read.
+     */
+    private Map<String, CassetteSnapshot> readCassettes() throws VCRException {
+        File[] files = cassetteFolder.listFiles((folder, name) -> name.endsWith(".json"));
+        if (files == null) {
+            throw new VCRException("Could not read cassette folder " + cassetteFolder);
+        }
+        Map<String, CassetteSnapshot> cassettes = new ConcurrentHashMap<>();
+        try {
+            Arrays.stream(files).parallel().forEach(file -> {
+                String name = file.getName().substring(0, file.getName().length() - ".json".length());
+                try {
+                    cassettes.put(name, readCassette(name, file));
+                } catch (VCRException e) {
+                    throw new IllegalStateException(name + ": " + e.getMessage(), e);
+                }
+            });
+        } catch (RuntimeException e) {
+            throw new VCRException("Could not read cassette " + e.getMessage());
+        }
+        return cassettes;
+    }
+
+    /**
+     * Read a cassette.
+     *
+     * @param name The name of the cassette.
+     * @param file The cassette file.
+     * @return The interactions of the cassette, and the version of the file they were read from.
+     * @throws VCRException If the cassette could not be read.
+     */
+    private CassetteSnapshot readCassette(String name, File file) throws VCRException {
+        // taken before reading, so a change while reading is picked up by the next lookup
+        long lastModified = file.lastModified();
+        long length = file.length();
+        List<HttpInteraction> interactions = new Cassette(cassetteFolder.getPath(), name).read();
+        for (HttpInteraction interaction : interactions) {
+            // parsed now, so handler threads never race to parse it
+            interaction.getRequest().getNormalizedUri();
+        }
+        return new CassetteSnapshot(interactions.toArray(new HttpInteraction[0]), lastModified, length);
+    }
+
+    /**
+     * Get the interactions of a cassette, reading the cassette file again if it changed since it was last read.
+     *
+     * @param name The name of the cassette.
+     * @return The interactions of the cassette, or null if there is no such cassette.
+     */
+    private HttpInteraction[] getInteractions(String name) {
+        if (name == null || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0) {
+            return null;
+        }
+        File file = new File(cassetteFolder, name + ".json");
+        long lastModified = file.lastModified();
+        long length = file.length();
+        CassetteSnapshot snapshot = index.get(name);
+        if (snapshot != null && snapshot.isCurrent(lastModified, length)) {
+            return snapshot.interactions;
+        }
+        if (lastModified == 0) {
+            // removed since it was read
+            index.remove(name);
+            return null;
+        }
+        synchronized (index) {
+            snapshot = index.get(name);
+            if (snapshot == null || !snapshot.isCurrent(file.lastModified(), file.length())) {
+                try {
+                    snapshot = readCassette(name, file);
+                    index.put(name, snapshot);
+                } catch (VCRException e) {
+                    // e.g. caught halfway through being written, tried again on the next lookup
+                    logger.warning("Could not read cassette " + name + " again: " + e.getMessage());
+                }
+            }
+        }
+        return snapshot == null ? null : snapshot.interactions;
+    }
+
+    private void acceptConnections() {
+        while (running) {
+            try {
+                SocketChannel connection = serverChannel.accept();
+                if (connection.getLocalAddress() instanceof InetSocketAddress) {
+                    connection.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                connections.add(connection);
+                handlers.execute(() -> serve(connection));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (running) {
+                    logger.error("Cassette daemon error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answer the lookups of a connection until the client closes it.
+     *
+     * @param connection The connection.
+     */
+    private void serve(SocketChannel connection) {
+        try (SocketChannel channel = connection) {
+            DataInputStream input =
+                    new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            DataOutputStream output =
+                    new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            DaemonProtocol.readGreeting(input);
+            DaemonProtocol.writeGreeting(output);
+            byte[] bodyBuffer = new byte[BUFFER_SIZE];
+            while (running) {
+                int operation = input.read();
+                if (operation < 0) {
+                    return;
+                }
+                if (operation != DaemonProtocol.OP_FIND) {
+                    output.writeByte(DaemonProtocol.ERROR);
+                    DaemonProtocol.writeString(output, "Unknown operation " + operation);
+                    output.flush();
+                    return;
+                }
+                String cassetteName = DaemonProtocol.readString(input);
+                Request request = DaemonProtocol.readRequest(input);
+                answer(output, cassetteName, request, bodyBuffer);
+                output.flush();
+            }
+        } catch (EOFException | ClosedChannelException ignored) {
+            // the client went away
+        } catch (IOException | RuntimeException e) {
+            if (running) {
+                logger.warning("Cassette daemon connection failed: " + e.getMessage());
+            }
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    private void answer(DataOutputStream output, String cassetteName, Request request, byte[] bodyBuffer)
+            throws IOException {
+        HttpInteraction[] interactions = getInteractions(cassetteName);
+        if (interactions == null) {
+            misses.increment();
+            output.writeByte(DaemonProtocol.UNKNOWN_CASSETTE);
+            return;
+        }
+        for (HttpInteraction interaction : interactions) {
+            if (advancedSettings.matchRules.requestsMatch(request, interaction.getRequest())) {
+                hits.increment();
+                output.writeByte(DaemonProtocol.FOUND);
+                DaemonProtocol.writeInteraction(output, interaction, bodyBuffer);
+                return;
+            }
+        }
+        misses.increment();
+        output.writeByte(DaemonProtocol.NOT_FOUND);
+    }
+
+    /**
+     * Start a cassette daemon from the command line and run it until the process is stopped.
+     * <p>
+     * Usage: {@code CassetteDaemon <cassette folder> <endpoint path> [tcp]}
+     *
+     * @param args The command line arguments.
+     * @throws Exception If the daemon could not be started.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && !"tcp".equals(args[2]))) {
+            System.err.println("Usage: CassetteDaemon <cassette folder> <endpoint path> [tcp]");
+            System.exit(2);
+            return;
+        }
+        CassetteDaemon daemon = new CassetteDaemon(args[0]);
+        if (args.length == 3) {
+            daemon.loopbackTcp();
+        }
+        daemon.start(new File(args[1]).toPath());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                daemon.stop();
+            } catch (IOException ignored) {
+                // exiting anyway
+            }
+            System.out.printf("%d hits, %d misses%n", daemon.getHitCount(), daemon.getMissCount());
+        }));
+        System.out.println("Serving " + daemon.getCassetteNames().size() + " cassettes on " + args[1]);
+    }
+
+    /**
+     * The interactions of a cassette, and the version of the cassette file they were read from.
+     */
+    private static final class CassetteSnapshot {
+        private final HttpInteraction[] interactions;
+        private final long lastModified;
+        private final long length;
+
+        CassetteSnapshot(HttpInteraction[] interactions, long lastModified, long length) {
+            this.interactions = interactions;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        boolean isCurrent(long fileLastModified, long fileLength) {
+            return lastModified == fileLastModified && length == fileLength;
+        }
+    }
+}
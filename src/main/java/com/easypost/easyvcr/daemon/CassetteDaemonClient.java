@@ -0,0 +1,186 @@
+package com.easypost.easyvcr.daemon;
+
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.MatchRules;
+import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Request;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Looks up recorded interactions in a {@link CassetteDaemon} instead of reading cassettes in this process.
+ * <p>
+ * Use {@link Cassette#replayFrom(CassetteDaemonClient)} to look up the interactions of a cassette through the
+ * daemon; every client then replays from the daemon's copy of the cassette, which the daemon reads again when the
+ * cassette file changes. Cassettes the daemon can't find are read from disk as usual.
+ * <p>
+ * The daemon searches with its own match rules. An interaction it finds is checked with the caller's match rules,
+ * and if they reject it, the cassette file is searched with the caller's match rules instead. A miss is trusted,
+ * so the caller's match rules should be at least as strict as the daemon's.
+ * <p>
+ * Connections are opened as needed and kept open for later lookups, so concurrent lookups each use their own
+ * connection and a lookup costs a single round trip.
+ */
+public final class CassetteDaemonClient implements Closeable {
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * The endpoint path of the daemon.
+     */
+    private final Path endpoint;
+    /**
+     * Open connections not in use.
+     */
+    private final Queue<Connection> idleConnections = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    /**
+     * Constructor for CassetteDaemonClient.
+     *
+     * @param endpoint The endpoint path the daemon was started with.
+     */
+    public CassetteDaemonClient(Path endpoint) {
+        if (endpoint == null) {
+            throw new IllegalArgumentException("Endpoint cannot be null");
+        }
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Search for a recorded interaction that matches a request.
+     *
+     * @param cassette   The cassette to search.
+     * @param request    The request to search for.
+     * @param matchRules The match rules to check the daemon's match with, and to search the cassette file with.
+     * @return The matching interaction, or null if no matching interaction was found.
+     * @throws VCRException If the cassette is locked, the daemon could not be reached, or the cassette could not be
+     *                      read.
+     */
+    public HttpInteraction findMatchingInteraction(Cassette cassette, Request request, MatchRules matchRules)
+            throws VCRException {
+        if (closed) {
+            throw new VCRException("Cassette daemon client is closed");
+        }
+        if (cassette.isLocked()) {
+            throw new VCRException("Cassette is locked.");
+        }
+        byte reply;
+        HttpInteraction interaction = null;
+        Connection connection = null;
+        try {
+            connection = idleConnections.poll();
+            if (connection == null) {
+                connection = connect();
+            }
+            connection.output.writeByte(DaemonProtocol.OP_FIND);
+            DaemonProtocol.writeString(connection.output, cassette.name);
+            DaemonProtocol.writeRequest(connection.output, request);
+            connection.output.flush();
+
+            reply = connection.input.readByte();
+            if (reply == DaemonProtocol.FOUND) {
+                interaction = DaemonProtocol.readInteraction(connection.input);
+            } else if (reply == DaemonProtocol.ERROR) {
+                throw new IOException(DaemonProtocol.readString(connection.input));
+            }
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.close();
+            }
+            throw new VCRException("Could not look up interaction in cassette daemon at " + endpoint + ": "
+                    + e.getMessage());
+        }
+        release(connection);
+
+        boolean rejected = interaction != null && !matchRules.requestsMatch(request, interaction.getRequest());
+        if (reply == DaemonProtocol.UNKNOWN_CASSETTE || rejected) {
+            for (HttpInteraction recordedInteraction : cassette.read()) {
+                if (matchRules.requestsMatch(request, recordedInteraction.getRequest())) {
+                    return recordedInteraction;
+                }
+            }
+            return null;
+        }
+        return interaction;
+    }
+
+    /**
+     * Close all connections to the daemon.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private void release(Connection connection) {
+        idleConnections.add(connection);
+        // closed while the lookup was running
+        if (closed) {
+            close();
+        }
+    }
+
+    private Connection connect() throws IOException {
+        SocketChannel channel;
+        if (Files.isRegularFile(endpoint)) {
+            // the daemon listens on the loopback TCP fallback
+            int port = DaemonProtocol.readTcpPort(endpoint);
+            channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } else {
+            channel = DaemonSockets.connect(endpoint);
+        }
+        Connection connection = new Connection(channel);
+        try {
+            DaemonProtocol.writeGreeting(connection.output);
+            DaemonProtocol.readGreeting(connection.input);
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * A connection to the daemon, used for one lookup at a time.
+     */
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final DataInputStream input;
+        private final DataOutputStream output;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            this.output =
+                    new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing left to do with it
+            }
+        }
+    }
+}
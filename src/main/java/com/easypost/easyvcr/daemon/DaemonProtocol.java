@@ -0,0 +1,339 @@
+package com.easypost.easyvcr.daemon;
+
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.LatencyDistribution;
+import com.easypost.easyvcr.requestelements.Request;
+import com.easypost.easyvcr.requestelements.Response;
+import com.easypost.easyvcr.requestelements.Status;
+import com.easypost.easyvcr.requestelements.Timings;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The binary protocol spoken between a cassette daemon and its clients.
+ * <p>
+ * A connection starts with both sides sending {@link #MAGIC} and {@link #VERSION}. After that, the client sends
+ * requests and the daemon answers each of them, one at a time. Lengths and counts are unsigned variable-length
+ * integers (7 bits per byte, least significant group first); nullable strings and byte arrays are sent as their
+ * length plus one (0 for null), followed by their UTF-8 encoded bytes.
+ * <ul>
+ * <li>Find request: {@link #OP_FIND}, cassette name, request.</li>
+ * <li>Reply: {@link #FOUND} followed by the interaction, or {@link #NOT_FOUND}, {@link #UNKNOWN_CASSETTE},
+ * or {@link #ERROR} followed by a message.</li>
+ * <li>Request: method, URI, headers, body.</li>
+ * <li>Interaction: recorded at, duration, timings (a presence byte, then the connect, handshake, first byte and
+ * transfer times as 8-byte integers), latency distribution (a presence byte, then the number of takes, the
+ * number of percentiles and the percentiles), request, response status code and message, HTTP version, URI,
+ * headers, body.</li>
+ * <li>Headers: the number of headers, then each name (nullable) with its number of values and the values.</li>
+ * </ul>
+ */
+final class DaemonProtocol {
+    /**
+     * Sent by both sides when a connection is opened ("EVCR").
+     */
+    static final int MAGIC = 0x45564352;
+    static final byte VERSION = 2;
+
+    static final byte OP_FIND = 1;
+
+    static final byte FOUND = 0;
+    static final byte NOT_FOUND = 1;
+    static final byte UNKNOWN_CASSETTE = 2;
+    static final byte ERROR = 3;
+
+    /**
+     * The prefix of the endpoint file written by a daemon listening on the loopback TCP fallback.
+     */
+    static final String TCP_ENDPOINT_PREFIX = "tcp:";
+
+    /**
+     * The largest string or byte array sent or accepted (64 MB), so a corrupt stream can't make either side
+     * allocate without bound; a connection is failed rather than sending or reading anything longer.
+     */
+    private static final int MAX_LENGTH = 64 * 1024 * 1024;
+    /**
+     * The largest number of percentiles accepted in a latency distribution.
+     */
+    private static final int MAX_PERCENTILES = 256;
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * Send the greeting that starts a connection.
+     *
+     * @param output The stream to write to.
+     * @throws IOException If the greeting could not be written.
+     */
+    static void writeGreeting(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.flush();
+    }
+
+    /**
+     * Read and check the greeting that starts a connection.
+     *
+     * @param input The stream to read from.
+     * @throws IOException If the greeting could not be read, or the other side speaks another protocol or version.
+     */
+    static void readGreeting(DataInputStream input) throws IOException {
+        int magic = input.readInt();
+        byte version = input.readByte();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("Not a cassette daemon connection, or an unsupported protocol version");
+        }
+    }
+
+    /**
+     * Read the port of a daemon listening on the loopback TCP fallback from its endpoint file.
+     *
+     * @param endpoint The endpoint file.
+     * @return The port.
+     * @throws IOException If the file could not be read or isn't an endpoint file.
+     */
+    static int readTcpPort(Path endpoint) throws IOException {
+        String content = new String(Files.readAllBytes(endpoint), StandardCharsets.UTF_8).trim();
+        if (!content.startsWith(TCP_ENDPOINT_PREFIX)) {
+            throw new IOException(endpoint + " is not a cassette daemon endpoint");
+        }
+        try {
+            return Integer.parseInt(content.substring(TCP_ENDPOINT_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IOException(endpoint + " is not a cassette daemon endpoint");
+        }
+    }
+
+    static void writeRequest(DataOutputStream output, Request request) throws IOException {
+        writeString(output, request.getMethod());
+        writeString(output, request.getUri() == null ? null : request.getUriString());
+        writeHeaders(output, request.getHeaders());
+        writeString(output, request.getBody());
+    }
+
+    static Request readRequest(DataInputStream input) throws IOException {
+        Request request = new Request();
+        request.setMethod(readString(input));
+        String uri = readString(input);
+        if (uri != null) {
+            request.setUri(toUri(uri));
+        }
+        request.setHeaders(readHeaders(input));
+        request.setBody(readString(input));
+        return request;
+    }
+
+    /**
+     * Send a recorded interaction.
+     *
+     * @param output      The stream to write to.
+     * @param interaction The interaction to send.
+     * @param buffer      A buffer to copy the response body through, reused across calls on the same connection.
+     * @throws IOException If the interaction could not be written.
+     */
+    static void writeInteraction(DataOutputStream output, HttpInteraction interaction, byte[] buffer)
+            throws IOException {
+        writeVarLong(output, interaction.getRecordedAt());
+        writeVarLong(output, interaction.getDuration());
+        Timings timings = interaction.getTimings();
+        output.writeBoolean(timings != null);
+        if (timings != null) {
+            output.writeLong(timings.getConnect());
+            output.writeLong(timings.getHandshake());
+            output.writeLong(timings.getFirstByte());
+            output.writeLong(timings.getTransfer());
+        }
+        LatencyDistribution latency = interaction.getLatency();
+        output.writeBoolean(latency != null);
+        if (latency != null) {
+            writeVarLong(output, latency.getCount());
+            long[] percentiles = latency.getPercentiles();
+            writeVarLong(output, percentiles.length);
+            for (long percentile : percentiles) {
+                writeVarLong(output, percentile);
+            }
+        }
+        writeRequest(output, interaction.getRequest());
+
+        Response response = interaction.getResponse();
+        writeVarLong(output, response.getStatus() == null ? 0 : response.getStatus().getCode());
+        writeString(output, response.getStatus() == null ? null : response.getStatus().getMessage());
+        writeString(output, response.getHttpVersion() == null ? null : response.getHttpVersion().toString());
+        writeString(output, response.getUri() == null ? null : response.getUriString());
+        writeHeaders(output, response.getHeaders());
+        if (response.getBodyFile() == null && response.getBody() == null) {
+            writeVarLong(output, 0);
+            return;
+        }
+        // bodies are sent from the (possibly memory-mapped) encoded bytes, without decoding them first
+        ByteBuffer body = response.getBodyBytes();
+        writeLength(output, body.remaining() + 1L);
+        // read-only buffers don't expose their array, so the body is always copied through the buffer
+        while (body.hasRemaining()) {
+            int count = Math.min(buffer.length, body.remaining());
+            body.get(buffer, 0, count);
+            output.write(buffer, 0, count);
+        }
+    }
+
+    static HttpInteraction readInteraction(DataInputStream input) throws IOException {
+        long recordedAt = readVarLong(input);
+        long duration = readVarLong(input);
+        Timings timings = input.readBoolean()
+                ? new Timings(input.readLong(), input.readLong(), input.readLong(), input.readLong())
+                : null;
+        LatencyDistribution latency = null;
+        if (input.readBoolean()) {
+            long count = readVarLong(input);
+            int percentileCount = readLength(input);
+            if (percentileCount > MAX_PERCENTILES) {
+                throw new IOException("Invalid percentile count " + percentileCount);
+            }
+            long[] percentiles = new long[percentileCount];
+            for (int i = 0; i < percentiles.length; i++) {
+                percentiles[i] = readVarLong(input);
+            }
+            try {
+                latency = new LatencyDistribution(count, percentiles);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage());
+            }
+        }
+        Request request = readRequest(input);
+
+        Response response = new Response();
+        int code = (int) readVarLong(input);
+        response.setStatus(new Status(code, readString(input)));
+        String httpVersion = readString(input);
+        if (httpVersion != null) {
+            response.setHttpVersion(httpVersion);
+        }
+        String uri = readString(input);
+        if (uri != null) {
+            response.setUri(toUri(uri));
+        }
+        response.setHeaders(readHeaders(input));
+        response.setBody(readString(input));
+
+        HttpInteraction interaction = new HttpInteraction(request, response, duration);
+        interaction.setRecordedAt(recordedAt);
+        interaction.setTimings(timings);
+        interaction.setLatency(latency);
+        return interaction;
+    }
+
+    private static void writeHeaders(DataOutputStream output, Map<String, List<String>> headers)
+            throws IOException {
+        if (headers == null) {
+            writeVarLong(output, 0);
+            return;
+        }
+        writeVarLong(output, headers.size());
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            // HttpURLConnection recordings store the status line under a null key
+            writeString(output, header.getKey());
+            List<String> values = header.getValue();
+            writeVarLong(output, values == null ? 0 : values.size());
+            if (values != null) {
+                for (String value : values) {
+                    writeString(output, value);
+                }
+            }
+        }
+    }
+
+    private static Map<String, List<String>> readHeaders(DataInputStream input) throws IOException {
+        int count = readLength(input);
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = readString(input);
+            int valueCount = readLength(input);
+            List<String> values = new ArrayList<>(Math.min(valueCount, 16));
+            for (int j = 0; j < valueCount; j++) {
+                values.add(readString(input));
+            }
+            headers.put(name, values);
+        }
+        return headers;
+    }
+
+    static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(output, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeLength(output, bytes.length + 1L);
+        output.write(bytes);
+    }
+
+    static String readString(DataInputStream input) throws IOException {
+        int length = readLength(input);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLength(DataOutputStream output, long length) throws IOException {
+        if (length > MAX_LENGTH) {
+            throw new IOException("Length " + length + " exceeds the limit of " + MAX_LENGTH + " bytes");
+        }
+        writeVarLong(output, length);
+    }
+
+    private static int readLength(DataInputStream input) throws IOException {
+        long length = readVarLong(input);
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IOException("Invalid length " + length);
+        }
+        return (int) length;
+    }
+
+    static void writeVarLong(DataOutputStream output, long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            output.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        output.writeByte((int) remaining);
+    }
+
+    static long readVarLong(DataInputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int read = input.read();
+            if (read < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (read & 0x7F) << shift;
+            if ((read & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid variable-length integer");
+    }
+
+    private static URI toUri(String uri) throws IOException {
+        try {
+            return new URI(uri);
+        } catch (Exception e) {
+            throw new IOException("Invalid URI " + uri);
+        }
+    }
+}
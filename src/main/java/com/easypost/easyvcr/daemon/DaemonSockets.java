@@ -0,0 +1,134 @@
+package com.easypost.easyvcr.daemon;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Opens Unix domain socket channels for the cassette daemon.
+ * <p>
+ * Unix domain socket channels were added in Java 16, while this library targets Java 8, so they are looked up
+ * reflectively; on older Java versions the daemon falls back to loopback TCP.
+ */
+final class DaemonSockets {
+    /**
+     * StandardProtocolFamily.UNIX, or null before Java 16.
+     */
+    private static final ProtocolFamily UNIX;
+    /**
+     * UnixDomainSocketAddress.of(Path), or null before Java 16.
+     */
+    private static final Method ADDRESS_OF;
+    /**
+     * ServerSocketChannel.open(ProtocolFamily), or null before Java 16.
+     */
+    private static final Method OPEN_SERVER;
+    /**
+     * SocketChannel.open(ProtocolFamily), or null before Java 16.
+     */
+    private static final Method OPEN_CLIENT;
+
+    static {
+        ProtocolFamily unix = null;
+        Method addressOf = null;
+        Method openServer = null;
+        Method openClient = null;
+        try {
+            unix = StandardProtocolFamily.valueOf("UNIX");
+            addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+            openServer = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+            openClient = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+        } catch (IllegalArgumentException | ReflectiveOperationException ignored) {
+            unix = null;
+        }
+        UNIX = unix;
+        ADDRESS_OF = addressOf;
+        OPEN_SERVER = openServer;
+        OPEN_CLIENT = openClient;
+    }
+
+    private DaemonSockets() {
+    }
+
+    /**
+     * Check whether Unix domain sockets can be used on this Java version.
+     *
+     * @return True if Unix domain sockets are supported.
+     */
+    static boolean supportsUnixDomainSockets() {
+        return UNIX != null;
+    }
+
+    /**
+     * Listen on a Unix domain socket.
+     *
+     * @param path    The path of the socket; an existing file at the path is replaced.
+     * @param backlog The number of pending connections to queue before refusing new ones.
+     * @return The listening channel.
+     * @throws IOException If the socket could not be opened.
+     */
+    static ServerSocketChannel bind(Path path, int backlog) throws IOException {
+        if (!supportsUnixDomainSockets()) {
+            throw new IOException("Unix domain sockets require Java 16 or newer");
+        }
+        // a socket file left behind by a daemon that wasn't stopped would make binding fail
+        Files.deleteIfExists(path);
+        ServerSocketChannel channel = (ServerSocketChannel) invoke(OPEN_SERVER, UNIX);
+        try {
+            channel.bind(address(path), backlog);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * Connect to a Unix domain socket.
+     *
+     * @param path The path of the socket.
+     * @return The connected channel.
+     * @throws IOException If the socket could not be connected to.
+     */
+    static SocketChannel connect(Path path) throws IOException {
+        if (!supportsUnixDomainSockets()) {
+            throw new IOException("Unix domain sockets require Java 16 or newer; start the daemon with loopback TCP");
+        }
+        SocketChannel channel = (SocketChannel) invoke(OPEN_CLIENT, UNIX);
+        try {
+            channel.connect(address(path));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    private static SocketAddress address(Path path) throws IOException {
+        return (SocketAddress) invoke(ADDRESS_OF, path);
+    }
+
+    private static Object invoke(Method method, Object argument) throws IOException {
+        try {
+            return method.invoke(null, argument);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.easypost.easyvcr.faults;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketException;
+
+/**
+ * An input stream that delivers the first bytes of another stream, then fails like a connection that was reset.
+ */
+final class ConnectionResetInputStream extends FilterInputStream {
+    /**
+     * The number of bytes left to deliver before the reset.
+     */
+    private long remaining;
+
+    /**
+     * Constructor for ConnectionResetInputStream.
+     *
+     * @param source     The stream to read from.
+     * @param resetAfter The number of bytes to deliver before the reset.
+     */
+    ConnectionResetInputStream(InputStream source, long resetAfter) {
+        super(source);
+        this.remaining = resetAfter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkReset();
+        int b = in.read();
+        if (b != -1) {
+            remaining--;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        checkReset();
+        int count = in.read(b, off, (int) Math.min(len, remaining));
+        if (count > 0) {
+            remaining -= count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        checkReset();
+        long skipped = in.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // not supported, a reset would deliver more bytes than allowed
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void checkReset() throws SocketException {
+        if (remaining <= 0) {
+            throw new SocketException("Connection reset");
+        }
+    }
+}
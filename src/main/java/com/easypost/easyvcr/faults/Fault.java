@@ -0,0 +1,113 @@
+package com.easypost.easyvcr.faults;
+
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Response;
+import com.easypost.easyvcr.requestelements.Status;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The faults picked for a replayed request by a {@link FaultInjector}.
+ */
+public final class Fault {
+    /**
+     * The fault to inject, or null if only extra latency is injected.
+     */
+    private final FaultType type;
+    /**
+     * The Retry-After of an injected 503 or 429 response, in seconds (negative if there is none).
+     */
+    private final int retryAfter;
+    /**
+     * The extra latency to add, in milliseconds.
+     */
+    private final long extraLatency;
+
+    Fault(FaultType type, int retryAfter, long extraLatency) {
+        this.type = type;
+        this.retryAfter = retryAfter;
+        this.extraLatency = extraLatency;
+    }
+
+    /**
+     * Get the fault to inject.
+     *
+     * @return The type of fault, or null if only extra latency is injected.
+     */
+    public FaultType getType() {
+        return type;
+    }
+
+    /**
+     * Get the Retry-After of an injected 503 or 429 response.
+     *
+     * @return The Retry-After, in seconds, or a negative number if the header is left out.
+     */
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Get the extra latency to add to the response.
+     *
+     * @return The extra latency, in milliseconds.
+     */
+    public long getExtraLatency() {
+        return extraLatency;
+    }
+
+    /**
+     * Replace the response of a replayed interaction with the injected 503 or 429 response, if any.
+     * The replayed interaction itself is left unchanged.
+     *
+     * @param interaction The replayed interaction.
+     * @return The interaction with the injected response, or the replayed interaction if no response is injected.
+     */
+    public HttpInteraction applyToResponse(HttpInteraction interaction) {
+        Status status;
+        if (type == FaultType.ServiceUnavailable) {
+            status = new Status(503, "Service Unavailable");
+        } else if (type == FaultType.TooManyRequests) {
+            status = new Status(429, "Too Many Requests");
+        } else {
+            return interaction;
+        }
+        Response recorded = interaction.getResponse();
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        if (recorded.getHeaders() != null && recorded.getHeaders().containsKey(null)) {
+            // HttpURLConnection recordings keep the status line under a null key
+            headers.put(null, Collections.singletonList("HTTP/1.1 " + status.getCode() + " " + status.getMessage()));
+        }
+        if (retryAfter >= 0) {
+            headers.put("Retry-After", Collections.singletonList(String.valueOf(retryAfter)));
+        }
+        headers.put("Content-Length", Collections.singletonList("0"));
+
+        Response response = new Response();
+        response.setStatus(status);
+        response.setUri(recorded.getUri());
+        response.setHeaders(headers);
+        response.setBody("");
+        HttpInteraction faulted = new HttpInteraction(interaction.getRequest(), response, interaction.getDuration());
+        faulted.setRecordedAt(interaction.getRecordedAt());
+        return faulted;
+    }
+
+    /**
+     * Apply an injected connection reset to a replayed response body, if any.
+     *
+     * @param body   The stream of the replayed response body.
+     * @param length The length of the body, in bytes.
+     * @return A stream that fails halfway through the body, or the body itself if no reset is injected.
+     */
+    public InputStream applyToBody(InputStream body, long length) {
+        if (type != FaultType.ConnectionReset) {
+            return body;
+        }
+        return new ConnectionResetInputStream(body, length / 2);
+    }
+}
@@ -0,0 +1,169 @@
+package com.easypost.easyvcr.faults;
+
+import com.easypost.easyvcr.requestelements.Request;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Injects faults into replayed requests, to test retry and timeout handling without a misbehaving server.
+ * <p>
+ * Faults are configured as {@link FaultProfile}s for hosts or paths; requests without a matching profile are
+ * replayed untouched. Set the injector as {@link com.easypost.easyvcr.AdvancedSettings#faultInjector} to apply it
+ * to replayed {@link com.easypost.easyvcr.clients.httpurlconnection.RecordableHttpURLConnection}s.
+ * <p>
+ * Faults are picked with a random number generator seeded from the seed of the injector, the request and the
+ * number of times the same request was replayed before, so the same requests get the same faults on every run
+ * with the same seed, in whatever order (or on whatever threads) they are sent.
+ * <p>
+ * Repetitions are counted for up to 65536 distinct requests (method and URL); requests
+ * beyond that are picked as if they were never seen before, so they get the same fault every time. Call
+ * {@link #reset()} between runs to count from the start again and release the counts.
+ */
+public final class FaultInjector {
+    /**
+     * The largest number of distinct requests whose repetitions are counted.
+     */
+    private static final int MAX_TRACKED_REQUESTS = 65536;
+
+    /**
+     * The seed faults are picked with.
+     */
+    private final long seed;
+    /**
+     * The profiles of hosts, by lower-case host name.
+     */
+    private final Map<String, FaultProfile> hostProfiles = new ConcurrentHashMap<>();
+    /**
+     * The profiles of paths, longest path first.
+     */
+    private final List<PathProfile> pathProfiles = new CopyOnWriteArrayList<>();
+    /**
+     * The number of times each request with a matching profile was seen.
+     */
+    private final Map<String, AtomicLong> occurrences = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for FaultInjector.
+     *
+     * @param seed The seed to pick faults with.
+     */
+    public FaultInjector(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Inject faults into requests to a host (unless the path of the request has a profile).
+     *
+     * @param host    The host name.
+     * @param profile The faults to inject.
+     * @return This FaultInjector.
+     */
+    public FaultInjector forHost(String host, FaultProfile profile) {
+        if (host == null || profile == null) {
+            throw new IllegalArgumentException("Host and profile cannot be null");
+        }
+        hostProfiles.put(host.toLowerCase(Locale.ROOT), profile);
+        return this;
+    }
+
+    /**
+     * Inject faults into requests to a path, or below it (on any host).
+     *
+     * @param path    The path, e.g. "/v2/shipments".
+     * @param profile The faults to inject.
+     * @return This FaultInjector.
+     */
+    public FaultInjector forPath(String path, FaultProfile profile) {
+        if (path == null || profile == null) {
+            throw new IllegalArgumentException("Path and profile cannot be null");
+        }
+        String prefix = path.endsWith("/") && path.length() > 1 ? path.substring(0, path.length() - 1) : path;
+        int index = 0;
+        while (index < pathProfiles.size() && pathProfiles.get(index).path.length() >= prefix.length()) {
+            index++;
+        }
+        pathProfiles.add(index, new PathProfile(prefix, profile));
+        return this;
+    }
+
+    /**
+     * Forget how often each request was seen, so the same faults are picked again from the start.
+     * Call it between runs, so the counts of earlier runs don't pile up.
+     */
+    public void reset() {
+        occurrences.clear();
+    }
+
+    /**
+     * Get the profile of the host or path of a URI.
+     *
+     * @param uri The URI.
+     * @return The profile of the longest matching path, else the profile of the host, or null if there is none.
+     */
+    public FaultProfile getProfile(URI uri) {
+        if (uri == null) {
+            return null;
+        }
+        if (!pathProfiles.isEmpty() && uri.getRawPath() != null) {
+            String path = uri.getRawPath();
+            for (PathProfile pathProfile : pathProfiles) {
+                if (pathProfile.matches(path)) {
+                    return pathProfile.profile;
+                }
+            }
+        }
+        if (hostProfiles.isEmpty() || uri.getHost() == null) {
+            return null;
+        }
+        return hostProfiles.get(uri.getHost().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Pick the faults to inject into a replayed request.
+     *
+     * @param request The replayed request.
+     * @return The fault, or null if none is injected.
+     */
+    public Fault pick(Request request) {
+        FaultProfile profile = getProfile(request.getUri());
+        if (profile == null) {
+            return null;
+        }
+        String key = request.getMethod() + " " + request.getUriString();
+        AtomicLong counter = occurrences.get(key);
+        if (counter == null && occurrences.size() < MAX_TRACKED_REQUESTS) {
+            counter = occurrences.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        long occurrence = counter == null ? 0 : counter.getAndIncrement();
+        long requestSeed = seed ^ (key.hashCode() * 0x9E3779B97F4A7C15L) ^ (occurrence * 0xBF58476D1CE4E5B9L);
+        return profile.pick(new SplittableRandom(requestSeed));
+    }
+
+    /**
+     * A profile for a path and everything below it.
+     */
+    private static final class PathProfile {
+        private final String path;
+        private final FaultProfile profile;
+
+        PathProfile(String path, FaultProfile profile) {
+            this.path = path;
+            this.profile = profile;
+        }
+
+        boolean matches(String requestPath) {
+            if (!requestPath.startsWith(path)) {
+                return false;
+            }
+            return requestPath.length() == path.length() || path.endsWith("/")
+                    || requestPath.charAt(path.length()) == '/';
+        }
+    }
+}
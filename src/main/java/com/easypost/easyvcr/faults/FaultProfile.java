@@ -0,0 +1,135 @@
+package com.easypost.easyvcr.faults;
+
+import java.util.SplittableRandom;
+
+/**
+ * The faults to inject into replayed requests to a host or path, and how often to inject each of them.
+ * <p>
+ * At most one of the read timeout, connection reset, 503 and 429 faults is injected into a request, so their
+ * probabilities can add up to 1 at most. Extra tail latency is drawn separately and can come on top of any of them.
+ */
+public final class FaultProfile {
+    private double readTimeout;
+    private double connectionReset;
+    private double serviceUnavailable;
+    private int serviceUnavailableRetryAfter;
+    private double tooManyRequests;
+    private int tooManyRequestsRetryAfter;
+    private double tailLatency;
+    private long tailLatencyMillis;
+
+    /**
+     * Time out reading the response: the connection waits for its read timeout, then throws a
+     * {@link java.net.SocketTimeoutException}. Connections without a read timeout (the JDK default) would wait
+     * for the response instead, so they are replayed as usual.
+     *
+     * @param probability The probability of the fault, from 0 to 1.
+     * @return This FaultProfile.
+     */
+    public FaultProfile readTimeout(double probability) {
+        this.readTimeout = checkProbability(probability);
+        checkExclusiveProbabilities();
+        return this;
+    }
+
+    /**
+     * Reset the connection halfway through the response body: reading the body throws a
+     * {@link java.net.SocketException} after half of it was delivered.
+     *
+     * @param probability The probability of the fault, from 0 to 1.
+     * @return This FaultProfile.
+     */
+    public FaultProfile connectionReset(double probability) {
+        this.connectionReset = checkProbability(probability);
+        checkExclusiveProbabilities();
+        return this;
+    }
+
+    /**
+     * Answer with 503 Service Unavailable instead of the recorded response.
+     *
+     * @param probability       The probability of the fault, from 0 to 1.
+     * @param retryAfterSeconds The value of the Retry-After header, in seconds (negative to leave the header out).
+     * @return This FaultProfile.
+     */
+    public FaultProfile serviceUnavailable(double probability, int retryAfterSeconds) {
+        this.serviceUnavailable = checkProbability(probability);
+        this.serviceUnavailableRetryAfter = retryAfterSeconds;
+        checkExclusiveProbabilities();
+        return this;
+    }
+
+    /**
+     * Answer with 429 Too Many Requests instead of the recorded response.
+     *
+     * @param probability       The probability of the fault, from 0 to 1.
+     * @param retryAfterSeconds The value of the Retry-After header, in seconds (negative to leave the header out).
+     * @return This FaultProfile.
+     */
+    public FaultProfile tooManyRequests(double probability, int retryAfterSeconds) {
+        this.tooManyRequests = checkProbability(probability);
+        this.tooManyRequestsRetryAfter = retryAfterSeconds;
+        checkExclusiveProbabilities();
+        return this;
+    }
+
+    /**
+     * Delay the response by an extra amount of time, on top of the simulated delay (if any).
+     * The extra latency is scaled by the delay scale, and advances a virtual clock instead of sleeping.
+     *
+     * @param probability The probability of the extra latency, from 0 to 1.
+     * @param extraMillis The extra latency, in milliseconds.
+     * @return This FaultProfile.
+     */
+    public FaultProfile tailLatency(double probability, long extraMillis) {
+        if (extraMillis < 0) {
+            throw new IllegalArgumentException("Extra latency cannot be negative");
+        }
+        this.tailLatency = checkProbability(probability);
+        this.tailLatencyMillis = extraMillis;
+        return this;
+    }
+
+    /**
+     * Decide which faults to inject into a request.
+     *
+     * @param random The random number generator of the request.
+     * @return The fault, or null if none is injected.
+     */
+    Fault pick(SplittableRandom random) {
+        double draw = random.nextDouble();
+        long extraLatency = random.nextDouble() < tailLatency ? tailLatencyMillis : 0;
+
+        FaultType type = null;
+        int retryAfter = -1;
+        if ((draw -= readTimeout) < 0) {
+            type = FaultType.ReadTimeout;
+        } else if ((draw -= connectionReset) < 0) {
+            type = FaultType.ConnectionReset;
+        } else if ((draw -= serviceUnavailable) < 0) {
+            type = FaultType.ServiceUnavailable;
+            retryAfter = serviceUnavailableRetryAfter;
+        } else if ((draw -= tooManyRequests) < 0) {
+            type = FaultType.TooManyRequests;
+            retryAfter = tooManyRequestsRetryAfter;
+        }
+        if (type == null && extraLatency == 0) {
+            return null;
+        }
+        return new Fault(type, retryAfter, extraLatency);
+    }
+
+    private static double checkProbability(double probability) {
+        if (!(probability >= 0 && probability <= 1)) {
+            throw new IllegalArgumentException("Probability must be between 0 and 1");
+        }
+        return probability;
+    }
+
+    private void checkExclusiveProbabilities() {
+        if (readTimeout + connectionReset + serviceUnavailable + tooManyRequests > 1) {
+            throw new IllegalArgumentException(
+                    "The probabilities of read timeouts, connection resets, 503 and 429 add up to more than 1");
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.easypost.easyvcr.faults;
+
+public enum FaultType {
+    ReadTimeout,
+    ConnectionReset,
+    ServiceUnavailable,
+    TooManyRequests
+}
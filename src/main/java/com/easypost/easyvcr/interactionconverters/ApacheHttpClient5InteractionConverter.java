@@ -0,0 +1,124 @@
+package com.easypost.easyvcr.interactionconverters;
+
+import com.easypost.easyvcr.Censors;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Request;
+import com.easypost.easyvcr.requestelements.Response;
+import com.easypost.easyvcr.requestelements.Status;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The interaction converter to convert Apache HttpClient 5 requests/responses to/from EasyVCR requests/responses.
+ */
+public final class ApacheHttpClient5InteractionConverter extends BaseInteractionConverter {
+    /**
+     * Convert an Apache HttpClient 5 request to an EasyVCR request.
+     *
+     * @param httpRequest The Apache HttpClient 5 request.
+     * @param body        The request body (UTF-8).
+     * @param censors     The censors to apply to the request.
+     * @return The EasyVCR request, or null if the request could not be converted.
+     */
+    public Request createRecordedRequest(HttpRequest httpRequest, String body, Censors censors) {
+        try {
+            // collect elements from the request
+            String uriString = httpRequest.getUri().toString();
+            Map<String, List<String>> headers = toHeaderMap(httpRequest.getHeaders());
+
+            // apply censors
+            uriString = censors.applyUrlCensors(uriString);
+            headers = censors.applyHeaderCensors(headers);
+            body = censors.applyBodyParameterCensors(body);
+
+            // create the request
+            Request request = new Request();
+            request.setMethod(httpRequest.getMethod());
+            request.setUri(new URI(uriString));
+            request.setHeaders(headers);
+            request.setBody(body);
+
+            return request;
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * Convert an Apache HttpClient 5 response to an EasyVCR response.
+     *
+     * @param httpResponse The Apache HttpClient 5 response.
+     * @param uri          The URI of the request the response is for.
+     * @param body         The response body (UTF-8).
+     * @param censors      The censors to apply to the response.
+     * @return The EasyVCR response.
+     * @throws URISyntaxException If the censored URI is invalid.
+     */
+    public Response createRecordedResponse(HttpResponse httpResponse, URI uri, String body, Censors censors)
+            throws URISyntaxException {
+        // apply censors
+        String uriString = censors.applyUrlCensors(uri.toString());
+        Map<String, List<String>> headers = censors.applyHeaderCensors(toHeaderMap(httpResponse.getHeaders()));
+        // we don't censor the response body, only the request body
+
+        // create the response
+        Response response = new Response();
+        response.setStatus(new Status(httpResponse.getCode(), httpResponse.getReasonPhrase()));
+        response.setUri(new URI(uriString));
+        response.setHeaders(headers);
+        response.setBody(censors.applyBodyParameterCensors(body));
+        return response;
+    }
+
+    /**
+     * Create an EasyVCR HttpInteraction from a converted request and response.
+     *
+     * @param request  The EasyVCR request.
+     * @param response The EasyVCR response.
+     * @param duration The time it took to receive the response head, in milliseconds.
+     * @return The EasyVCR HttpInteraction.
+     */
+    public HttpInteraction createInteraction(Request request, Response response, long duration) {
+        return super.createInteraction(request, response, duration);
+    }
+
+    /**
+     * Convert a recorded response to an Apache HttpClient 5 response head (status and headers).
+     *
+     * @param response The recorded response.
+     * @return The Apache HttpClient 5 response.
+     */
+    public HttpResponse toHttpResponse(Response response) {
+        Status status = response.getStatus();
+        BasicHttpResponse httpResponse = new BasicHttpResponse(status.getCode(), status.getMessage());
+        if (response.getHeaders() != null) {
+            for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+                // HttpURLConnection recordings store the status line under a null key
+                if (header.getKey() == null || header.getValue() == null) {
+                    continue;
+                }
+                for (String value : header.getValue()) {
+                    httpResponse.addHeader(header.getKey(), value);
+                }
+            }
+        }
+        return httpResponse;
+    }
+
+    private static Map<String, List<String>> toHeaderMap(Header[] headers) {
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        for (Header header : headers) {
+            map.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+        }
+        return map;
+    }
+}
@@ -1,8 +1,13 @@
 package com.easypost.easyvcr.interactionconverters;
 
+import com.easypost.easyvcr.AdvancedSettings;
 import com.easypost.easyvcr.Cassette;
 import com.easypost.easyvcr.MatchRules;
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.RecordingExpirationException;
 import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.internal.ConsoleFallbackLogger;
+import com.easypost.easyvcr.internal.ExpirationActionExtensions;
 import com.easypost.easyvcr.requestelements.HttpInteraction;
 import com.easypost.easyvcr.requestelements.Request;
 import com.easypost.easyvcr.requestelements.Response;
@@ -23,6 +28,9 @@ public abstract class BaseInteractionConverter {
      */
     public HttpInteraction findMatchingInteraction(Cassette cassette, Request request, MatchRules matchRules)
             throws VCRException {
+        if (cassette.getDaemon() != null) {
+            return cassette.getDaemon().findMatchingInteraction(cassette, request, matchRules);
+        }
         for (HttpInteraction recordedInteraction : cassette.read()) {
             if (matchRules.requestsMatch(request, recordedInteraction.getRequest())) {
                 return recordedInteraction;
@@ -31,6 +39,51 @@ public abstract class BaseInteractionConverter {
         return null;
     }
 
+    /**
+     * Load an existing interaction matching the request from the cassette, applying the expiration action of the
+     * advanced settings if it is expired.
+     *
+     * @param cassette         The cassette to search.
+     * @param request          The EasyVCR request, or null if it couldn't be created.
+     * @param advancedSettings The advanced settings of the client.
+     * @param mode             The mode of the client.
+     * @param logger           The logger to warn about expired interactions with.
+     * @return The matching interaction, or null if there is none (or it has to be recorded again).
+     * @throws VCRException                 If the cassette could not be read.
+     * @throws RecordingExpirationException If the matching interaction is expired and that is not allowed.
+     */
+    public HttpInteraction loadExistingInteraction(Cassette cassette, Request request,
+                                                   AdvancedSettings advancedSettings, Mode mode,
+                                                   ConsoleFallbackLogger logger)
+            throws VCRException, RecordingExpirationException {
+        if (request == null) {
+            return null;
+        }
+        HttpInteraction matchingInteraction;
+        synchronized (cassette) {
+            matchingInteraction = findMatchingInteraction(cassette, request, advancedSettings.matchRules);
+        }
+        if (matchingInteraction == null
+                || !advancedSettings.timeFrame.hasLapsed(matchingInteraction.getRecordedAt(), advancedSettings.clock)) {
+            return matchingInteraction;
+        }
+
+        switch (advancedSettings.whenExpired) {
+            case Warn:
+                logger.warning("Matching interaction is expired.");
+                return matchingInteraction;
+            case ThrowException:
+                throw new RecordingExpirationException("Matching interaction is expired.");
+            case RecordAgain:
+                // rejected in Replay mode, where nothing can be recorded again
+                ExpirationActionExtensions.checkCompatibleSettings(advancedSettings.whenExpired, mode);
+                // will trigger a re-recording of the interaction
+                return null;
+            default:
+                return matchingInteraction;
+        }
+    }
+
     /**
      * Create an HttpInteraction from a request and response.
      *
@@ -46,6 +99,10 @@ public abstract class BaseInteractionConverter {
     public static class ResponseAndTime {
         public final Response response;
         public final long time;
+        /**
+         * The time spent reading the response body, in milliseconds (0 if it wasn't read or timed).
+         */
+        public final long transferTime;
 
         /**
          * Constructor for ResponseAndTime.
@@ -54,8 +111,20 @@ public abstract class BaseInteractionConverter {
          * @param time     long
          */
         public ResponseAndTime(Response response, long time) {
+            this(response, time, 0);
+        }
+
+        /**
+         * Constructor for ResponseAndTime.
+         *
+         * @param response     Response
+         * @param time         long
+         * @param transferTime The time spent reading the response body, in milliseconds.
+         */
+        public ResponseAndTime(Response response, long time, long transferTime) {
             this.response = response;
             this.time = time;
+            this.transferTime = transferTime;
         }
     }
 }
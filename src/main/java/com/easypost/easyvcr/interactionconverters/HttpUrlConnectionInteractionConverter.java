@@ -6,8 +6,10 @@ import com.easypost.easyvcr.requestelements.HttpInteraction;
 import com.easypost.easyvcr.requestelements.Request;
 import com.easypost.easyvcr.requestelements.Response;
 import com.easypost.easyvcr.requestelements.Status;
+import com.easypost.easyvcr.requestelements.Timings;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -25,6 +27,8 @@ import static com.easypost.easyvcr.internal.Utilities.readFromInputStream;
 public final class HttpUrlConnectionInteractionConverter extends BaseInteractionConverter {
     /**
      * Convert a HttpURLConnection request to an EasyVCR request.
+     * The request headers can only be read before the connection is connected, so call this before sending
+     * the request.
      *
      * @param connection  The HttpURLConnection request.
      * @param requestBody The request body.
@@ -36,7 +40,6 @@ public final class HttpUrlConnectionInteractionConverter extends BaseInteraction
         try {
             // collect elements from the connection
             String uriString = connection.getURL().toString();
-            connection.disconnect();
             Map<String, List<String>> headers = connection.getRequestProperties();
             String body = new String(requestBody.getData(), StandardCharsets.UTF_8);
             String method = connection.getRequestMethod();
@@ -68,6 +71,19 @@ public final class HttpUrlConnectionInteractionConverter extends BaseInteraction
      * @return The ResponseAndTime object.
      */
     public ResponseAndTime createRecordedResponse(HttpURLConnection connection, Censors censors) {
+        return createRecordedResponse(connection, censors, true);
+    }
+
+    /**
+     * Convert a HttpURLConnection response to a ResponseAndTime object.
+     *
+     * @param connection The HttpURLConnection response.
+     * @param censors    The censors to apply to the response.
+     * @param readBody   Whether to read the response body. If false, the body is left on the connection
+     *                   and can be added later with {@link #setRecordedResponseBody(Response, byte[], Censors)}.
+     * @return The ResponseAndTime object.
+     */
+    public ResponseAndTime createRecordedResponse(HttpURLConnection connection, Censors censors, boolean readBody) {
         try {
             // quickly time how long it takes to get the initial response
             Instant start = Instant.now();
@@ -80,10 +96,24 @@ public final class HttpUrlConnectionInteractionConverter extends BaseInteraction
             String uriString = connection.getURL().toString();
             Map<String, List<String>> headers = connection.getHeaderFields();
             String body = null;
-            try {
-                body = readFromInputStream(connection.getInputStream());
-            } catch (NullPointerException | IOException ignored) {  // nothing in body if bad status code from server
-                body = readFromInputStream(connection.getErrorStream());
+            long transferMilliseconds = 0;
+            if (readBody) {
+                Instant transferStart = Instant.now();
+                InputStream stream;
+                try {
+                    stream = connection.getInputStream();
+                } catch (IOException ignored) {  // nothing in body if bad status code from server
+                    stream = connection.getErrorStream();
+                }
+                try {
+                    body = readFromInputStream(stream);
+                } finally {
+                    // reading to the end and closing (rather than disconnecting) lets the JDK reuse the connection
+                    if (stream != null) {
+                        stream.close();
+                    }
+                }
+                transferMilliseconds = Duration.between(transferStart, Instant.now()).toMillis();
             }
 
             // apply censors
@@ -101,12 +131,23 @@ public final class HttpUrlConnectionInteractionConverter extends BaseInteraction
                 response.setBody(body);
             }
 
-            return new ResponseAndTime(response, milliseconds);
+            return new ResponseAndTime(response, milliseconds, transferMilliseconds);
         } catch (URISyntaxException | IOException ignored) {
             return null;
         }
     }
 
+    /**
+     * Set the body of a recorded response from the raw bytes captured from the connection.
+     *
+     * @param response The recorded response.
+     * @param body     The raw (UTF-8) response body.
+     * @param censors  The censors to apply to the body.
+     */
+    public void setRecordedResponseBody(Response response, byte[] body, Censors censors) {
+        response.setBody(censors.applyBodyParameterCensors(new String(body, StandardCharsets.UTF_8)));
+    }
+
     /**
      * Convert a Http(s)URLConnection to an EasyVCR HttpInteraction.
      *
@@ -117,9 +158,42 @@ public final class HttpUrlConnectionInteractionConverter extends BaseInteraction
      */
     public HttpInteraction createInteraction(HttpURLConnection connection, RecordableRequestBody requestBody,
                                              Censors censors) {
+        return createInteraction(connection, requestBody, censors, true);
+    }
+
+    /**
+     * Convert a Http(s)URLConnection to an EasyVCR HttpInteraction.
+     *
+     * @param connection  The Http(s)URLConnection.
+     * @param requestBody The request body.
+     * @param censors     The censors to apply to the interaction.
+     * @param readBody    Whether to read the response body. If false, the connection is left open so the body
+     *                    can still be streamed from it.
+     * @return The EasyVCR HttpInteraction.
+     */
+    public HttpInteraction createInteraction(HttpURLConnection connection, RecordableRequestBody requestBody,
+                                             Censors censors, boolean readBody) {
         Request request = createRecordedRequest(connection, requestBody, censors);
-        ResponseAndTime responseAndTime = createRecordedResponse(connection, censors);
-        connection.disconnect();
-        return createInteraction(request, responseAndTime.response, responseAndTime.time);
+        return createInteraction(request, connection, censors, readBody);
+    }
+
+    /**
+     * Convert a Http(s)URLConnection to an EasyVCR HttpInteraction, using a request that was already converted
+     * (e.g. before the request was sent).
+     *
+     * @param request    The EasyVCR request.
+     * @param connection The Http(s)URLConnection.
+     * @param censors    The censors to apply to the response.
+     * @param readBody   Whether to read the response body. If false, the body can still be streamed from the
+     *                   connection.
+     * @return The EasyVCR HttpInteraction.
+     */
+    public HttpInteraction createInteraction(Request request, HttpURLConnection connection, Censors censors,
+                                             boolean readBody) {
+        ResponseAndTime responseAndTime = createRecordedResponse(connection, censors, readBody);
+        HttpInteraction interaction = createInteraction(request, responseAndTime.response, responseAndTime.time);
+        // the connection isn't opened here, so only the response part of the breakdown is known
+        interaction.setTimings(new Timings(0, 0, responseAndTime.time, responseAndTime.transferTime));
+        return interaction;
     }
 }
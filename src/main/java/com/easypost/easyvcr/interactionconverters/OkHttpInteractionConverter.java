@@ -0,0 +1,173 @@
+package com.easypost.easyvcr.interactionconverters;
+
+import com.easypost.easyvcr.Censors;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Request;
+import com.easypost.easyvcr.requestelements.Response;
+import com.easypost.easyvcr.requestelements.Status;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.Okio;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The interaction converter to convert OkHttp requests/responses to/from EasyVCR requests/responses.
+ */
+public final class OkHttpInteractionConverter extends BaseInteractionConverter {
+    /**
+     * Convert an OkHttp request to an EasyVCR request.
+     *
+     * @param okHttpRequest The OkHttp request.
+     * @param body          The request body (UTF-8).
+     * @param censors       The censors to apply to the request.
+     * @return The EasyVCR request, or null if the request could not be converted.
+     */
+    public Request createRecordedRequest(okhttp3.Request okHttpRequest, String body, Censors censors) {
+        try {
+            // collect elements from the request
+            String uriString = okHttpRequest.url().toString();
+            Map<String, List<String>> headers = toHeaderMap(okHttpRequest.headers());
+
+            // apply censors
+            uriString = censors.applyUrlCensors(uriString);
+            headers = censors.applyHeaderCensors(headers);
+            body = censors.applyBodyParameterCensors(body);
+
+            // create the request
+            Request request = new Request();
+            request.setMethod(okHttpRequest.method());
+            request.setUri(new URI(uriString));
+            request.setHeaders(headers);
+            request.setBody(body);
+
+            return request;
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * Convert an OkHttp response to an EasyVCR response.
+     *
+     * @param okHttpResponse The OkHttp response.
+     * @param body           The response body (UTF-8).
+     * @param censors        The censors to apply to the response.
+     * @return The EasyVCR response.
+     * @throws URISyntaxException If the censored URI is invalid.
+     */
+    public Response createRecordedResponse(okhttp3.Response okHttpResponse, String body, Censors censors)
+            throws URISyntaxException {
+        // apply censors
+        String uriString = censors.applyUrlCensors(okHttpResponse.request().url().toString());
+        Map<String, List<String>> headers = censors.applyHeaderCensors(toHeaderMap(okHttpResponse.headers()));
+        // we don't censor the response body, only the request body
+
+        // create the response
+        Response response = new Response();
+        response.setStatus(new Status(okHttpResponse.code(), okHttpResponse.message()));
+        response.setUri(new URI(uriString));
+        response.setHeaders(headers);
+        response.setBody(censors.applyBodyParameterCensors(body));
+        return response;
+    }
+
+    /**
+     * Create an EasyVCR HttpInteraction from a converted request and response.
+     *
+     * @param request  The EasyVCR request.
+     * @param response The EasyVCR response.
+     * @param duration The time it took to receive the response head, in milliseconds.
+     * @return The EasyVCR HttpInteraction.
+     */
+    public HttpInteraction createInteraction(Request request, Response response, long duration) {
+        return super.createInteraction(request, response, duration);
+    }
+
+    /**
+     * Convert a recorded response to an OkHttp response.
+     * The response body is read straight from the recorded body, without copying it.
+     *
+     * @param response      The recorded response.
+     * @param okHttpRequest The OkHttp request the response is for.
+     * @return The OkHttp response.
+     */
+    public okhttp3.Response toOkHttpResponse(Response response, okhttp3.Request okHttpRequest) {
+        Headers.Builder headers = new Headers.Builder();
+        if (response.getHeaders() != null) {
+            for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+                // HttpURLConnection recordings store the status line under a null key
+                if (header.getKey() == null || header.getValue() == null) {
+                    continue;
+                }
+                for (String value : header.getValue()) {
+                    // recorded values were valid when they were received, don't validate them again
+                    headers.addUnsafeNonAscii(header.getKey(), value);
+                }
+            }
+        }
+        Headers okHttpHeaders = headers.build();
+        String contentType = okHttpHeaders.get("Content-Type");
+        Status status = response.getStatus();
+        long now = System.currentTimeMillis();
+        return new okhttp3.Response.Builder()
+                .request(okHttpRequest)
+                .protocol(Protocol.HTTP_1_1)
+                .code(status.getCode())
+                .message(status.getMessage() == null ? "" : status.getMessage())
+                .headers(okHttpHeaders)
+                .body(new ReplayedResponseBody(response,
+                        contentType == null ? null : MediaType.parse(contentType)))
+                .sentRequestAtMillis(now)
+                .receivedResponseAtMillis(now)
+                .build();
+    }
+
+    private static Map<String, List<String>> toHeaderMap(Headers headers) {
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        for (int i = 0; i < headers.size(); i++) {
+            map.computeIfAbsent(headers.name(i), name -> new ArrayList<>()).add(headers.value(i));
+        }
+        return map;
+    }
+
+    /**
+     * A response body over a read-only view of a recorded response body.
+     */
+    private static final class ReplayedResponseBody extends ResponseBody {
+        private final Response response;
+        private final MediaType contentType;
+        private BufferedSource source;
+
+        ReplayedResponseBody(Response response, MediaType contentType) {
+            this.response = response;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return response.getBodyBytes().remaining();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(Okio.source(response.getBodyInputStream()));
+            }
+            return source;
+        }
+    }
+}
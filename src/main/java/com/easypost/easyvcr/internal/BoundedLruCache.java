@@ -0,0 +1,112 @@
+package com.easypost.easyvcr.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe, size-bounded, least-recently-used cache with hit and miss counters.
+ *
+ * @param <K> Type of the cache keys.
+ * @param <V> Type of the cache values.
+ */
+public final class BoundedLruCache<K, V> {
+    /**
+     * The backing map, kept in access order so the eldest entry is the least recently used.
+     */
+    private final LinkedHashMap<K, V> entries;
+    /**
+     * The number of lookups that found a cached value.
+     */
+    private final AtomicLong hits = new AtomicLong();
+    /**
+     * The number of lookups that did not find a cached value.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor for BoundedLruCache.
+     *
+     * @param maxEntries The maximum number of entries to hold before evicting the least recently used one.
+     */
+    public BoundedLruCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be greater than 0");
+        }
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get a value from the cache, counting the lookup as a hit or a miss.
+     *
+     * @param key The key to look up.
+     * @return The cached value, or null if the key is not cached.
+     */
+    public V get(K key) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Store a value in the cache, evicting the least recently used entry if the cache is full.
+     *
+     * @param key   The key to store the value under.
+     * @param value The value to store.
+     */
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * Remove all entries from the cache. Hit and miss counters are left untouched.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Get the number of entries currently in the cache.
+     *
+     * @return The number of entries currently in the cache.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Get the number of lookups that found a cached value.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of lookups that did not find a cached value.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
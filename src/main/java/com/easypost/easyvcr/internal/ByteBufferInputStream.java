@@ -0,0 +1,86 @@
+package com.easypost.easyvcr.internal;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An input stream that reads from a byte buffer without copying it.
+ * The stream reads from its own view of the buffer, so many streams can share the same (read-only) buffer.
+ */
+public final class ByteBufferInputStream extends InputStream {
+    /**
+     * The view of the buffer this stream reads from.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * The position to go back to on {@link #reset()}; the start of the stream until {@link #mark(int)} is called,
+     * like {@link java.io.ByteArrayInputStream}.
+     */
+    private int markPosition;
+
+    /**
+     * Constructor for ByteBufferInputStream.
+     *
+     * @param buffer The buffer to read from. Reading starts at its current position; the buffer itself is not moved.
+     */
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        this.markPosition = this.buffer.position();
+    }
+
+    @Override
+    public int read() {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        if (n <= 0) {
+            return 0;
+        }
+        int count = (int) Math.min(n, buffer.remaining());
+        buffer.position(buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        markPosition = buffer.position();
+    }
+
+    @Override
+    public synchronized void reset() {
+        buffer.position(markPosition);
+    }
+
+    @Override
+    public void close() {
+        // nothing to release, the buffer is shared
+    }
+}
@@ -0,0 +1,118 @@
+package com.easypost.easyvcr.internal;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * An SSL socket factory that notes when TLS sockets are layered over connected sockets, so the time spent in the
+ * TLS handshake can be told apart from the time spent opening the TCP connection.
+ * <p>
+ * The JDK's HttpsURLConnection first tries to create an unconnected socket; this factory doesn't support those,
+ * so the JDK falls back to connecting a plain socket and layering the TLS socket over it right before the handshake.
+ * The time of that call is kept per thread, since the handshake happens on the thread that connects.
+ * <p>
+ * Share one instance across connections: the JDK only reuses kept-alive HTTPS connections created by the same
+ * socket factory, and TLS sessions can only be resumed within the same SSL context.
+ */
+public final class HandshakeTimingSocketFactory extends SSLSocketFactory {
+    /**
+     * The time (from {@link System#nanoTime()}) the last TLS socket was layered on each thread, or null.
+     */
+    private static final ThreadLocal<Long> HANDSHAKE_START = new ThreadLocal<>();
+
+    /**
+     * The wrapped JDK default socket factory, created on first use.
+     */
+    private static volatile HandshakeTimingSocketFactory defaultFactory;
+
+    /**
+     * The factory creating the actual sockets.
+     */
+    private final SSLSocketFactory delegate;
+
+    /**
+     * Constructor for HandshakeTimingSocketFactory.
+     *
+     * @param delegate The factory creating the actual sockets.
+     */
+    public HandshakeTimingSocketFactory(SSLSocketFactory delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate cannot be null");
+        }
+        this.delegate = delegate;
+    }
+
+    /**
+     * Get a shared timing wrapper around the JDK default HTTPS socket factory.
+     *
+     * @param jdkDefault The current JDK default HTTPS socket factory.
+     * @return The shared timing factory.
+     */
+    public static HandshakeTimingSocketFactory getDefault(SSLSocketFactory jdkDefault) {
+        HandshakeTimingSocketFactory factory = defaultFactory;
+        if (factory == null || factory.delegate != jdkDefault) {
+            // the default can be replaced at any time, in which case the wrapper needs to follow
+            factory = new HandshakeTimingSocketFactory(jdkDefault);
+            defaultFactory = factory;
+        }
+        return factory;
+    }
+
+    /**
+     * Forget any handshake recorded on the current thread. Call this right before connecting.
+     */
+    public static void clearHandshakeStart() {
+        HANDSHAKE_START.remove();
+    }
+
+    /**
+     * Get (and forget) the time the last TLS handshake started on the current thread.
+     *
+     * @return The time from {@link System#nanoTime()}, or -1 if no handshake started since the last clear
+     *     (e.g. because a kept-alive connection was reused).
+     */
+    public static long takeHandshakeStart() {
+        Long start = HANDSHAKE_START.get();
+        HANDSHAKE_START.remove();
+        return start == null ? -1 : start;
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return delegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException {
+        HANDSHAKE_START.set(System.nanoTime());
+        return delegate.createSocket(s, host, port, autoClose);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return delegate.createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return delegate.createSocket(host, port, localHost, localPort);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return delegate.createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+            throws IOException {
+        return delegate.createSocket(address, port, localAddress, localPort);
+    }
+}
@@ -0,0 +1,262 @@
+package com.easypost.easyvcr.internal;
+
+import com.easypost.easyvcr.CensorElement;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A small automaton compiled from JSON-path-like expressions, used to decide which JSON elements to censor.
+ * <p>
+ * Supported syntax:
+ * <ul>
+ *     <li>{@code $} - the root element (every expression must start with it)</li>
+ *     <li>{@code .name} or {@code ['name']} - a child key</li>
+ *     <li>{@code .*} - any child key</li>
+ *     <li>{@code [n]} - the n-th element of a list</li>
+ *     <li>{@code [*]} - any element of a list</li>
+ *     <li>{@code ..name}, {@code ..*}, {@code ..[n]} - a descendant at any depth</li>
+ * </ul>
+ * For example, {@code $.card.id} only matches the "id" key of the top-level "card" object,
+ * and {@code $.shipments[*]..id} matches every "id" key anywhere inside the elements of the "shipments" list.
+ * <p>
+ * The automaton is walked alongside the JSON tree: each key or list index moves the current set of states forward,
+ * and once that set is empty no expression can match anything below, so the whole subtree can be skipped.
+ */
+public final class JsonPathAutomaton {
+    private static final int ACCEPT = 0;
+    private static final int KEY = 1;
+    private static final int ANY_KEY = 2;
+    private static final int INDEX = 3;
+    private static final int ANY_INDEX = 4;
+
+    /**
+     * The kind of each step (one of the constants above), for every expression laid out end to end.
+     * Each expression ends with an ACCEPT step.
+     */
+    private final int[] kinds;
+    /**
+     * The key matched by each KEY step.
+     */
+    private final String[] keys;
+    /**
+     * The index matched by each INDEX step.
+     */
+    private final int[] indexes;
+    /**
+     * Whether each step may skip over any number of levels before matching (i.e. follows "..").
+     */
+    private final boolean[] descendants;
+    /**
+     * Whether each KEY step compares keys case-sensitively.
+     */
+    private final boolean[] caseSensitive;
+    /**
+     * The states at the root of the JSON tree (the first step of every expression).
+     */
+    private final BitSet initialStates;
+
+    /**
+     * Constructor for JsonPathAutomaton.
+     *
+     * @param expressions The path expressions to compile (the element value is the expression).
+     * @throws IllegalArgumentException If an expression is not valid.
+     */
+    public JsonPathAutomaton(List<CensorElement> expressions) {
+        List<int[]> parsedSteps = new ArrayList<>();
+        List<String> parsedKeys = new ArrayList<>();
+        List<Boolean> parsedCaseSensitive = new ArrayList<>();
+        initialStates = new BitSet();
+
+        for (CensorElement expression : expressions) {
+            initialStates.set(parsedSteps.size());
+            parse(expression.getValue(), expression.isCaseSensitive(), parsedSteps, parsedKeys, parsedCaseSensitive);
+        }
+
+        int size = parsedSteps.size();
+        kinds = new int[size];
+        indexes = new int[size];
+        descendants = new boolean[size];
+        keys = parsedKeys.toArray(new String[0]);
+        caseSensitive = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            int[] step = parsedSteps.get(i);
+            kinds[i] = step[0];
+            indexes[i] = step[1];
+            descendants[i] = step[2] == 1;
+            caseSensitive[i] = parsedCaseSensitive.get(i);
+        }
+    }
+
+    /**
+     * Parse a single expression, appending its steps (followed by an ACCEPT step) to the given lists.
+     */
+    private static void parse(String expression, boolean caseSensitive, List<int[]> steps, List<String> keys,
+                              List<Boolean> caseSensitivities) {
+        if (expression == null || !expression.startsWith("$")) {
+            throw new IllegalArgumentException("JSON path must start with '$': " + expression);
+        }
+
+        int position = 1;
+        int length = expression.length();
+        int firstStep = steps.size();
+        while (position < length) {
+            boolean descendant = false;
+            char c = expression.charAt(position);
+            if (c == '.') {
+                position++;
+                if (position < length && expression.charAt(position) == '.') {
+                    descendant = true;
+                    position++;
+                }
+                if (position >= length) {
+                    throw new IllegalArgumentException("JSON path ends unexpectedly: " + expression);
+                }
+                if (expression.charAt(position) == '[') {
+                    if (!descendant) {
+                        throw new IllegalArgumentException("Unexpected '.[' in JSON path: " + expression);
+                    }
+                    continue;  // "..[" is handled as a descendant bracket step below
+                }
+                int end = position;
+                while (end < length && expression.charAt(end) != '.' && expression.charAt(end) != '[') {
+                    end++;
+                }
+                String name = expression.substring(position, end);
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Empty key in JSON path: " + expression);
+                }
+                if (name.equals("*")) {
+                    addStep(steps, keys, caseSensitivities, ANY_KEY, null, 0, descendant, caseSensitive);
+                } else {
+                    addStep(steps, keys, caseSensitivities, KEY, name, 0, descendant, caseSensitive);
+                }
+                position = end;
+            } else if (c == '[') {
+                // a bracket step directly after ".." is still a descendant step
+                descendant = position >= 2 && expression.startsWith("..", position - 2);
+                int end = expression.indexOf(']', position);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed '[' in JSON path: " + expression);
+                }
+                String selector = expression.substring(position + 1, end).trim();
+                if (selector.equals("*")) {
+                    addStep(steps, keys, caseSensitivities, ANY_INDEX, null, 0, descendant, caseSensitive);
+                } else if (selector.length() >= 2 && (selector.charAt(0) == '\'' || selector.charAt(0) == '"')
+                        && selector.charAt(selector.length() - 1) == selector.charAt(0)) {
+                    String name = selector.substring(1, selector.length() - 1);
+                    addStep(steps, keys, caseSensitivities, KEY, name, 0, descendant, caseSensitive);
+                } else {
+                    int index;
+                    try {
+                        index = Integer.parseInt(selector);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid list index in JSON path: " + expression);
+                    }
+                    if (index < 0) {
+                        throw new IllegalArgumentException("Negative list index in JSON path: " + expression);
+                    }
+                    addStep(steps, keys, caseSensitivities, INDEX, null, index, descendant, caseSensitive);
+                }
+                position = end + 1;
+            } else {
+                throw new IllegalArgumentException(
+                        "Unexpected character '" + c + "' at position " + position + " in JSON path: " + expression);
+            }
+        }
+
+        if (steps.size() == firstStep) {
+            throw new IllegalArgumentException("JSON path must select at least one element: " + expression);
+        }
+        addStep(steps, keys, caseSensitivities, ACCEPT, null, 0, false, caseSensitive);
+    }
+
+    //CHECKSTYLE.OFF: ParameterNumber
+    private static void addStep(List<int[]> steps, List<String> keys, List<Boolean> caseSensitivities, int kind,
+                                String key, int index, boolean descendant, boolean caseSensitive) {
+        steps.add(new int[] { kind, index, descendant ? 1 : 0 });
+        keys.add(key);
+        caseSensitivities.add(caseSensitive);
+    }
+    //CHECKSTYLE.ON: ParameterNumber
+
+    /**
+     * Get the states at the root of the JSON tree.
+     *
+     * @return The initial states, or null if there are no expressions.
+     */
+    public BitSet initialStates() {
+        return initialStates.isEmpty() ? null : initialStates;
+    }
+
+    /**
+     * Move from a set of states to the states reached by descending into a dictionary key.
+     *
+     * @param states The current states.
+     * @param key    The key being descended into.
+     * @return The next states, or null if no expression can match anything at or below this key.
+     */
+    public BitSet stepIntoKey(BitSet states, String key) {
+        return step(states, key, -1);
+    }
+
+    /**
+     * Move from a set of states to the states reached by descending into a list element.
+     *
+     * @param states The current states.
+     * @param index  The index of the list element being descended into.
+     * @return The next states, or null if no expression can match anything at or below this element.
+     */
+    public BitSet stepIntoIndex(BitSet states, int index) {
+        return step(states, null, index);
+    }
+
+    private BitSet step(BitSet states, String key, int index) {
+        BitSet next = null;
+        for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+            int kind = kinds[state];
+            if (kind == ACCEPT) {
+                continue;
+            }
+            if (descendants[state]) {
+                // a descendant step can always keep looking deeper
+                next = set(next, state);
+            }
+            boolean matches;
+            if (key != null) {
+                matches = kind == ANY_KEY || (kind == KEY
+                        && (caseSensitive[state] ? keys[state].equals(key) : keys[state].equalsIgnoreCase(key)));
+            } else {
+                matches = kind == ANY_INDEX || (kind == INDEX && indexes[state] == index);
+            }
+            if (matches) {
+                next = set(next, state + 1);
+            }
+        }
+        return next;
+    }
+
+    private static BitSet set(BitSet bits, int index) {
+        if (bits == null) {
+            bits = new BitSet();
+        }
+        bits.set(index);
+        return bits;
+    }
+
+    /**
+     * Check whether a set of states means the current element matches at least one expression.
+     *
+     * @param states The current states.
+     * @return True if the current element should be censored.
+     */
+    public boolean accepts(BitSet states) {
+        for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+            if (kinds[state] == ACCEPT) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
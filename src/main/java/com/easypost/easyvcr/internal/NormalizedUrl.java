@@ -0,0 +1,343 @@
+package com.easypost.easyvcr.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A URL parsed once into offsets over the original string.
+ * <p>
+ * Unlike {@link java.net.URI}, nothing is decoded or copied up front; each component is only extracted
+ * (or compared in place) when it is asked for. Parsing is lenient: anything that is not recognized as a scheme or
+ * an authority is treated as part of the path.
+ */
+public final class NormalizedUrl {
+    /**
+     * The original URL string.
+     */
+    private final String url;
+    /**
+     * End of the scheme (index of the ':'), or -1 if there is no scheme.
+     */
+    private final int schemeEnd;
+    /**
+     * Start of the authority (after "//"), or -1 if there is no authority.
+     */
+    private final int authorityStart;
+    /**
+     * Start of the host within the authority (after any user info).
+     */
+    private final int hostStart;
+    /**
+     * End of the host within the authority (before any port).
+     */
+    private final int hostEnd;
+    /**
+     * The port, or -1 if there is no port.
+     */
+    private final int port;
+    /**
+     * Start of the path (also the end of the authority).
+     */
+    private final int pathStart;
+    /**
+     * End of the path.
+     */
+    private final int pathEnd;
+    /**
+     * Start of the query (after the '?'), or -1 if there is no query.
+     */
+    private final int queryStart;
+    /**
+     * End of the query.
+     */
+    private final int queryEnd;
+    /**
+     * The decoded query parameters, parsed on first use.
+     */
+    private QueryParameters queryParameters;
+
+    private NormalizedUrl(String url) {
+        this.url = url;
+        int length = url.length();
+
+        // scheme: letters, digits, '+', '-' and '.', ending with ':' before any '/', '?' or '#'
+        int position = 0;
+        int foundSchemeEnd = -1;
+        for (int i = 0; i < length; i++) {
+            char c = url.charAt(i);
+            if (c == ':') {
+                foundSchemeEnd = i > 0 ? i : -1;
+                break;
+            }
+            boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            boolean other = (c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.';
+            if (!letter && (i == 0 || !other)) {
+                break;
+            }
+        }
+        schemeEnd = foundSchemeEnd;
+        if (schemeEnd > 0) {
+            position = schemeEnd + 1;
+        }
+
+        // authority: after "//", up to the next '/', '?' or '#'
+        if (position + 1 < length && url.charAt(position) == '/' && url.charAt(position + 1) == '/') {
+            authorityStart = position + 2;
+            int authorityEnd = authorityStart;
+            int userInfoEnd = -1;
+            int portSeparator = -1;
+            for (; authorityEnd < length; authorityEnd++) {
+                char c = url.charAt(authorityEnd);
+                if (c == '/' || c == '?' || c == '#') {
+                    break;
+                } else if (c == '@') {
+                    userInfoEnd = authorityEnd;
+                    portSeparator = -1;
+                } else if (c == ':') {
+                    portSeparator = authorityEnd;
+                } else if (c == ']') {
+                    // a ':' inside an IPv6 literal is not a port separator
+                    portSeparator = -1;
+                }
+            }
+            hostStart = userInfoEnd >= 0 ? userInfoEnd + 1 : authorityStart;
+            if (portSeparator >= 0) {
+                hostEnd = portSeparator;
+                port = parsePort(url, portSeparator + 1, authorityEnd);
+            } else {
+                hostEnd = authorityEnd;
+                port = -1;
+            }
+            position = authorityEnd;
+        } else {
+            authorityStart = -1;
+            hostStart = position;
+            hostEnd = position;
+            port = -1;
+        }
+
+        // path: up to the '?' or '#'
+        pathStart = position;
+        int querySeparator = url.indexOf('?', position);
+        int fragmentStart = url.indexOf('#', position);
+        if (fragmentStart >= 0 && querySeparator > fragmentStart) {
+            // a '?' inside the fragment doesn't start a query
+            querySeparator = -1;
+        }
+        pathEnd = querySeparator >= 0 ? querySeparator : fragmentStart >= 0 ? fragmentStart : length;
+
+        // query: after the '?', up to the '#'
+        if (querySeparator >= 0) {
+            queryStart = querySeparator + 1;
+            queryEnd = fragmentStart < 0 ? length : fragmentStart;
+        } else {
+            queryStart = -1;
+            queryEnd = -1;
+        }
+    }
+
+    /**
+     * Parse a URL string.
+     *
+     * @param url The URL string to parse.
+     * @return The parsed URL.
+     */
+    public static NormalizedUrl parse(String url) {
+        if (url == null) {
+            throw new IllegalArgumentException("URL cannot be null");
+        }
+        return new NormalizedUrl(url);
+    }
+
+    private static int parsePort(String url, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(url.charAt(i), 10);
+            if (digit < 0 || value > 65535) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Get the original URL string.
+     *
+     * @return The original URL string.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Get the scheme of the URL.
+     *
+     * @return The scheme, or null if there is no scheme.
+     */
+    public String getScheme() {
+        return schemeEnd < 0 ? null : url.substring(0, schemeEnd);
+    }
+
+    /**
+     * Get the host of the URL.
+     *
+     * @return The host, or null if there is no authority.
+     */
+    public String getHost() {
+        return authorityStart < 0 ? null : url.substring(hostStart, hostEnd);
+    }
+
+    /**
+     * Get the port of the URL.
+     *
+     * @return The port, or -1 if there is no port.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Get the raw (still encoded) path of the URL.
+     *
+     * @return The raw path, or an empty string if there is no path.
+     */
+    public String getRawPath() {
+        return url.substring(pathStart, pathEnd);
+    }
+
+    /**
+     * Get the raw (still encoded) query of the URL, without the leading '?'.
+     *
+     * @return The raw query, or null if there is no query.
+     */
+    public String getRawQuery() {
+        return queryStart < 0 ? null : url.substring(queryStart, queryEnd);
+    }
+
+    /**
+     * Get the decoded query parameters of the URL.
+     * The query is only parsed once, however many times this is called.
+     *
+     * @return A sorted, immutable view of the query parameters.
+     */
+    public QueryParameters getQueryParameters() {
+        QueryParameters parameters = queryParameters;
+        if (parameters == null) {
+            parameters = QueryParameters.parse(getRawQuery());
+            queryParameters = parameters;
+        }
+        return parameters;
+    }
+
+    /**
+     * Get the start of the query within the original URL string.
+     *
+     * @return The index of the first character after the '?', or -1 if there is no query.
+     */
+    public int getQueryStart() {
+        return queryStart;
+    }
+
+    /**
+     * Get the end of the query within the original URL string.
+     *
+     * @return The index after the last character of the query, or -1 if there is no query.
+     */
+    public int getQueryEnd() {
+        return queryEnd;
+    }
+
+    /**
+     * Get the authority and path of the URL, i.e. the URL without its scheme, query and fragment.
+     *
+     * @return The authority and path.
+     */
+    public String getAuthorityAndPath() {
+        return url.substring(authorityStart < 0 ? pathStart : authorityStart, pathEnd);
+    }
+
+    /**
+     * Get the fragment of the URL, including the leading '#'.
+     *
+     * @return The fragment, or an empty string if there is no fragment.
+     */
+    public String getFragmentWithSeparator() {
+        int fragmentStart = url.indexOf('#', queryStart < 0 ? pathEnd : queryEnd);
+        return fragmentStart < 0 ? "" : url.substring(fragmentStart);
+    }
+
+    /**
+     * Check if the scheme, host, port and path of this URL match another URL, ignoring case.
+     * Nothing is copied; the components are compared in place. Paths containing percent-escapes are decoded
+     * before comparing, like {@link java.net.URI#getPath()}, so "/a%7Eb" matches "/a~b".
+     *
+     * @param other The URL to compare against.
+     * @return True if the base URLs match.
+     */
+    public boolean baseUrlEqualsIgnoreCase(NormalizedUrl other) {
+        // the path is the most likely to differ, so compare it first
+        return port == other.port
+                && pathEqualsIgnoreCase(other)
+                && regionEqualsIgnoreCase(hostStart, hostEnd, other, other.hostStart, other.hostEnd)
+                && (authorityStart < 0) == (other.authorityStart < 0)
+                && regionEqualsIgnoreCase(0, Math.max(schemeEnd, 0), other, 0, Math.max(other.schemeEnd, 0));
+    }
+
+    private boolean pathEqualsIgnoreCase(NormalizedUrl other) {
+        if (regionEqualsIgnoreCase(pathStart, pathEnd, other, other.pathStart, other.pathEnd)) {
+            return true;
+        }
+        // only an escaped path can still match once decoded
+        if (!hasEscape(url, pathStart, pathEnd) && !hasEscape(other.url, other.pathStart, other.pathEnd)) {
+            return false;
+        }
+        return decodePath(url, pathStart, pathEnd).equalsIgnoreCase(decodePath(other.url, other.pathStart,
+                other.pathEnd));
+    }
+
+    private static boolean hasEscape(String raw, int start, int end) {
+        int escape = raw.indexOf('%', start);
+        return escape >= 0 && escape < end;
+    }
+
+    /**
+     * Decode "%XX" escapes in part of a raw path as UTF-8 bytes. Unlike query decoding, "+" is kept as-is.
+     * Malformed escapes are kept as-is.
+     */
+    private static String decodePath(String raw, int start, int end) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(end - start);
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c == '%' && i + 2 < end) {
+                int high = Character.digit(raw.charAt(i + 1), 16);
+                int low = Character.digit(raw.charAt(i + 2), 16);
+                if (high != -1 && low != -1) {
+                    bytes.write((high << 4) + low);
+                    i += 2;
+                    continue;
+                }
+                bytes.write('%');
+            } else if (c < 0x80) {
+                bytes.write(c);
+            } else {
+                byte[] encoded = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                bytes.write(encoded, 0, encoded.length);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private boolean regionEqualsIgnoreCase(int start, int end, NormalizedUrl other, int otherStart, int otherEnd) {
+        int length = end - start;
+        return length == otherEnd - otherStart && url.regionMatches(true, start, other.url, otherStart, length);
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -0,0 +1,143 @@
+package com.easypost.easyvcr.internal;
+
+import com.easypost.easyvcr.VirtualClock;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An input stream that delivers the bytes of another stream no faster than they were originally received,
+ * spreading a known transfer time evenly over the length of the stream.
+ * <p>
+ * Reads are cut into small chunks, and each chunk is held back until the time it would have arrived at;
+ * with a {@link VirtualClock}, the clock is advanced instead of waiting.
+ */
+public final class PacedInputStream extends FilterInputStream {
+    /**
+     * The smallest chunk handed out by a single read.
+     */
+    private static final int MIN_CHUNK = 1024;
+    /**
+     * The number of chunks a stream is cut into, at most (unless that would make the chunks smaller than the minimum).
+     */
+    private static final int STEPS = 64;
+
+    /**
+     * The length of the stream, in bytes.
+     */
+    private final long length;
+    /**
+     * The time it takes to deliver the whole stream, in nanoseconds.
+     */
+    private final long transferNanos;
+    /**
+     * The virtual clock to advance instead of waiting, or null to wait in real time.
+     */
+    private final VirtualClock virtualClock;
+    /**
+     * The largest number of bytes handed out by a single read.
+     */
+    private final int chunk;
+    /**
+     * When the stream was created, in {@link System#nanoTime()} units.
+     */
+    private final long startNanos = System.nanoTime();
+    /**
+     * The number of bytes delivered so far.
+     */
+    private long delivered;
+    /**
+     * The time the virtual clock has been advanced by so far, in nanoseconds.
+     */
+    private long advancedNanos;
+
+    /**
+     * Constructor for PacedInputStream.
+     *
+     * @param source        The stream to read from.
+     * @param length        The length of the stream, in bytes.
+     * @param transferNanos The time it takes to deliver the whole stream, in nanoseconds.
+     * @param clock         The clock in use; a {@link VirtualClock} is advanced instead of waiting.
+     */
+    public PacedInputStream(InputStream source, long length, long transferNanos, Clock clock) {
+        super(source);
+        this.length = length;
+        this.transferNanos = transferNanos;
+        this.virtualClock = clock instanceof VirtualClock ? (VirtualClock) clock : null;
+        this.chunk = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_CHUNK, length / STEPS));
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            delivered(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int count = in.read(b, off, Math.min(len, chunk));
+        if (count > 0) {
+            delivered(count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(Math.min(n, chunk));
+        if (skipped > 0) {
+            delivered(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // not supported, a reset would deliver the same bytes twice
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Hold the caller back until the bytes delivered so far would have arrived.
+     *
+     * @param count The number of bytes just delivered.
+     * @throws InterruptedIOException If the thread is interrupted while waiting.
+     */
+    private void delivered(long count) throws InterruptedIOException {
+        delivered += count;
+        long due = length <= 0 ? transferNanos : (long) ((double) transferNanos * Math.min(delivered, length) / length);
+        if (virtualClock != null) {
+            if (due > advancedNanos) {
+                virtualClock.advance(due - advancedNanos, TimeUnit.NANOSECONDS);
+                advancedNanos = due;
+            }
+            return;
+        }
+        long wait = startNanos + due - System.nanoTime();
+        if (wait <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while pacing a replayed response body");
+        }
+    }
+}
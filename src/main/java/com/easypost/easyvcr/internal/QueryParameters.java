@@ -0,0 +1,387 @@
+package com.easypost.easyvcr.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An immutable, array-backed view of the parameters of a raw query string, sorted by name.
+ * <p>
+ * Parameters are kept as offsets into the raw query string. A name or value is only decoded if it actually
+ * contains a '%' or a '+'; names are decoded up front (they are needed for sorting), values on first access.
+ * If a name appears more than once, the last occurrence wins.
+ * <p>
+ * Two views are equal if they have the same decoded names and values, regardless of parameter order or encoding,
+ * and can be compared and hashed without building any intermediate collections.
+ */
+public final class QueryParameters {
+    /**
+     * A view with no parameters.
+     */
+    public static final QueryParameters EMPTY = new QueryParameters("", new String[0], new int[0], 0);
+
+    /**
+     * The raw query string.
+     */
+    private final String query;
+    /**
+     * The string each name is read from: the raw query if the name isn't encoded, otherwise the decoded name.
+     */
+    private final String[] nameSources;
+    /**
+     * Per parameter, in sorted order: name start, name end, value start and value end.
+     * Name offsets are into the matching name source, value offsets are into the raw query.
+     */
+    private final int[] spans;
+    /**
+     * Decoded values, filled in on first access (only used for values that are encoded).
+     */
+    private final String[] decodedValues;
+    /**
+     * The number of parameters.
+     */
+    private final int size;
+    /**
+     * Cached hash code, or 0 if not computed yet.
+     */
+    private int hash;
+
+    private QueryParameters(String query, String[] nameSources, int[] spans, int size) {
+        this.query = query;
+        this.nameSources = nameSources;
+        this.spans = spans;
+        this.size = size;
+        this.decodedValues = new String[size];
+    }
+
+    /**
+     * Parse a raw query string.
+     *
+     * @param rawQuery The raw (still encoded) query string, without the leading '?'.
+     * @return The sorted view of the query parameters.
+     */
+    public static QueryParameters parse(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return EMPTY;
+        }
+
+        // first pass: count the parameters, so the arrays only need to be allocated once
+        int length = rawQuery.length();
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            char c = rawQuery.charAt(i);
+            if (c == '&' || c == ';') {
+                count++;
+            }
+        }
+
+        String[] nameSources = new String[count];
+        int[] spans = new int[count * 4];
+        int size = 0;
+        int parameterStart = 0;
+        while (parameterStart <= length) {
+            int parameterEnd = parameterStart;
+            int separator = -1;
+            for (; parameterEnd < length; parameterEnd++) {
+                char c = rawQuery.charAt(parameterEnd);
+                if (c == '&' || c == ';') {
+                    break;
+                } else if (c == '=' && separator < 0) {
+                    separator = parameterEnd;
+                }
+            }
+            if (parameterEnd > parameterStart) {
+                // skip empty parameters (e.g. "a=1&&b=2" or a trailing '&')
+                int nameEnd = separator < 0 ? parameterEnd : separator;
+                int valueStart = separator < 0 ? parameterEnd : separator + 1;
+                int offset = size * 4;
+                if (needsDecoding(rawQuery, parameterStart, nameEnd)) {
+                    String name = decode(rawQuery, parameterStart, nameEnd);
+                    nameSources[size] = name;
+                    spans[offset] = 0;
+                    spans[offset + 1] = name.length();
+                } else {
+                    nameSources[size] = rawQuery;
+                    spans[offset] = parameterStart;
+                    spans[offset + 1] = nameEnd;
+                }
+                spans[offset + 2] = valueStart;
+                spans[offset + 3] = parameterEnd;
+                size++;
+            }
+            parameterStart = parameterEnd + 1;
+        }
+
+        if (size == 0) {
+            return EMPTY;
+        }
+        return sortAndRemoveDuplicates(rawQuery, nameSources, spans, size);
+    }
+
+    /**
+     * Sort the parameters by name (stable, so duplicates keep their original order) and keep only the last
+     * occurrence of each name.
+     */
+    private static QueryParameters sortAndRemoveDuplicates(String rawQuery, String[] nameSources, int[] spans,
+                                                           int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[size], 0, size, nameSources, spans);
+
+        String[] sortedNameSources = new String[size];
+        int[] sortedSpans = new int[size * 4];
+        int sortedSize = 0;
+        for (int i = 0; i < size; i++) {
+            int parameter = order[i];
+            if (i + 1 < size && compareNames(nameSources, spans, parameter, order[i + 1]) == 0) {
+                // a later parameter has the same name, and the last one wins
+                continue;
+            }
+            sortedNameSources[sortedSize] = nameSources[parameter];
+            System.arraycopy(spans, parameter * 4, sortedSpans, sortedSize * 4, 4);
+            sortedSize++;
+        }
+        return new QueryParameters(rawQuery, sortedNameSources, sortedSpans, sortedSize);
+    }
+
+    private static void mergeSort(int[] order, int[] scratch, int from, int to, String[] nameSources, int[] spans) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(order, scratch, from, middle, nameSources, spans);
+        mergeSort(order, scratch, middle, to, nameSources, spans);
+        if (compareNames(nameSources, spans, order[middle - 1], order[middle]) <= 0) {
+            // already in order
+            return;
+        }
+        System.arraycopy(order, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            boolean takeLeft = right >= to
+                    || (left < middle && compareNames(nameSources, spans, scratch[left], scratch[right]) <= 0);
+            if (takeLeft) {
+                order[i] = scratch[left++];
+            } else {
+                order[i] = scratch[right++];
+            }
+        }
+    }
+
+    private static int compareNames(String[] nameSources, int[] spans, int a, int b) {
+        return compareRegions(nameSources[a], spans[a * 4], spans[a * 4 + 1],
+                nameSources[b], spans[b * 4], spans[b * 4 + 1]);
+    }
+
+    private static int compareRegions(String a, int aStart, int aEnd, String b, int bStart, int bEnd) {
+        int aLength = aEnd - aStart;
+        int bLength = bEnd - bStart;
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            int difference = a.charAt(aStart + i) - b.charAt(bStart + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    private static boolean needsDecoding(String raw, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c == '%' || c == '+') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decode part of a raw query string ("+" as a space, "%XX" as a UTF-8 byte).
+     * Malformed escapes are kept as-is. Nothing is allocated beyond the returned string if there is nothing
+     * to decode.
+     *
+     * @param raw   The raw query string.
+     * @param start Start of the part to decode.
+     * @param end   End of the part to decode.
+     * @return The decoded part.
+     */
+    public static String decode(String raw, int start, int end) {
+        if (!needsDecoding(raw, start, end)) {
+            return raw.substring(start, end);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(end - start);
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c == '%' && i + 2 < end) {
+                int high = Character.digit(raw.charAt(i + 1), 16);
+                int low = Character.digit(raw.charAt(i + 2), 16);
+                if (high != -1 && low != -1) {
+                    bytes.write((high << 4) + low);
+                    i += 2;
+                    continue;
+                }
+                bytes.write('%');
+            } else if (c == '+') {
+                bytes.write(' ');
+            } else if (c < 0x80) {
+                bytes.write(c);
+            } else {
+                byte[] encoded = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                bytes.write(encoded, 0, encoded.length);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the number of parameters.
+     *
+     * @return The number of parameters.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the decoded name of a parameter.
+     *
+     * @param index The index of the parameter, in sorted order.
+     * @return The decoded name.
+     */
+    public String getName(int index) {
+        int offset = index * 4;
+        return nameSources[index].substring(spans[offset], spans[offset + 1]);
+    }
+
+    /**
+     * Get the decoded value of a parameter.
+     *
+     * @param index The index of the parameter, in sorted order.
+     * @return The decoded value (an empty string if the parameter has no value).
+     */
+    public String getValue(int index) {
+        String value = decodedValues[index];
+        if (value == null) {
+            int offset = index * 4;
+            value = decode(query, spans[offset + 2], spans[offset + 3]);
+            decodedValues[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Find a parameter by its decoded name.
+     *
+     * @param name The decoded name to look for.
+     * @return The index of the parameter, or a negative number if there is no such parameter.
+     */
+    public int indexOf(String name) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareRegions(nameSources[middle], spans[middle * 4], spans[middle * 4 + 1],
+                    name, 0, name.length());
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Get the decoded value of a parameter by its decoded name.
+     *
+     * @param name The decoded name to look for.
+     * @return The decoded value, or null if there is no such parameter.
+     */
+    public String get(String name) {
+        int index = indexOf(name);
+        return index < 0 ? null : getValue(index);
+    }
+
+    /**
+     * Check if both views have exactly the same parameter names, ignoring values.
+     *
+     * @param other The view to compare against.
+     * @return True if both views have the same parameter names.
+     */
+    public boolean hasSameNames(QueryParameters other) {
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            int offset = i * 4;
+            if (compareRegions(nameSources[i], spans[offset], spans[offset + 1],
+                    other.nameSources[i], other.spans[offset], other.spans[offset + 1]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy the parameters into a map, in sorted order.
+     *
+     * @return A new, modifiable map of decoded names to decoded values.
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> map = new LinkedHashMap<>(Math.max(16, size * 2));
+        for (int i = 0; i < size; i++) {
+            map.put(getName(i), getValue(i));
+        }
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof QueryParameters)) {
+            return false;
+        }
+        QueryParameters other = (QueryParameters) obj;
+        if (!hasSameNames(other)) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!getValue(i).equals(other.getValue(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0 && size > 0) {
+            result = 1;
+            for (int i = 0; i < size; i++) {
+                int offset = i * 4;
+                String source = nameSources[i];
+                for (int j = spans[offset]; j < spans[offset + 1]; j++) {
+                    result = 31 * result + source.charAt(j);
+                }
+                result = 31 * result + getValue(i).hashCode();
+            }
+            hash = result;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -0,0 +1,152 @@
+package com.easypost.easyvcr.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that passes the bytes of another stream through to the reader while keeping a copy of them.
+ * When the stream is closed, whatever the reader skipped or didn't read yet is drained into the copy,
+ * and the complete copy is handed to a listener exactly once.
+ * The stream also times how long reads of the underlying stream were blocked until it delivered all of its bytes,
+ * leaving out the time the reader spent between reads.
+ */
+public final class TeeInputStream extends FilterInputStream {
+    /**
+     * Listener notified with the captured bytes once the stream is closed.
+     */
+    public interface CloseListener {
+        /**
+         * Called once the stream has been closed.
+         *
+         * @param captured All bytes of the underlying stream.
+         * @throws IOException If the captured bytes could not be processed.
+         */
+        void onClose(byte[] captured) throws IOException;
+    }
+
+    /**
+     * The copy of every byte read from the underlying stream.
+     */
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    /**
+     * The listener to notify once the stream is closed.
+     */
+    private final CloseListener listener;
+    /**
+     * Whether the stream has been closed.
+     */
+    private boolean closed;
+    /**
+     * The time spent in reads of the underlying stream, in nanoseconds.
+     */
+    private long readNanos;
+    /**
+     * Whether the end of the underlying stream was reached.
+     */
+    private boolean endOfStream;
+
+    /**
+     * Constructor for TeeInputStream.
+     *
+     * @param source   The stream to read from.
+     * @param listener The listener to notify with the captured bytes once the stream is closed.
+     */
+    public TeeInputStream(InputStream source, CloseListener listener) {
+        super(source);
+        this.listener = listener;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = in.read();
+        readNanos += System.nanoTime() - start;
+        if (b != -1) {
+            captured.write(b);
+        } else {
+            endOfStream = true;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        int count = in.read(b, off, len);
+        readNanos += System.nanoTime() - start;
+        if (count > 0) {
+            captured.write(b, off, count);
+        } else if (count < 0) {
+            endOfStream = true;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // skipped bytes still need to be captured, so read them instead
+        byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (count < 0) {
+                break;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // not supported, a reset would capture the same bytes twice
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Check whether the stream has been closed (and the listener notified).
+     *
+     * @return True if the stream has been closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Get the time spent waiting for the underlying stream to deliver its bytes, until its end was reached
+     * (by the reader, or by draining the stream when it was closed).
+     *
+     * @return The transfer time, in nanoseconds, or -1 if the end of the stream hasn't been reached yet.
+     */
+    public long getTransferNanos() {
+        return endOfStream ? readNanos : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            byte[] buffer = new byte[8192];
+            while (!endOfStream) {
+                read(buffer, 0, buffer.length);
+            }
+        } finally {
+            in.close();
+        }
+        listener.onClose(captured.toByteArray());
+    }
+}
@@ -3,7 +3,11 @@ package com.easypost.easyvcr.internal;
 import com.easypost.easyvcr.AdvancedSettings;
 import com.easypost.easyvcr.CensorElement;
 import com.easypost.easyvcr.Censors;
+import com.easypost.easyvcr.VirtualClock;
 import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.LatencyDistribution;
+import com.easypost.easyvcr.requestelements.Response;
+import com.easypost.easyvcr.requestelements.Timings;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
@@ -14,13 +18,17 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Internal tools for EasyVCR.
@@ -60,6 +68,55 @@ public abstract class Utilities {
         return Base64.getEncoder().encodeToString(input.getBytes());
     }
 
+    /**
+     * Get the hex-encoded SHA-256 digest of one or more strings.
+     * Each string is followed by a NUL separator, so ("ab", "c") and ("a", "bc") produce different digests.
+     *
+     * @param inputs The strings to hash.
+     * @return The hex-encoded SHA-256 digest of the strings.
+     */
+    public static String toSha256String(String... inputs) {
+        MessageDigest digest = newSha256Digest();
+        for (String input : inputs) {
+            if (input != null) {
+                digest.update(input.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+        }
+        return toHexString(digest.digest());
+    }
+
+    /**
+     * Get the SHA-256 hash of the remaining bytes of a buffer, as a hex string.
+     * The position of the buffer is not changed.
+     *
+     * @param input The bytes to hash.
+     * @return The SHA-256 hash of the bytes, as a hex string.
+     */
+    public static String toSha256String(ByteBuffer input) {
+        MessageDigest digest = newSha256Digest();
+        digest.update(input.duplicate());
+        return toHexString(digest.digest());
+    }
+
+    private static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHexString(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit(b >> 4 & 15, 16));
+            hex.append(Character.forDigit(b & 15, 16));
+        }
+        return hex.toString();
+    }
+
     /**
      * Create an input stream from a string.
      *
@@ -167,32 +224,114 @@ public abstract class Utilities {
      * @return The Map of query parameters.
      */
     public static Map<String, String> queryParametersToMap(URI uri) {
-        List<ApachePatch.NameValuePair> receivedQueryDict =
-                ApachePatch.URLEncodedUtils.parse(uri, StandardCharsets.UTF_8);
-        if (receivedQueryDict == null || receivedQueryDict.size() == 0) {
+        return queryParametersToMap(uri.getRawQuery());
+    }
+
+    /**
+     * Convert a raw query string to a Map.
+     *
+     * @param rawQuery The raw (still encoded) query string, without the leading '?'.
+     * @return The Map of query parameters.
+     */
+    public static Map<String, String> queryParametersToMap(String rawQuery) {
+        QueryParameters queryParameters = QueryParameters.parse(rawQuery);
+        if (queryParameters.size() == 0) {
             return Collections.emptyMap();
         }
-        Map<String, String> queryDict = new java.util.Hashtable<>();
-        for (ApachePatch.NameValuePair pair : receivedQueryDict) {
-            queryDict.put(pair.getName(), pair.getValue());
-        }
-        return queryDict;
+        return queryParameters.toMap();
     }
 
     /**
-     * Sleep the current thread for a specified number of milliseconds.
+     * Sleep the current thread for the simulated delay of a replayed interaction
+     * (or advance the virtual clock by it, if one is set).
      *
-     * @param interaction      The interaction used to determine the number of milliseconds to sleep.
-     * @param advancedSettings The advanced settings used to determine the number of milliseconds to sleep.
+     * @param interaction      The interaction used to determine the delay.
+     * @param advancedSettings The advanced settings used to determine the delay.
      * @throws InterruptedException If the thread is interrupted.
      */
     public static void simulateDelay(HttpInteraction interaction, AdvancedSettings advancedSettings)
             throws InterruptedException {
+        long delay = startDelay(interaction, advancedSettings);
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    /**
+     * Start the simulated delay of a replayed interaction: the recorded duration (plus the recorded connect time,
+     * if any) if delays are simulated, the manual delay otherwise, scaled by the delay scale.
+     * If the interaction was recorded more than once, the duration is drawn from the latencies of all takes.
+     * With a virtual clock, the clock is advanced by the delay and there is nothing left to wait for.
+     *
+     * @param interaction      The interaction used to determine the delay.
+     * @param advancedSettings The advanced settings used to determine the delay.
+     * @return The time to wait in real time, in nanoseconds.
+     */
+    public static long startDelay(HttpInteraction interaction, AdvancedSettings advancedSettings) {
+        long delayMillis = advancedSettings.manualDelay;
         if (advancedSettings.simulateDelay) {
-            Thread.sleep(interaction.getDuration());
-        } else {
-            Thread.sleep(advancedSettings.manualDelay);
+            Timings timings = interaction.getTimings();
+            LatencyDistribution latency = interaction.getLatency();
+            long duration = latency == null ? interaction.getDuration() : latency.sample(advancedSettings.random);
+            delayMillis = duration + (timings == null ? 0 : Math.max(timings.getConnect(), 0));
+        }
+        return startDelay(delayMillis, advancedSettings);
+    }
+
+    /**
+     * Start a simulated delay, scaled by the delay scale.
+     * With a virtual clock, the clock is advanced by the delay and there is nothing left to wait for.
+     *
+     * @param delayMillis      The delay, in milliseconds.
+     * @param advancedSettings The advanced settings used to scale the delay.
+     * @return The time to wait in real time, in nanoseconds.
+     */
+    public static long startDelay(long delayMillis, AdvancedSettings advancedSettings) {
+        if (delayMillis <= 0 || advancedSettings.delayScale <= 0) {
+            return 0;
+        }
+        long delay = (long) (TimeUnit.MILLISECONDS.toNanos(delayMillis) * advancedSettings.delayScale);
+        if (advancedSettings.clock instanceof VirtualClock) {
+            ((VirtualClock) advancedSettings.clock).advance(delay, TimeUnit.NANOSECONDS);
+            return 0;
+        }
+        return delay;
+    }
+
+    /**
+     * Sleep the current thread for a simulated delay (or advance the virtual clock by it, if one is set).
+     *
+     * @param delayMillis      The delay, in milliseconds, before scaling.
+     * @param advancedSettings The advanced settings used to scale the delay.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    public static void simulateDelay(long delayMillis, AdvancedSettings advancedSettings)
+            throws InterruptedException {
+        long delay = startDelay(delayMillis, advancedSettings);
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    /**
+     * Get the response body of a replayed interaction as a stream. If delays are simulated and the time it took to
+     * receive the body was recorded, the stream delivers the body at the recorded rate (scaled by the delay scale).
+     *
+     * @param interaction      The replayed interaction.
+     * @param advancedSettings The advanced settings used to determine the pace.
+     * @return The stream of the response body.
+     */
+    public static InputStream replayResponseBody(HttpInteraction interaction, AdvancedSettings advancedSettings) {
+        Response response = interaction.getResponse();
+        Timings timings = interaction.getTimings();
+        if (!advancedSettings.simulateDelay || timings == null || timings.getTransfer() <= 0
+                || advancedSettings.delayScale <= 0) {
+            return response.getBodyInputStream();
         }
+        ByteBuffer body = response.getBodyBytes();
+        long transfer = (long) (TimeUnit.MILLISECONDS.toNanos(timings.getTransfer()) * advancedSettings.delayScale);
+        return new PacedInputStream(new ByteBufferInputStream(body), body.remaining(), transfer,
+                advancedSettings.clock);
     }
 
     /**
@@ -234,25 +373,6 @@ public abstract class Utilities {
      * @return The path.
      */
     public static String extractPathFromUri(URI uri) {
-        String uriString = uri.toString();
-
-        // strip the query parameters
-        // wrapping in a try-catch because getQuery might return null
-        try {
-            String query = uri.getQuery();
-            if (query != null) {
-                uriString = uriString.replace(query, "");
-            }
-        } catch (NullPointerException ignored) {
-        }
-
-        if (uriString.endsWith("?")) {
-            uriString = uriString.substring(0, uriString.length() - 1);
-        }
-
-        // strip the scheme
-        uriString = uriString.replace(uri.getScheme() + "://", "");
-
-        return uriString;
+        return NormalizedUrl.parse(uri.toString()).getAuthorityAndPath();
     }
 }
@@ -44,4 +44,26 @@ public abstract class Serialization {
         Gson gson = new GsonBuilder().setPrettyPrinting().serializeNulls().create();
         return gson.toJson(object);
     }
+
+    /**
+     * Convert an object to a JSON element.
+     *
+     * @param object Object to convert
+     * @return JSON element
+     */
+    public static JsonElement convertObjectToJsonTree(Object object) {
+        Gson gson = new GsonBuilder().serializeNulls().create();
+        return gson.toJsonTree(object);
+    }
+
+    /**
+     * Convert a JSON element to a JSON string.
+     *
+     * @param json JSON element
+     * @return JSON string
+     */
+    public static String convertJsonTreeToJson(JsonElement json) {
+        Gson gson = new GsonBuilder().setPrettyPrinting().serializeNulls().create();
+        return gson.toJson(json);
+    }
 }
@@ -0,0 +1,358 @@
+package com.easypost.easyvcr.load;
+
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Request;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generates load on a target server by sending the requests recorded in one or more cassettes to it,
+ * so recordings can be used as realistic load profiles.
+ * <p>
+ * Requests are sent open-loop: each request is sent at its scheduled time (the time it was recorded at,
+ * relative to the first interaction of its cassette, scaled by the time scale), whether or not earlier requests
+ * have been answered. Concurrency only limits the number of requests in flight; requests that can't be sent at
+ * their scheduled time wait for a free connection. Latencies are measured from the scheduled time, so waiting
+ * counts toward them and a slow server can't hide its slowness by slowing down the load.
+ * <p>
+ * Each response is compared with the recorded response: the status code, and (optionally) the body byte for byte.
+ * Recordings only keep the second they were recorded at, so interactions recorded within the same second are
+ * sent together.
+ */
+public final class LoadGenerator {
+    /**
+     * The maximum number of mismatch descriptions kept in the report.
+     */
+    private static final int MAX_MISMATCH_SAMPLES = 10;
+    /**
+     * Request headers the connection sets itself, which aren't sent from the recording.
+     */
+    private static final String[] CONNECTION_HEADERS =
+            {"Host", "Content-Length", "Transfer-Encoding", "Connection", "Keep-Alive"};
+
+    /**
+     * The cassettes to send the requests of.
+     */
+    private final Cassette[] cassettes;
+    /**
+     * The scheme, host and port requests are sent to.
+     */
+    private final String target;
+    private int concurrency = Runtime.getRuntime().availableProcessors() * 4;
+    private double timeScale = 1.0;
+    private boolean compareBodies = true;
+    private int timeoutMillis = 30000;
+
+    /**
+     * Constructor for LoadGenerator.
+     *
+     * @param target    The base URL to send requests to (e.g. "http://localhost:8080"); the recorded path and
+     *                  query of each request are appended to it.
+     * @param cassettes The cassettes to send the requests of.
+     */
+    public LoadGenerator(String target, Cassette... cassettes) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target cannot be null");
+        }
+        if (cassettes == null || cassettes.length == 0) {
+            throw new IllegalArgumentException("At least one cassette is required");
+        }
+        this.target = target.endsWith("/") ? target.substring(0, target.length() - 1) : target;
+        this.cassettes = cassettes.clone();
+    }
+
+    /**
+     * Set the maximum number of requests in flight at once.
+     *
+     * @param concurrency The maximum number of requests in flight (four per processor by default).
+     * @return This LoadGenerator.
+     */
+    public LoadGenerator concurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Scale the recorded gaps between requests.
+     *
+     * @param timeScale 1 to keep the recorded gaps (default), 0.5 to send requests twice as fast,
+     *                  0 to send all requests at once.
+     * @return This LoadGenerator.
+     */
+    public LoadGenerator timeScale(double timeScale) {
+        if (timeScale < 0 || Double.isNaN(timeScale) || Double.isInfinite(timeScale)) {
+            throw new IllegalArgumentException("Time scale must be a finite number of at least 0");
+        }
+        this.timeScale = timeScale;
+        return this;
+    }
+
+    /**
+     * Set whether to compare response bodies with the recorded bodies (on by default).
+     * Status codes are always compared.
+     *
+     * @param compareBodies Whether to compare response bodies.
+     * @return This LoadGenerator.
+     */
+    public LoadGenerator compareBodies(boolean compareBodies) {
+        this.compareBodies = compareBodies;
+        return this;
+    }
+
+    /**
+     * Set the connect and read timeout of each request.
+     *
+     * @param timeoutMillis The timeout, in milliseconds (30 seconds by default).
+     * @return This LoadGenerator.
+     */
+    public LoadGenerator timeout(int timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    /**
+     * Send the recorded requests and wait for all responses.
+     *
+     * @return The report of the run.
+     * @throws VCRException         If a cassette could not be read.
+     * @throws InterruptedException If interrupted while sending requests.
+     */
+    public LoadReport run() throws VCRException, InterruptedException {
+        PlannedRequest[] plan = plan();
+        long[] latencies = new long[plan.length];
+        Arrays.fill(latencies, -1);
+        LoadReport.Builder report = new LoadReport.Builder(MAX_MISMATCH_SAMPLES);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "easyvcr-load-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < plan.length; i++) {
+                PlannedRequest planned = plan[i];
+                long scheduled = start + (long) (planned.offsetNanos * timeScale);
+                // open loop: wait for the scheduled time, never for earlier responses
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+                int slot = i;
+                pool.execute(() -> latencies[slot] = send(planned, scheduled, report));
+            }
+            pool.shutdown();
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                // keep waiting for the responses
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        // awaitTermination makes the writes of the pool threads visible here
+        return report.build(plan.length, System.nanoTime() - start, latencies);
+    }
+
+    /**
+     * Read the cassettes and schedule their requests.
+     *
+     * @return The requests, in the order they are sent.
+     * @throws VCRException If a cassette could not be read.
+     */
+    private PlannedRequest[] plan() throws VCRException {
+        List<PlannedRequest> plan = new ArrayList<>();
+        for (Cassette cassette : cassettes) {
+            List<HttpInteraction> interactions = cassette.read();
+            long first = Long.MAX_VALUE;
+            for (HttpInteraction interaction : interactions) {
+                first = Math.min(first, startMillis(interaction));
+            }
+            for (HttpInteraction interaction : interactions) {
+                long offset = TimeUnit.MILLISECONDS.toNanos(startMillis(interaction) - first);
+                plan.add(new PlannedRequest(interaction, offset, target));
+            }
+        }
+        // stable, so interactions recorded in the same second keep their cassette order
+        plan.sort(Comparator.comparingLong(planned -> planned.offsetNanos));
+        return plan.toArray(new PlannedRequest[0]);
+    }
+
+    /**
+     * Get the time a request was sent at, in milliseconds.
+     *
+     * @param interaction The recorded interaction.
+     * @return The time the request was sent at.
+     */
+    private static long startMillis(HttpInteraction interaction) {
+        // interactions are stamped when they are recorded, after the response
+        return Math.max(0, TimeUnit.SECONDS.toMillis(interaction.getRecordedAt()) - interaction.getDuration());
+    }
+
+    /**
+     * Send a request and compare its response with the recorded response.
+     *
+     * @param planned   The request to send.
+     * @param scheduled The time the request was scheduled to be sent at, in nanoseconds.
+     * @param report    The report to add mismatches and errors to.
+     * @return The time from the scheduled time until the response was read, in nanoseconds, or -1 if the request
+     *         failed.
+     */
+    private long send(PlannedRequest planned, long scheduled, LoadReport.Builder report) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(planned.url).openConnection();
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setInstanceFollowRedirects(false);
+            connection.setRequestMethod(planned.method);
+            for (String[] header : planned.headers) {
+                connection.addRequestProperty(header[0], header[1]);
+            }
+            if (planned.body.length > 0) {
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(planned.body.length);
+                try (OutputStream output = connection.getOutputStream()) {
+                    output.write(planned.body);
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream input = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            byte[] body = readFully(input);
+            long latency = System.nanoTime() - scheduled;
+
+            if (status != planned.expectedStatus) {
+                report.mismatch(true, planned.method + " " + planned.url + ": expected status "
+                        + planned.expectedStatus + ", got " + status);
+            } else if (compareBodies && !planned.expectedBody.equals(ByteBuffer.wrap(body))) {
+                report.mismatch(false, planned.method + " " + planned.url + ": expected a " + planned.expectedBody
+                        .remaining() + " byte body, got a different " + body.length + " byte body");
+            }
+            return latency;
+        } catch (IOException | RuntimeException e) {
+            report.error(planned.method + " " + planned.url + ": " + e);
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return -1;
+        }
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        if (input == null) {
+            return new byte[0];
+        }
+        // read to the end and closed, so the connection can be reused
+        try (InputStream stream = input) {
+            byte[] buffer = new byte[8192];
+            int length = 0;
+            int count;
+            while ((count = stream.read(buffer, length, buffer.length - length)) != -1) {
+                length += count;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    /**
+     * A recorded request, prepared once to be sent without touching the recorded interaction again.
+     */
+    private static final class PlannedRequest {
+        private final long offsetNanos;
+        private final String method;
+        private final String url;
+        private final List<String[]> headers = new ArrayList<>();
+        private final byte[] body;
+        private final int expectedStatus;
+        private final ByteBuffer expectedBody;
+
+        PlannedRequest(HttpInteraction interaction, long offsetNanos, String target) {
+            Request request = interaction.getRequest();
+            URI uri = request.getUri();
+            this.offsetNanos = offsetNanos;
+            this.method = request.getMethod();
+            this.url = target + (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+                    + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+            if (request.getHeaders() != null) {
+                for (Map.Entry<String, List<String>> header : request.getHeaders().entrySet()) {
+                    if (header.getKey() == null || header.getValue() == null || isConnectionHeader(header.getKey())) {
+                        continue;
+                    }
+                    for (String value : header.getValue()) {
+                        headers.add(new String[]{header.getKey(), value});
+                    }
+                }
+            }
+            this.body = request.getBody() == null ? new byte[0] : request.getBody().getBytes(StandardCharsets.UTF_8);
+            this.expectedStatus = interaction.getResponse().getStatus().getCode();
+            this.expectedBody = interaction.getResponse().getBodyBytes();
+        }
+
+        private static boolean isConnectionHeader(String name) {
+            for (String connectionHeader : CONNECTION_HEADERS) {
+                if (connectionHeader.equalsIgnoreCase(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Send the requests of cassettes to a target from the command line and print the report.
+     * <p>
+     * Usage: {@code LoadGenerator <cassette folder> <cassette names (comma-separated)> <target base URL>
+     * [concurrency] [time scale]}
+     *
+     * @param args The command line arguments.
+     * @throws Exception If the load could not be generated.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || args.length > 5) {
+            System.err.println("Usage: LoadGenerator <cassette folder> <cassette names (comma-separated)> "
+                    + "<target base URL> [concurrency] [time scale]");
+            System.exit(2);
+            return;
+        }
+        String[] names = args[1].split(",");
+        Cassette[] cassettes = new Cassette[names.length];
+        for (int i = 0; i < names.length; i++) {
+            cassettes[i] = new Cassette(args[0], names[i].trim());
+        }
+        LoadGenerator generator = new LoadGenerator(args[2], cassettes);
+        if (args.length > 3) {
+            generator.concurrency(Integer.parseInt(args[3]));
+        }
+        if (args.length > 4) {
+            generator.timeScale(Double.parseDouble(args[4]));
+        }
+        System.out.println(generator.run());
+    }
+}
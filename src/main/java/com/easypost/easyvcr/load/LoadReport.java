@@ -0,0 +1,189 @@
+package com.easypost.easyvcr.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The results of a {@link LoadGenerator} run: throughput, latency percentiles and how the responses compared
+ * with the recorded responses.
+ */
+public final class LoadReport {
+    private final int requestCount;
+    private final int errorCount;
+    private final long statusMismatchCount;
+    private final long bodyMismatchCount;
+    private final long elapsedNanos;
+    /**
+     * The latencies of the answered requests, in nanoseconds, sorted.
+     */
+    private final long[] latencies;
+    private final List<String> mismatches;
+    private final List<String> errors;
+
+    private LoadReport(int requestCount, long statusMismatchCount, long bodyMismatchCount, long elapsedNanos,
+                       long[] latencies, List<String> mismatches, List<String> errors) {
+        this.requestCount = requestCount;
+        this.errorCount = requestCount - latencies.length;
+        this.statusMismatchCount = statusMismatchCount;
+        this.bodyMismatchCount = bodyMismatchCount;
+        this.elapsedNanos = elapsedNanos;
+        this.latencies = latencies;
+        this.mismatches = mismatches;
+        this.errors = errors;
+    }
+
+    /**
+     * Get the number of requests sent.
+     *
+     * @return The number of requests.
+     */
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Get the number of requests that failed without a response (e.g. refused connections or timeouts).
+     *
+     * @return The number of failed requests.
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Get the number of responses with a different status code than the recorded response.
+     *
+     * @return The number of status code mismatches.
+     */
+    public long getStatusMismatchCount() {
+        return statusMismatchCount;
+    }
+
+    /**
+     * Get the number of responses with the recorded status code but a different body than the recorded response.
+     *
+     * @return The number of body mismatches (0 if bodies weren't compared).
+     */
+    public long getBodyMismatchCount() {
+        return bodyMismatchCount;
+    }
+
+    /**
+     * Get the time from sending the first request until the last response was read.
+     *
+     * @return The elapsed time, in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * Get the number of responses read per second.
+     *
+     * @return The throughput, in responses per second.
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : latencies.length * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * Get a latency percentile of the answered requests, measured from the time each request was scheduled at.
+     *
+     * @param percentile The percentile, between 0 and 100 (e.g. 99.9).
+     * @return The latency at the percentile, in microseconds, or 0 if no request was answered.
+     */
+    public long getLatencyPercentileMicros(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (latencies.length == 0) {
+            return 0;
+        }
+        // nearest rank
+        int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+        return TimeUnit.NANOSECONDS.toMicros(latencies[Math.max(0, rank - 1)]);
+    }
+
+    /**
+     * Get the longest latency of the answered requests.
+     *
+     * @return The maximum latency, in microseconds, or 0 if no request was answered.
+     */
+    public long getMaxLatencyMicros() {
+        return getLatencyPercentileMicros(100);
+    }
+
+    /**
+     * Get descriptions of the first mismatched responses.
+     *
+     * @return Descriptions of up to 10 mismatches.
+     */
+    public List<String> getMismatches() {
+        return mismatches;
+    }
+
+    /**
+     * Get descriptions of the first failed requests.
+     *
+     * @return Descriptions of up to 10 errors.
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d requests in %d ms (%.1f/s), %d errors, %d status mismatches, %d body mismatches%n"
+                        + "latency (us): p50 %d, p90 %d, p99 %d, p99.9 %d, max %d",
+                requestCount, getElapsedMillis(), getThroughput(), errorCount, statusMismatchCount,
+                bodyMismatchCount, getLatencyPercentileMicros(50), getLatencyPercentileMicros(90),
+                getLatencyPercentileMicros(99), getLatencyPercentileMicros(99.9), getMaxLatencyMicros());
+    }
+
+    /**
+     * Collects the results of a run from the threads sending requests.
+     */
+    static final class Builder {
+        private final int maxSamples;
+        private final LongAdder statusMismatches = new LongAdder();
+        private final LongAdder bodyMismatches = new LongAdder();
+        private final List<String> mismatchSamples = new ArrayList<>();
+        private final List<String> errorSamples = new ArrayList<>();
+
+        Builder(int maxSamples) {
+            this.maxSamples = maxSamples;
+        }
+
+        void mismatch(boolean status, String description) {
+            (status ? statusMismatches : bodyMismatches).increment();
+            addSample(mismatchSamples, description);
+        }
+
+        void error(String description) {
+            addSample(errorSamples, description);
+        }
+
+        private void addSample(List<String> samples, String description) {
+            synchronized (samples) {
+                if (samples.size() < maxSamples) {
+                    samples.add(description);
+                }
+            }
+        }
+
+        LoadReport build(int requestCount, long elapsedNanos, long[] latencies) {
+            long[] answered = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+            synchronized (mismatchSamples) {
+                synchronized (errorSamples) {
+                    return new LoadReport(requestCount, statusMismatches.sum(), bodyMismatches.sum(), elapsedNanos,
+                            answered, Collections.unmodifiableList(new ArrayList<>(mismatchSamples)),
+                            Collections.unmodifiableList(new ArrayList<>(errorSamples)));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.easypost.easyvcr.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsing helpers for the raw HTTP/1.x messages the proxy passes through.
+ */
+final class HttpMessages {
+    private HttpMessages() {
+    }
+
+    /**
+     * Find the end of a message head (the position right after the blank line ending the headers).
+     *
+     * @param bytes  The bytes to search.
+     * @param from   The position to start searching at.
+     * @param length The number of valid bytes.
+     * @return The position right after the head, or -1 if the head isn't complete yet.
+     */
+    static int findHeadEnd(byte[] bytes, int from, int length) {
+        for (int i = Math.max(from, 3); i < length; i++) {
+            if (bytes[i] == '\n' && bytes[i - 1] == '\r' && bytes[i - 2] == '\n' && bytes[i - 3] == '\r') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Split a message head into its start line and header lines.
+     *
+     * @param bytes The bytes of the message.
+     * @param end   The position right after the head.
+     * @return The lines of the head, without line endings (the start line first).
+     */
+    static String[] headLines(byte[] bytes, int end) {
+        // headers are ISO-8859-1, so every byte maps to one char
+        return new String(bytes, 0, end - 4, StandardCharsets.ISO_8859_1).split("\r\n");
+    }
+
+    /**
+     * Parse the header lines of a message head, keeping the order and case of the header names.
+     *
+     * @param lines The lines of the head (the start line is skipped).
+     * @return The headers.
+     */
+    static Map<String, List<String>> parseHeaders(String[] lines) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = lines[i].substring(0, colon).trim();
+            String value = lines[i].substring(colon + 1).trim();
+            headers.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+        return headers;
+    }
+
+    /**
+     * Get the first value of a header, ignoring the case of its name.
+     *
+     * @param headers The headers.
+     * @param name    The name of the header.
+     * @return The first value of the header, or null if it isn't set.
+     */
+    static String getHeader(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name) && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether a message body uses the chunked transfer coding.
+     *
+     * @param headers The headers of the message.
+     * @return True if the body is chunked.
+     */
+    static boolean isChunked(Map<String, List<String>> headers) {
+        String transferEncoding = getHeader(headers, "Transfer-Encoding");
+        return transferEncoding != null && transferEncoding.toLowerCase().contains("chunked");
+    }
+
+    /**
+     * Decode a chunked message body. Trailers are dropped.
+     * A body cut off mid-chunk is decoded as far as it goes.
+     *
+     * @param bytes  The bytes of the message.
+     * @param offset The position the chunked body starts at.
+     * @param length The number of valid bytes.
+     * @return The decoded body.
+     */
+    static byte[] decodeChunked(byte[] bytes, int offset, int length) {
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        int position = offset;
+        while (position < length) {
+            int lineEnd = position;
+            while (lineEnd + 1 < length && !(bytes[lineEnd] == '\r' && bytes[lineEnd + 1] == '\n')) {
+                lineEnd++;
+            }
+            if (lineEnd + 1 >= length) {
+                break;
+            }
+            String sizeLine = new String(bytes, position, lineEnd - position, StandardCharsets.ISO_8859_1);
+            int extension = sizeLine.indexOf(';');
+            int size;
+            try {
+                size = Integer.parseInt((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+            } catch (NumberFormatException e) {
+                break;
+            }
+            if (size == 0) {
+                break;
+            }
+            position = lineEnd + 2;
+            int count = Math.min(size, length - position);
+            decoded.write(bytes, position, count);
+            // skip the data and the line ending after it
+            position += size + 2;
+        }
+        return decoded.toByteArray();
+    }
+
+    /**
+     * Check whether a raw response has been received in full, according to its framing: the Content-Length was
+     * reached, the last chunk (and trailers) of a chunked body arrived, or the response has no body.
+     * A body delimited by the end of the connection is only complete once the connection has ended.
+     *
+     * @param bytes         The bytes of the response.
+     * @param length        The number of valid bytes.
+     * @param requestMethod The method of the request the response answers.
+     * @param ended         Whether the upstream server has ended the connection.
+     * @return True if the response is complete.
+     */
+    static boolean isCompleteResponse(byte[] bytes, int length, String requestMethod, boolean ended) {
+        int headEnd = findHeadEnd(bytes, 0, length);
+        if (headEnd < 0) {
+            return false;
+        }
+        String[] lines = headLines(bytes, headEnd);
+        String[] statusLine = lines[0].split(" ", 3);
+        int status;
+        try {
+            status = Integer.parseInt(statusLine[1]);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            return false;
+        }
+        if ("HEAD".equalsIgnoreCase(requestMethod) || status < 200 || status == 204 || status == 304) {
+            return true;
+        }
+        Map<String, List<String>> headers = parseHeaders(lines);
+        if (isChunked(headers)) {
+            return isChunkedBodyComplete(bytes, headEnd, length);
+        }
+        String contentLength = getHeader(headers, "Content-Length");
+        if (contentLength != null) {
+            try {
+                return length - headEnd >= Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return ended;
+    }
+
+    /**
+     * Check whether a chunked body ends with the last (zero-size) chunk and the blank line after the trailers.
+     */
+    private static boolean isChunkedBodyComplete(byte[] bytes, int offset, int length) {
+        int position = offset;
+        while (position < length) {
+            int lineEnd = position;
+            while (lineEnd + 1 < length && !(bytes[lineEnd] == '\r' && bytes[lineEnd + 1] == '\n')) {
+                lineEnd++;
+            }
+            if (lineEnd + 1 >= length) {
+                return false;
+            }
+            String sizeLine = new String(bytes, position, lineEnd - position, StandardCharsets.ISO_8859_1);
+            int extension = sizeLine.indexOf(';');
+            long size;
+            try {
+                size = Long.parseLong((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            if (size == 0) {
+                // the size line's own line ending followed by a blank line (after any trailers)
+                return findHeadEnd(bytes, lineEnd + 3, length) >= 0;
+            }
+            // skip the data and the line ending after it
+            position = (int) Math.min((long) lineEnd + 2 + size + 2, Integer.MAX_VALUE);
+        }
+        return false;
+    }
+}
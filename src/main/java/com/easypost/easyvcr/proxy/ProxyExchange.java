@@ -0,0 +1,438 @@
+package com.easypost.easyvcr.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One client connection to the proxy: a single proxied request (the connection is closed after the response),
+ * or a CONNECT tunnel.
+ * <p>
+ * Bodies are streamed through fixed-size buffers in both directions; a side is only read from while the buffer
+ * towards the other side has room, so slow readers slow down fast writers instead of filling memory.
+ * Proxied requests and responses are copied as they pass through, to be recorded once the response is complete.
+ * Tunneled traffic isn't recorded. All methods are called on the proxy's selector thread.
+ */
+final class ProxyExchange {
+    /**
+     * The size of the buffer in each direction.
+     */
+    private static final int BUFFER_SIZE = 16 * 1024;
+    /**
+     * The largest request head accepted.
+     */
+    private static final int MAX_HEAD_SIZE = 64 * 1024;
+    /**
+     * Hop-by-hop headers between the client and the proxy, which aren't forwarded or recorded.
+     */
+    private static final String[] PROXY_HEADERS = {"Proxy-Connection", "Proxy-Authorization", "Connection",
+            "Keep-Alive"};
+
+    private final RecordingProxy proxy;
+    private final SocketChannel client;
+    private final SelectionKey clientKey;
+    private SocketChannel upstream;
+    private SelectionKey upstreamKey;
+
+    /**
+     * The request head while it's being read, null once it has been read.
+     */
+    private ByteBuffer head = ByteBuffer.allocate(4096);
+    /**
+     * Bytes from the client waiting to be written upstream (in fill mode), null until the request head is read.
+     */
+    private ByteBuffer toUpstream;
+    /**
+     * Bytes from upstream waiting to be written to the client (in fill mode).
+     */
+    private final ByteBuffer toClient = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private boolean tunnel;
+    private boolean clientEof;
+    private boolean upstreamEof;
+    private boolean upstreamOutputShut;
+    private boolean clientOutputShut;
+    private boolean responseStarted;
+    private boolean failed;
+    private boolean closed;
+
+    private String method;
+    private String uri;
+    private Map<String, List<String>> requestHeaders;
+    private final ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream response = new ByteArrayOutputStream();
+    private long sentAt;
+    private long duration = -1;
+
+    /**
+     * Constructor for ProxyExchange.
+     *
+     * @param proxy     The proxy the client connected to.
+     * @param client    The client connection.
+     * @param clientKey The selection key of the client connection.
+     */
+    ProxyExchange(RecordingProxy proxy, SocketChannel client, SelectionKey clientKey) {
+        this.proxy = proxy;
+        this.client = client;
+        this.clientKey = clientKey;
+        clientKey.attach(this);
+    }
+
+    /**
+     * Handle a ready client or upstream connection.
+     *
+     * @param key The ready selection key.
+     */
+    void handle(SelectionKey key) {
+        try {
+            if (key == clientKey) {
+                if (key.isValid() && key.isReadable()) {
+                    readClient();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    writeClient();
+                }
+            } else {
+                if (key.isValid() && key.isConnectable()) {
+                    if (upstream.finishConnect()) {
+                        connected();
+                    }
+                }
+                if (key.isValid() && key.isReadable()) {
+                    readUpstream();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    writeUpstream();
+                }
+            }
+            updateInterest();
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Connect to the upstream server, once its address has been resolved.
+     *
+     * @param address The address of the upstream server.
+     */
+    void connectTo(InetSocketAddress address) {
+        if (closed) {
+            return;
+        }
+        try {
+            if (address.isUnresolved()) {
+                sendError(502, "Bad Gateway", "Could not resolve " + address.getHostString());
+                return;
+            }
+            upstream = SocketChannel.open();
+            upstream.configureBlocking(false);
+            upstream.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            upstreamKey = upstream.register(clientKey.selector(), 0, this);
+            if (upstream.connect(address)) {
+                connected();
+            } else {
+                upstreamKey.interestOps(SelectionKey.OP_CONNECT);
+            }
+            updateInterest();
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Close the exchange because the proxy is stopping. A response that already arrived in full (according to its
+     * Content-Length or chunked framing) is still recorded, even though the upstream server hasn't closed the
+     * connection yet.
+     */
+    void stop() {
+        if (!closed && !tunnel && !failed && response.size() > 0) {
+            recordIfComplete();
+        }
+        close();
+    }
+
+    /**
+     * Record the exchange if the whole response was received; a truncated response is never recorded, so it can't
+     * replace an earlier complete recording.
+     */
+    private void recordIfComplete() {
+        byte[] rawResponse = response.toByteArray();
+        if (!HttpMessages.isCompleteResponse(rawResponse, rawResponse.length, method, upstreamEof)) {
+            proxy.logFailure(uri, new IOException("Incomplete response, not recorded"));
+            return;
+        }
+        proxy.record(method, uri, requestHeaders, requestBody.toByteArray(), rawResponse, Math.max(duration, 0));
+    }
+
+    /**
+     * Close both connections.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeQuietly(client);
+        if (upstream != null) {
+            closeQuietly(upstream);
+        }
+    }
+
+    private void connected() {
+        sentAt = System.nanoTime();
+        if (tunnel) {
+            toClient.put("HTTP/1.1 200 Connection Established\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private void readClient() throws IOException {
+        if (toUpstream == null) {
+            readHead();
+            return;
+        }
+        int count = client.read(toUpstream);
+        if (count < 0) {
+            clientEof = true;
+            shutUpstreamOutputIfDrained();
+            return;
+        }
+        if (!tunnel) {
+            requestBody.write(toUpstream.array(), toUpstream.position() - count, count);
+        }
+    }
+
+    private void readHead() throws IOException {
+        if (!head.hasRemaining()) {
+            if (head.capacity() >= MAX_HEAD_SIZE) {
+                sendError(431, "Request Header Fields Too Large", "Request head is too large");
+                return;
+            }
+            ByteBuffer larger = ByteBuffer.allocate(Math.min(head.capacity() * 2, MAX_HEAD_SIZE));
+            head.flip();
+            larger.put(head);
+            head = larger;
+        }
+        int before = head.position();
+        int count = client.read(head);
+        if (count < 0) {
+            close();
+            return;
+        }
+        int end = HttpMessages.findHeadEnd(head.array(), before - 3, head.position());
+        if (end < 0) {
+            return;
+        }
+
+        String[] lines = HttpMessages.headLines(head.array(), end);
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3) {
+            sendError(400, "Bad Request", "Malformed request line");
+            return;
+        }
+        method = requestLine[0];
+        int leftover = head.position() - end;
+        String host;
+        int port;
+        byte[] forwardedHead;
+        if ("CONNECT".equalsIgnoreCase(method)) {
+            tunnel = true;
+            int colon = requestLine[1].lastIndexOf(':');
+            host = colon < 0 ? requestLine[1] : requestLine[1].substring(0, colon);
+            port = colon < 0 ? 443 : Integer.parseInt(requestLine[1].substring(colon + 1));
+            forwardedHead = new byte[0];
+        } else {
+            URI target;
+            try {
+                target = new URI(requestLine[1]);
+            } catch (URISyntaxException e) {
+                sendError(400, "Bad Request", "Malformed request target");
+                return;
+            }
+            if (!"http".equalsIgnoreCase(target.getScheme()) || target.getHost() == null) {
+                sendError(400, "Bad Request", "Only absolute http:// URLs can be proxied (use CONNECT for https)");
+                return;
+            }
+            uri = requestLine[1];
+            host = target.getHost();
+            port = target.getPort() == -1 ? 80 : target.getPort();
+            requestHeaders = HttpMessages.parseHeaders(lines);
+            for (String proxyHeader : PROXY_HEADERS) {
+                requestHeaders.keySet().removeIf(name -> name.equalsIgnoreCase(proxyHeader));
+            }
+            forwardedHead = forwardedHead(target, requestLine[2]);
+            requestBody.write(head.array(), end, leftover);
+        }
+
+        toUpstream = ByteBuffer.allocate(Math.max(BUFFER_SIZE, forwardedHead.length + leftover));
+        toUpstream.put(forwardedHead);
+        toUpstream.put(head.array(), end, leftover);
+        head = null;
+        proxy.resolve(this, host, port);
+    }
+
+    /**
+     * Build the request head sent upstream: the request target in origin form, and no proxy headers.
+     * The upstream connection is closed after the response, which then ends where the connection does.
+     */
+    private byte[] forwardedHead(URI target, String version) {
+        StringBuilder builder = new StringBuilder();
+        String path = target.getRawPath() == null || target.getRawPath().isEmpty() ? "/" : target.getRawPath();
+        builder.append(method).append(' ').append(path);
+        if (target.getRawQuery() != null) {
+            builder.append('?').append(target.getRawQuery());
+        }
+        builder.append(' ').append(version).append("\r\n");
+        if (HttpMessages.getHeader(requestHeaders, "Host") == null) {
+            builder.append("Host: ").append(target.getRawAuthority()).append("\r\n");
+        }
+        for (Map.Entry<String, List<String>> header : requestHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                builder.append(header.getKey()).append(": ").append(value).append("\r\n");
+            }
+        }
+        builder.append("Connection: close\r\n\r\n");
+        return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private void writeUpstream() throws IOException {
+        toUpstream.flip();
+        upstream.write(toUpstream);
+        toUpstream.compact();
+        shutUpstreamOutputIfDrained();
+    }
+
+    private void shutUpstreamOutputIfDrained() throws IOException {
+        if (clientEof && !upstreamOutputShut && toUpstream.position() == 0 && upstream != null
+                && upstream.isConnected()) {
+            upstreamOutputShut = true;
+            upstream.shutdownOutput();
+            closeIfTunnelDone();
+        }
+    }
+
+    private void readUpstream() throws IOException {
+        int count = upstream.read(toClient);
+        if (count < 0) {
+            upstreamEof = true;
+            finishIfDrained();
+            return;
+        }
+        if (!tunnel) {
+            if (duration < 0) {
+                duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAt);
+            }
+            response.write(toClient.array(), toClient.position() - count, count);
+        }
+    }
+
+    private void writeClient() throws IOException {
+        toClient.flip();
+        if (client.write(toClient) > 0) {
+            responseStarted = true;
+        }
+        toClient.compact();
+        finishIfDrained();
+    }
+
+    private void finishIfDrained() throws IOException {
+        if (!upstreamEof || toClient.position() > 0 || closed) {
+            return;
+        }
+        if (!tunnel) {
+            if (!failed) {
+                recordIfComplete();
+            }
+            close();
+            return;
+        }
+        if (!clientOutputShut) {
+            clientOutputShut = true;
+            client.shutdownOutput();
+        }
+        closeIfTunnelDone();
+    }
+
+    private void closeIfTunnelDone() {
+        if (tunnel && upstreamOutputShut && clientOutputShut) {
+            close();
+        }
+    }
+
+    private void updateInterest() {
+        if (closed) {
+            return;
+        }
+        boolean upstreamReady = upstream != null && upstream.isConnected();
+        int clientOps = 0;
+        if (toUpstream == null && head != null) {
+            clientOps |= SelectionKey.OP_READ;
+        } else if (toUpstream != null && upstreamReady && !clientEof && toUpstream.hasRemaining()) {
+            clientOps |= SelectionKey.OP_READ;
+        }
+        if (toClient.position() > 0) {
+            clientOps |= SelectionKey.OP_WRITE;
+        }
+        clientKey.interestOps(clientOps);
+        if (upstreamReady && upstreamKey.isValid()) {
+            int upstreamOps = 0;
+            if (!upstreamEof && toClient.hasRemaining()) {
+                upstreamOps |= SelectionKey.OP_READ;
+            }
+            if (toUpstream.position() > 0) {
+                upstreamOps |= SelectionKey.OP_WRITE;
+            }
+            upstreamKey.interestOps(upstreamOps);
+        }
+    }
+
+    /**
+     * Answer with an error response (if nothing has been sent to the client yet) and close the exchange.
+     */
+    private void sendError(int status, String reason, String message) {
+        if (failed || responseStarted || tunnel && upstream != null && upstream.isConnected()) {
+            close();
+            return;
+        }
+        failed = true;
+        tunnel = false;
+        upstreamEof = true;
+        if (upstream != null) {
+            closeQuietly(upstream);
+        }
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        String errorHead = "HTTP/1.1 " + status + " " + reason + "\r\nContent-Type: text/plain; charset=utf-8\r\n"
+                + "Content-Length: " + body.length + "\r\nConnection: close\r\n\r\n";
+        toClient.clear();
+        toClient.put(errorHead.getBytes(StandardCharsets.ISO_8859_1));
+        toClient.put(body, 0, Math.min(body.length, toClient.remaining()));
+        head = null;
+        clientKey.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    private void fail(Exception e) {
+        if (closed) {
+            return;
+        }
+        proxy.logFailure(uri, e);
+        sendError(502, "Bad Gateway", String.valueOf(e.getMessage()));
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing left to do with the connection
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.easypost.easyvcr.proxy;
+
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.internal.ConsoleFallbackLogger;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Request;
+import com.easypost.easyvcr.requestelements.Response;
+import com.easypost.easyvcr.requestelements.Status;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An HTTP forward proxy that records the requests passing through it to a cassette, so traffic from processes
+ * that can't use a recordable client (other JVMs, scripts, curl) can be recorded too.
+ * <p>
+ * All connections are served by a single selector thread. Bodies are streamed through in both directions rather
+ * than buffered, and copied on the side to be recorded once the response is complete; recorded interactions
+ * are censored with the censors of the advanced settings and written to the cassette on a separate thread,
+ * in the order the responses completed.
+ * <p>
+ * Plain HTTP requests (absolute {@code http://} URLs) are recorded. CONNECT requests (e.g. for HTTPS) are
+ * tunneled through without being recorded. Each client connection carries a single request.
+ */
+public final class RecordingProxy {
+    /**
+     * The number of pending connections to queue before refusing new ones.
+     */
+    private static final int BACKLOG = 1024;
+
+    /**
+     * The Cassette the proxy is recording to.
+     */
+    private final Cassette cassette;
+    /**
+     * The AdvancedSettings the proxy is using.
+     */
+    private final AdvancedSettings advancedSettings;
+    /**
+     * Logger to use for logging (uses custom logger internally if set, otherwise logs to console).
+     */
+    private final ConsoleFallbackLogger logger;
+    /**
+     * Tasks to run on the selector thread.
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    /**
+     * The address the proxy listens on.
+     */
+    private InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    /**
+     * Resolves upstream host names, which would otherwise block the selector thread.
+     */
+    private ExecutorService resolver;
+    /**
+     * Writes recorded interactions to the cassette, one at a time.
+     */
+    private ExecutorService recorder;
+    private volatile boolean running;
+
+    /**
+     * Constructor for RecordingProxy.
+     *
+     * @param cassette         The cassette to record to.
+     * @param advancedSettings The advanced settings to use.
+     */
+    public RecordingProxy(Cassette cassette, AdvancedSettings advancedSettings) {
+        if (cassette == null) {
+            throw new IllegalArgumentException("Cassette cannot be null");
+        }
+        this.cassette = cassette;
+        this.advancedSettings = advancedSettings != null ? advancedSettings : new AdvancedSettings();
+        this.logger = new ConsoleFallbackLogger(this.advancedSettings.logger, "EasyVCR");
+    }
+
+    /**
+     * Constructor for RecordingProxy.
+     *
+     * @param cassette The cassette to record to.
+     */
+    public RecordingProxy(Cassette cassette) {
+        this(cassette, new AdvancedSettings());
+    }
+
+    /**
+     * Listen on a specific port of the loopback address (a free port is picked by default).
+     *
+     * @param port The port to listen on, 0 to pick a free port.
+     * @return This RecordingProxy.
+     */
+    public RecordingProxy port(int port) {
+        this.address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        return this;
+    }
+
+    /**
+     * Listen on a specific address.
+     *
+     * @param address The address to listen on.
+     * @return This RecordingProxy.
+     */
+    public RecordingProxy address(InetSocketAddress address) {
+        this.address = address;
+        return this;
+    }
+
+    /**
+     * Start the proxy.
+     *
+     * @return This RecordingProxy.
+     * @throws IOException If the proxy could not be started.
+     */
+    public synchronized RecordingProxy start() throws IOException {
+        if (running) {
+            throw new IllegalStateException("Proxy is already running");
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        resolver = Executors.newFixedThreadPool(2, daemonThreads("easyvcr-proxy-resolver"));
+        recorder = Executors.newSingleThreadExecutor(daemonThreads("easyvcr-proxy-recorder"));
+        running = true;
+        selectorThread = daemonThreads("easyvcr-proxy").newThread(this::run);
+        selectorThread.start();
+        return this;
+    }
+
+    /**
+     * Stop the proxy, closing all connections, and wait for the interactions recorded so far to be written.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        selectorThread.join();
+        resolver.shutdownNow();
+        recorder.shutdown();
+        recorder.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Get the address the proxy is listening on.
+     *
+     * @return The address, or null if the proxy isn't running.
+     * @throws IOException If the address could not be read.
+     */
+    public synchronized InetSocketAddress getAddress() throws IOException {
+        return running ? (InetSocketAddress) serverChannel.getLocalAddress() : null;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        ((ProxyExchange) key.attachment()).handle(key);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error("Proxy error: " + e.getMessage());
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof ProxyExchange) {
+                ((ProxyExchange) key.attachment()).stop();
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException ignored) {
+            // shutting down anyway
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client;
+        while ((client = serverChannel.accept()) != null) {
+            client.configureBlocking(false);
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            new ProxyExchange(this, client, client.register(selector, SelectionKey.OP_READ));
+        }
+    }
+
+    /**
+     * Resolve an upstream host off the selector thread, then connect the exchange to it.
+     *
+     * @param exchange The exchange to connect.
+     * @param host     The upstream host.
+     * @param port     The upstream port.
+     */
+    void resolve(ProxyExchange exchange, String host, int port) {
+        resolver.execute(() -> {
+            InetSocketAddress upstreamAddress = new InetSocketAddress(host, port);
+            tasks.add(() -> exchange.connectTo(upstreamAddress));
+            selector.wakeup();
+        });
+    }
+
+    /**
+     * Record a completed exchange to the cassette (on the recorder thread).
+     *
+     * @param method         The request method.
+     * @param uri            The absolute request URL.
+     * @param requestHeaders The request headers, without proxy headers.
+     * @param requestBody    The raw request body.
+     * @param rawResponse    The raw response (head and body).
+     * @param duration       The time it took to receive the first bytes of the response, in milliseconds.
+     */
+    void record(String method, String uri, Map<String, List<String>> requestHeaders, byte[] requestBody,
+                byte[] rawResponse, long duration) {
+        recorder.execute(() -> {
+            try {
+                HttpInteraction interaction =
+                        createInteraction(method, uri, requestHeaders, requestBody, rawResponse, duration);
+                if (interaction == null) {
+                    logger.warning("Could not record " + method + " " + uri + ": incomplete response");
+                    return;
+                }
+                synchronized (cassette) {
+                    cassette.updateInteraction(interaction, advancedSettings.matchRules, false);
+                }
+            } catch (Exception e) {
+                logger.warning("Could not record " + method + " " + uri + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Log a failed exchange.
+     *
+     * @param uri The request URL, null if it wasn't read yet.
+     * @param e   The failure.
+     */
+    void logFailure(String uri, Exception e) {
+        logger.warning("Proxied request " + (uri == null ? "" : "to " + uri + " ") + "failed: " + e.getMessage());
+    }
+
+    private HttpInteraction createInteraction(String method, String uri, Map<String, List<String>> requestHeaders,
+                                              byte[] requestBody, byte[] rawResponse, long duration)
+            throws Exception {
+        int headEnd = HttpMessages.findHeadEnd(rawResponse, 0, rawResponse.length);
+        if (headEnd < 0) {
+            return null;
+        }
+        String[] lines = HttpMessages.headLines(rawResponse, headEnd);
+        String[] statusLine = lines[0].split(" ", 3);
+        Map<String, List<String>> responseHeaders = HttpMessages.parseHeaders(lines);
+        byte[] responseBody = HttpMessages.isChunked(responseHeaders)
+                ? HttpMessages.decodeChunked(rawResponse, headEnd, rawResponse.length)
+                : Arrays.copyOfRange(rawResponse, headEnd, rawResponse.length);
+        byte[] decodedRequestBody = HttpMessages.isChunked(requestHeaders)
+                ? HttpMessages.decodeChunked(requestBody, 0, requestBody.length) : requestBody;
+
+        String censoredUri = advancedSettings.censors.applyUrlCensors(uri);
+
+        // create the request
+        Request request = new Request();
+        request.setMethod(method);
+        request.setUri(new URI(censoredUri));
+        request.setHeaders(advancedSettings.censors.applyHeaderCensors(new LinkedHashMap<>(requestHeaders)));
+        request.setBody(advancedSettings.censors.applyBodyParameterCensors(
+                new String(decodedRequestBody, StandardCharsets.UTF_8)));
+
+        // create the response
+        Response response = new Response();
+        response.setStatus(new Status(Integer.parseInt(statusLine[1]), statusLine.length > 2 ? statusLine[2] : ""));
+        response.setUri(new URI(censoredUri));
+        response.setHeaders(advancedSettings.censors.applyHeaderCensors(responseHeaders));
+        // we don't censor the response body, only the request body
+        response.setBody(advancedSettings.censors.applyBodyParameterCensors(
+                new String(responseBody, StandardCharsets.UTF_8)));
+
+        return new HttpInteraction(request, response, duration);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -26,6 +26,16 @@ public final class HttpInteraction extends HttpElement {
      */
     private long duration = 0;
 
+    /**
+     * The breakdown of the duration of the request, if it was measured.
+     */
+    private Timings timings;
+
+    /**
+     * The latencies of all takes of the request, if it was recorded more than once.
+     */
+    private LatencyDistribution latency;
+
     /**
      * Constructs a new HTTPInteraction object.
      *
@@ -111,4 +121,40 @@ public final class HttpInteraction extends HttpElement {
     public void setDuration(final int duration) {
         this.duration = duration;
     }
+
+    /**
+     * Returns the breakdown of the duration of the request.
+     *
+     * @return The breakdown of the duration of the request, or null if it was not measured.
+     */
+    public Timings getTimings() {
+        return this.timings;
+    }
+
+    /**
+     * Sets the breakdown of the duration of the request.
+     *
+     * @param timings The breakdown of the duration of the request.
+     */
+    public void setTimings(final Timings timings) {
+        this.timings = timings;
+    }
+
+    /**
+     * Returns the latencies of all takes of the request.
+     *
+     * @return The latency distribution, or null if the request was only recorded once.
+     */
+    public LatencyDistribution getLatency() {
+        return this.latency;
+    }
+
+    /**
+     * Sets the latencies of all takes of the request.
+     *
+     * @param latency The latency distribution.
+     */
+    public void setLatency(final LatencyDistribution latency) {
+        this.latency = latency;
+    }
 }
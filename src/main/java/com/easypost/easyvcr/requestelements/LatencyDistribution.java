@@ -0,0 +1,148 @@
+package com.easypost.easyvcr.requestelements;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The latencies of every take of an interaction that was recorded more than once.
+ * <p>
+ * Only a summary is stored: the number of takes and the latency at a fixed set of percentiles, so the size of a
+ * cassette doesn't grow with the number of takes. When another take is recorded, a bounded reservoir of samples
+ * is rebuilt from the summary, the new latency is sampled into it, and the summary is recomputed.
+ * Simulated delays are drawn from the distribution the percentiles describe.
+ */
+public final class LatencyDistribution {
+    /**
+     * The percentiles the latencies are summarized at.
+     */
+    static final double[] PERCENTILES = { 0, 10, 25, 50, 75, 90, 95, 99, 100 };
+    /**
+     * The largest number of samples kept while adding a take.
+     */
+    static final int RESERVOIR_SIZE = 64;
+
+    /**
+     * The number of takes recorded.
+     */
+    private long count;
+
+    /**
+     * The latency at each of the {@link #PERCENTILES}, in milliseconds.
+     */
+    private long[] percentiles;
+
+    /**
+     * Constructs a new LatencyDistribution object.
+     *
+     * @param count       The number of takes recorded.
+     * @param percentiles The latency at the 0th, 10th, 25th, 50th, 75th, 90th, 95th, 99th and 100th percentiles,
+     *                    in milliseconds.
+     */
+    public LatencyDistribution(long count, long[] percentiles) {
+        if (percentiles == null || percentiles.length != PERCENTILES.length) {
+            throw new IllegalArgumentException("Expected " + PERCENTILES.length + " percentiles");
+        }
+        this.count = count;
+        this.percentiles = percentiles.clone();
+    }
+
+    /**
+     * Create the distribution of a single take.
+     *
+     * @param latency The latency of the take, in milliseconds.
+     * @return The distribution.
+     */
+    public static LatencyDistribution of(long latency) {
+        long[] percentiles = new long[PERCENTILES.length];
+        Arrays.fill(percentiles, latency);
+        return new LatencyDistribution(1, percentiles);
+    }
+
+    /**
+     * Returns the number of takes recorded.
+     *
+     * @return The number of takes.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the latency at the summarized percentiles (the 0th, 10th, 25th, 50th, 75th, 90th, 95th, 99th and
+     * 100th).
+     *
+     * @return The latencies, in milliseconds.
+     */
+    public long[] getPercentiles() {
+        return this.percentiles.clone();
+    }
+
+    /**
+     * Returns the latency at a percentile, interpolated between the summarized percentiles.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The latency, in milliseconds.
+     */
+    public long getPercentile(double percentile) {
+        double clamped = Math.max(0, Math.min(100, percentile));
+        for (int i = 1; i < PERCENTILES.length; i++) {
+            if (clamped <= PERCENTILES[i]) {
+                double fraction = (clamped - PERCENTILES[i - 1]) / (PERCENTILES[i] - PERCENTILES[i - 1]);
+                return Math.round(percentiles[i - 1] + fraction * (percentiles[i] - percentiles[i - 1]));
+            }
+        }
+        return percentiles[PERCENTILES.length - 1];
+    }
+
+    /**
+     * Draw a latency from the distribution.
+     *
+     * @param random The random number generator to draw with.
+     * @return The latency, in milliseconds.
+     */
+    public long sample(Random random) {
+        return getPercentile(random.nextDouble() * 100);
+    }
+
+    /**
+     * Create the distribution with another take added.
+     *
+     * @param latency The latency of the new take, in milliseconds.
+     * @return The new distribution.
+     */
+    public LatencyDistribution add(long latency) {
+        // rebuild the reservoir from the summary, spreading the samples evenly over the distribution
+        int size = (int) Math.min(this.count, RESERVOIR_SIZE);
+        long[] reservoir = new long[Math.min(size + 1, RESERVOIR_SIZE)];
+        for (int i = 0; i < size; i++) {
+            reservoir[i] = getPercentile(size == 1 ? 50 : 100.0 * i / (size - 1));
+        }
+        if (size < RESERVOIR_SIZE) {
+            reservoir[size] = latency;
+        } else {
+            // reservoir sampling: every take has the same chance to be part of the reservoir
+            long slot = ThreadLocalRandom.current().nextLong(this.count + 1);
+            if (slot < RESERVOIR_SIZE) {
+                reservoir[(int) slot] = latency;
+            }
+        }
+        return new LatencyDistribution(this.count + 1, summarize(reservoir));
+    }
+
+    /**
+     * Summarize samples at the {@link #PERCENTILES}, interpolating between the closest samples.
+     */
+    private static long[] summarize(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        long[] summary = new long[PERCENTILES.length];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            double rank = PERCENTILES[i] / 100 * (sorted.length - 1);
+            int lower = (int) Math.floor(rank);
+            int upper = (int) Math.ceil(rank);
+            summary[i] = Math.round(sorted[lower] + (rank - lower) * (sorted[upper] - sorted[lower]));
+        }
+        return summary;
+    }
+}
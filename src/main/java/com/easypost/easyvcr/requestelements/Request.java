@@ -1,5 +1,7 @@
 package com.easypost.easyvcr.requestelements;
 
+import com.easypost.easyvcr.internal.NormalizedUrl;
+
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +31,11 @@ public final class Request extends HttpElement {
      */
     private URI uri;
 
+    /**
+     * The URI of the request, parsed once for matching (not serialized).
+     */
+    private transient NormalizedUrl normalizedUri;
+
     /**
      * Returns the body of the request.
      *
@@ -99,6 +106,7 @@ public final class Request extends HttpElement {
      */
     public void setUri(URI uri) {
         this.uri = uri;
+        this.normalizedUri = null;
     }
 
     /**
@@ -117,5 +125,21 @@ public final class Request extends HttpElement {
      */
     public void setUriString(String uriString) {
         this.uri = URI.create(uriString);
+        this.normalizedUri = null;
+    }
+
+    /**
+     * Returns the URI of the request, parsed into its components.
+     * The URI is only parsed once, no matter how many match rules inspect it.
+     *
+     * @return the parsed URI of the request
+     */
+    public NormalizedUrl getNormalizedUri() {
+        NormalizedUrl normalized = this.normalizedUri;
+        if (normalized == null) {
+            normalized = NormalizedUrl.parse(getUriString());
+            this.normalizedUri = normalized;
+        }
+        return normalized;
     }
 }
@@ -1,8 +1,16 @@
 package com.easypost.easyvcr.requestelements;
 
 import com.easypost.easyvcr.Statics;
+import com.easypost.easyvcr.internal.ByteBufferInputStream;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +25,22 @@ public final class Response extends HttpElement {
      */
     private String body;
 
+    /**
+     * The UTF-8 encoded body of the response, encoded on first use (not stored in the cassette).
+     */
+    private transient ByteBuffer bodyBytes;
+
+    /**
+     * The path of the file holding the body of the response, relative to the cassette folder,
+     * if the body is too large to be stored in the cassette itself.
+     */
+    private String bodyFile;
+
+    /**
+     * The folder that the body file path is relative to (not stored in the cassette).
+     */
+    private transient File bodyFileFolder;
+
     /**
      * The HTTP version of the response.
      */
@@ -43,6 +67,11 @@ public final class Response extends HttpElement {
      * @return the body of the response
      */
     public String getBody() {
+        if (this.body == null && this.bodyFile != null) {
+            // only decoded if someone really needs the body as a string
+            ByteBuffer bytes = getBodyBytes();
+            return StandardCharsets.UTF_8.decode(bytes).toString();
+        }
         return this.body;
     }
 
@@ -53,6 +82,81 @@ public final class Response extends HttpElement {
      */
     public void setBody(String body) {
         this.body = body;
+        this.bodyBytes = null;
+        this.bodyFile = null;
+    }
+
+    /**
+     * Returns the path of the file holding the body of the response, relative to the cassette folder.
+     *
+     * @return the path of the body file, or null if the body is stored in the cassette itself
+     */
+    public String getBodyFile() {
+        return this.bodyFile;
+    }
+
+    /**
+     * Move the body of the response to a file, storing only the path of the file in the cassette.
+     *
+     * @param bodyFile the path of the body file, relative to the cassette folder
+     * @param folder   the cassette folder
+     */
+    public void setBodyFile(String bodyFile, File folder) {
+        this.body = null;
+        // released, so the body is mapped from the file when it is needed again
+        this.bodyBytes = null;
+        this.bodyFile = bodyFile;
+        this.bodyFileFolder = folder;
+    }
+
+    /**
+     * Sets the folder that the body file path is relative to.
+     *
+     * @param folder the cassette folder
+     */
+    public void setBodyFileFolder(File folder) {
+        this.bodyFileFolder = folder;
+    }
+
+    /**
+     * Returns the body of the response as UTF-8 bytes.
+     * The body is only encoded once; every call returns a new read-only view of the same bytes.
+     *
+     * @return a read-only buffer of the body of the response (empty if there is no body)
+     */
+    public ByteBuffer getBodyBytes() {
+        ByteBuffer bytes = this.bodyBytes;
+        if (bytes == null && this.bodyFile != null) {
+            bytes = mapBodyFile();
+            this.bodyBytes = bytes;
+        } else if (bytes == null) {
+            byte[] encoded = this.body == null ? new byte[0] : this.body.getBytes(StandardCharsets.UTF_8);
+            bytes = ByteBuffer.wrap(encoded).asReadOnlyBuffer();
+            this.bodyBytes = bytes;
+        }
+        return bytes.duplicate();
+    }
+
+    /**
+     * Map the body file into memory, so it is paged in from disk as it is read instead of being loaded on the heap.
+     */
+    private ByteBuffer mapBodyFile() {
+        File file = new File(this.bodyFileFolder, this.bodyFile);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read response body file " + file, e);
+        }
+    }
+
+    /**
+     * Returns a new input stream over the body of the response, without copying the body.
+     *
+     * @return an input stream of the UTF-8 encoded body of the response
+     */
+    public InputStream getBodyInputStream() {
+        return new ByteBufferInputStream(getBodyBytes());
     }
 
     /**
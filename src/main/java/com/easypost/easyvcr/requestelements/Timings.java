@@ -0,0 +1,137 @@
+package com.easypost.easyvcr.requestelements;
+
+/**
+ * Represents a breakdown of where the time of an HTTP request tracked by EasyVCR was spent.
+ */
+public final class Timings {
+    /**
+     * The time spent opening the connection (DNS lookup, TCP connect and TLS handshake), in milliseconds.
+     * Zero if an existing connection was reused.
+     */
+    private long connect;
+
+    /**
+     * The time spent in the TLS handshake, in milliseconds.
+     * Zero for plain HTTP or if an existing connection was reused, -1 if it could not be measured.
+     */
+    private long handshake;
+
+    /**
+     * The time from sending the request until the response status line and headers arrived (time to first byte),
+     * in milliseconds. Zero if it was not measured.
+     */
+    private long firstByte;
+
+    /**
+     * The time spent receiving the response body, in milliseconds. Zero if it was not measured.
+     */
+    private long transfer;
+
+    /**
+     * Constructs a new Timings object.
+     *
+     * @param connect   The time spent opening the connection, in milliseconds.
+     * @param handshake The time spent in the TLS handshake, in milliseconds.
+     */
+    public Timings(long connect, long handshake) {
+        this.connect = connect;
+        this.handshake = handshake;
+    }
+
+    /**
+     * Constructs a new Timings object.
+     *
+     * @param connect   The time spent opening the connection, in milliseconds.
+     * @param handshake The time spent in the TLS handshake, in milliseconds.
+     * @param firstByte The time from sending the request until the response headers arrived, in milliseconds.
+     * @param transfer  The time spent receiving the response body, in milliseconds.
+     */
+    public Timings(long connect, long handshake, long firstByte, long transfer) {
+        this.connect = connect;
+        this.handshake = handshake;
+        this.firstByte = firstByte;
+        this.transfer = transfer;
+    }
+
+    /**
+     * Returns the time spent opening the connection (DNS lookup, TCP connect and TLS handshake).
+     *
+     * @return The time spent opening the connection, in milliseconds.
+     */
+    public long getConnect() {
+        return this.connect;
+    }
+
+    /**
+     * Sets the time spent opening the connection (DNS lookup, TCP connect and TLS handshake).
+     *
+     * @param connect The time spent opening the connection, in milliseconds.
+     */
+    public void setConnect(long connect) {
+        this.connect = connect;
+    }
+
+    /**
+     * Returns the time spent in the TLS handshake.
+     *
+     * @return The time spent in the TLS handshake, in milliseconds, or -1 if it could not be measured.
+     */
+    public long getHandshake() {
+        return this.handshake;
+    }
+
+    /**
+     * Sets the time spent in the TLS handshake.
+     *
+     * @param handshake The time spent in the TLS handshake, in milliseconds, or -1 if it could not be measured.
+     */
+    public void setHandshake(long handshake) {
+        this.handshake = handshake;
+    }
+
+    /**
+     * Returns the time from sending the request until the response status line and headers arrived.
+     *
+     * @return The time to first byte, in milliseconds, or 0 if it was not measured.
+     */
+    public long getFirstByte() {
+        return this.firstByte;
+    }
+
+    /**
+     * Sets the time from sending the request until the response status line and headers arrived.
+     *
+     * @param firstByte The time to first byte, in milliseconds.
+     */
+    public void setFirstByte(long firstByte) {
+        this.firstByte = firstByte;
+    }
+
+    /**
+     * Returns the time spent receiving the response body.
+     *
+     * @return The transfer time, in milliseconds, or 0 if it was not measured.
+     */
+    public long getTransfer() {
+        return this.transfer;
+    }
+
+    /**
+     * Sets the time spent receiving the response body.
+     *
+     * @param transfer The transfer time, in milliseconds.
+     */
+    public void setTransfer(long transfer) {
+        this.transfer = transfer;
+    }
+
+    /**
+     * Returns the rate the response body was received at.
+     *
+     * @param bodyLength The length of the response body, in bytes.
+     * @return The rate, in bytes per second, or 0 if the transfer time was not measured.
+     */
+    public long getBytesPerSecond(long bodyLength) {
+        return this.transfer <= 0 ? 0 : bodyLength * 1000 / this.transfer;
+    }
+}
@@ -0,0 +1,474 @@
+package com.easypost.easyvcr.server;
+
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.Statics;
+import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Request;
+import com.easypost.easyvcr.requestelements.Response;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.easypost.easyvcr.internal.Utilities.simulateDelay;
+
+/**
+ * A loopback HTTP server that answers requests with the responses recorded in a cassette,
+ * so services and tools that aren't written in Java can use recordings too.
+ * <p>
+ * The cassette is read once, when the server starts, into an immutable index shared by all handler threads.
+ * Requests are matched against it with the match rules (and censored with the censors) of the advanced settings,
+ * like requests made through a recordable client in Replay mode. Requests without a matching interaction are
+ * answered with a 404 (see {@link #NO_MATCH_STATUS}).
+ * <p>
+ * Incoming requests only carry a path, so they are matched as requests to the upstream origin (e.g.
+ * {@code https://api.example.com}) if one is set, or to the origin in the request's Host header otherwise.
+ */
+public final class ReplayServer {
+    /**
+     * The status code requests without a matching interaction are answered with.
+     */
+    public static final int NO_MATCH_STATUS = 404;
+    /**
+     * The number of pending connections to queue before refusing new ones.
+     */
+    private static final int BACKLOG = 1024;
+    /**
+     * Headers the server sets itself, which aren't replayed from the recording.
+     */
+    private static final String[] SERVER_HEADERS = {"Content-Length", "Transfer-Encoding", "Connection", "Date"};
+
+    /**
+     * The Cassette the server is replaying.
+     */
+    private final Cassette cassette;
+    /**
+     * The AdvancedSettings the server is using.
+     */
+    private final AdvancedSettings advancedSettings;
+    /**
+     * The address the server listens on.
+     */
+    private InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    /**
+     * The executor requests are handled on, null to handle them on the server's dispatcher thread.
+     */
+    private Executor executor;
+    /**
+     * The origin incoming requests are matched as requests to, null to use the Host header.
+     */
+    private String upstream;
+    /**
+     * The running server, null if the server isn't running.
+     */
+    private HttpServer server;
+    /**
+     * The recorded interactions, read once when the server starts and never changed afterwards.
+     */
+    private volatile ReplayedInteraction[] index = new ReplayedInteraction[0];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Constructor for ReplayServer.
+     *
+     * @param cassette         The cassette to replay.
+     * @param advancedSettings The advanced settings to use.
+     */
+    public ReplayServer(Cassette cassette, AdvancedSettings advancedSettings) {
+        if (cassette == null) {
+            throw new IllegalArgumentException("Cassette cannot be null");
+        }
+        this.cassette = cassette;
+        this.advancedSettings = advancedSettings != null ? advancedSettings : new AdvancedSettings();
+    }
+
+    /**
+     * Constructor for ReplayServer.
+     *
+     * @param cassette The cassette to replay.
+     */
+    public ReplayServer(Cassette cassette) {
+        this(cassette, new AdvancedSettings());
+    }
+
+    /**
+     * Listen on a specific port of the loopback address (a free port is picked by default).
+     *
+     * @param port The port to listen on, 0 to pick a free port.
+     * @return This ReplayServer.
+     */
+    public ReplayServer port(int port) {
+        this.address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        return this;
+    }
+
+    /**
+     * Listen on a specific address.
+     *
+     * @param address The address to listen on.
+     * @return This ReplayServer.
+     */
+    public ReplayServer address(InetSocketAddress address) {
+        this.address = address;
+        return this;
+    }
+
+    /**
+     * Handle requests on an executor (by default, requests are handled one by one on the server's thread).
+     *
+     * @param executor The executor to handle requests on.
+     * @return This ReplayServer.
+     */
+    public ReplayServer executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Match incoming requests as requests to an origin (by default, the origin in the Host header is used).
+     *
+     * @param origin The origin, e.g. "https://api.example.com".
+     * @return This ReplayServer.
+     */
+    public ReplayServer upstream(String origin) {
+        this.upstream = origin.endsWith("/") ? origin.substring(0, origin.length() - 1) : origin;
+        return this;
+    }
+
+    /**
+     * Read the cassette and start the server.
+     *
+     * @return This ReplayServer.
+     * @throws VCRException If the cassette could not be read.
+     * @throws IOException  If the server could not be started.
+     */
+    public synchronized ReplayServer start() throws VCRException, IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server is already running");
+        }
+        List<HttpInteraction> interactions = cassette.read();
+        ReplayedInteraction[] interactionIndex = new ReplayedInteraction[interactions.size()];
+        for (int i = 0; i < interactionIndex.length; i++) {
+            interactionIndex[i] = new ReplayedInteraction(interactions.get(i));
+        }
+        this.index = interactionIndex;
+
+        HttpServer httpServer = HttpServer.create(address, BACKLOG);
+        httpServer.createContext("/", this::handle);
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        this.server = httpServer;
+        return this;
+    }
+
+    /**
+     * Stop the server, waiting for at most the given delay for exchanges in progress to finish.
+     *
+     * @param delaySeconds The maximum time to wait, in seconds.
+     */
+    public synchronized void stop(int delaySeconds) {
+        if (server != null) {
+            server.stop(delaySeconds);
+            server = null;
+        }
+    }
+
+    /**
+     * Get the address the server is listening on.
+     *
+     * @return The address, or null if the server isn't running.
+     */
+    public synchronized InetSocketAddress getAddress() {
+        return server == null ? null : server.getAddress();
+    }
+
+    /**
+     * Get the number of requests answered with a recorded response.
+     *
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of requests without a matching interaction.
+     *
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the average time it took to answer a request (including simulated delays), in microseconds.
+     *
+     * @return The average latency, or 0 if no request has been answered yet.
+     */
+    public long getAverageLatencyMicros() {
+        long count = hits.sum() + misses.sum();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos.sum() / count);
+    }
+
+    /**
+     * Get the longest time it took to answer a request (including simulated delays), in microseconds.
+     *
+     * @return The maximum latency.
+     */
+    public long getMaxLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos.get());
+    }
+
+    /**
+     * Answer a request with its recorded response.
+     *
+     * @param exchange The exchange to answer.
+     * @throws IOException If the response could not be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            ReplayedInteraction match = findMatchingInteraction(toRequest(exchange));
+            if (match == null) {
+                misses.increment();
+                byte[] message = "No matching interaction found.".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
+                exchange.sendResponseHeaders(NO_MATCH_STATUS, message.length);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(message);
+                }
+                return;
+            }
+            hits.increment();
+            try {
+                simulateDelay(match.interaction, advancedSettings);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            match.send(exchange);
+        } finally {
+            long latency = System.nanoTime() - start;
+            totalLatencyNanos.add(latency);
+            maxLatencyNanos.accumulate(latency);
+            exchange.close();
+        }
+    }
+
+    /**
+     * Convert an incoming request to an EasyVCR request, censored like recorded requests are.
+     *
+     * @param exchange The exchange with the incoming request.
+     * @return The EasyVCR request, or null if the request could not be converted.
+     * @throws IOException If the request body could not be read.
+     */
+    private Request toRequest(HttpExchange exchange) throws IOException {
+        String body;
+        try (InputStream input = exchange.getRequestBody()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                output.write(buffer, 0, count);
+            }
+            body = output.toString(StandardCharsets.UTF_8.name());
+        }
+        try {
+            URI requestUri = exchange.getRequestURI();
+            String uriString;
+            if (requestUri.isAbsolute()) {
+                // sent as to a proxy
+                uriString = requestUri.toString();
+            } else if (upstream != null) {
+                uriString = upstream + requestUri;
+            } else {
+                uriString = "http://" + exchange.getRequestHeaders().getFirst("Host") + requestUri;
+            }
+            Map<String, List<String>> headers = new LinkedHashMap<>(exchange.getRequestHeaders());
+
+            Request request = new Request();
+            request.setMethod(exchange.getRequestMethod());
+            request.setUri(new URI(advancedSettings.censors.applyUrlCensors(uriString)));
+            request.setHeaders(advancedSettings.censors.applyHeaderCensors(headers));
+            request.setBody(advancedSettings.censors.applyBodyParameterCensors(body));
+            return request;
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * Find the first recorded interaction matching a request.
+     *
+     * @param request The EasyVCR request.
+     * @return The matching interaction, or null if there is none.
+     */
+    private ReplayedInteraction findMatchingInteraction(Request request) {
+        if (request == null) {
+            return null;
+        }
+        for (ReplayedInteraction candidate : index) {
+            if (advancedSettings.matchRules.requestsMatch(request, candidate.interaction.getRequest())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A recorded interaction, with its response prepared to be sent as often as needed without being changed.
+     */
+    private static final class ReplayedInteraction {
+        private final HttpInteraction interaction;
+        private final int status;
+        private final List<Map.Entry<String, List<String>>> headers;
+        /**
+         * The body of an in-heap response, copied out once so every exchange writes it directly.
+         */
+        private final byte[] body;
+        /**
+         * The memory-mapped body of a response stored in a body file (null if the body is in-heap).
+         */
+        private final ByteBuffer mappedBody;
+
+        ReplayedInteraction(HttpInteraction interaction) {
+            this.interaction = interaction;
+            // parsed now, so handler threads never race to parse it
+            interaction.getRequest().getNormalizedUri();
+            Response response = interaction.getResponse();
+            this.status = response.getStatus().getCode();
+            List<Map.Entry<String, List<String>>> responseHeaders = new ArrayList<>();
+            if (response.getHeaders() != null) {
+                for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+                    // HttpURLConnection recordings store the status line under a null key
+                    if (header.getKey() == null || header.getValue() == null || isServerHeader(header.getKey())) {
+                        continue;
+                    }
+                    responseHeaders.add(header);
+                }
+            }
+            for (Map.Entry<String, String> header : Statics.getReplayHeaders().entrySet()) {
+                responseHeaders.add(new AbstractMap.SimpleImmutableEntry<>(header.getKey(),
+                        Collections.singletonList(header.getValue())));
+            }
+            this.headers = Collections.unmodifiableList(responseHeaders);
+            ByteBuffer bodyBytes = response.getBodyBytes();
+            if (response.getBodyFile() != null) {
+                this.body = null;
+                this.mappedBody = bodyBytes;
+            } else {
+                this.body = new byte[bodyBytes.remaining()];
+                bodyBytes.get(this.body);
+                this.mappedBody = null;
+            }
+        }
+
+        private static boolean isServerHeader(String name) {
+            for (String serverHeader : SERVER_HEADERS) {
+                if (serverHeader.equalsIgnoreCase(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Send the recorded response.
+         *
+         * @param exchange The exchange to answer.
+         * @throws IOException If the response could not be sent.
+         */
+        void send(HttpExchange exchange) throws IOException {
+            Headers responseHeaders = exchange.getResponseHeaders();
+            for (Map.Entry<String, List<String>> header : headers) {
+                responseHeaders.put(header.getKey(), header.getValue());
+            }
+            int length = body != null ? body.length : mappedBody.remaining();
+            boolean noBody = length == 0 || "HEAD".equals(exchange.getRequestMethod()) || status == 204
+                    || status == 304;
+            exchange.sendResponseHeaders(status, noBody ? -1 : length);
+            if (noBody) {
+                return;
+            }
+            try (OutputStream output = exchange.getResponseBody()) {
+                if (body != null) {
+                    output.write(body);
+                } else {
+                    // a view per exchange, the shared buffer's position never changes
+                    ByteBuffer view = mappedBody.duplicate();
+                    byte[] chunk = new byte[Math.min(length, 65536)];
+                    while (view.hasRemaining()) {
+                        int count = Math.min(chunk.length, view.remaining());
+                        view.get(chunk, 0, count);
+                        output.write(chunk, 0, count);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Start a replay server from the command line and run it until the process is stopped.
+     * <p>
+     * Usage: {@code ReplayServer <cassette folder> <cassette name> [port] [threads] [upstream origin]}
+     *
+     * @param args The command line arguments.
+     * @throws Exception If the server could not be started.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length > 5) {
+            System.err.println(
+                    "Usage: ReplayServer <cassette folder> <cassette name> [port] [threads] [upstream origin]");
+            System.exit(2);
+            return;
+        }
+        // without this, kept-alive connections wait on delayed ACKs
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 8080;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors() * 2;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ReplayServer replayServer = new ReplayServer(new Cassette(args[0], args[1])).port(port).executor(executor);
+        if (args.length > 4) {
+            replayServer.upstream(args[4]);
+        }
+        replayServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            replayServer.stop(0);
+            executor.shutdown();
+            System.out.printf("%d hits, %d misses, %d us average latency, %d us max latency%n",
+                    replayServer.getHitCount(), replayServer.getMissCount(), replayServer.getAverageLatencyMicros(),
+                    replayServer.getMaxLatencyMicros());
+        }));
+        System.out.println("Replaying " + args[1] + " on http://" + replayServer.getAddress().getHostString() + ":"
+                + replayServer.getAddress().getPort());
+    }
+}
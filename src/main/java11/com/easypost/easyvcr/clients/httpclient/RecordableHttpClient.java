@@ -0,0 +1,386 @@
+package com.easypost.easyvcr.clients.httpclient;
+
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.RecordingExpirationException;
+import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.interactionconverters.HttpClientInteractionConverter;
+import com.easypost.easyvcr.internal.ConsoleFallbackLogger;
+import com.easypost.easyvcr.internal.ExpirationActionExtensions;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Request;
+import com.easypost.easyvcr.requestelements.Response;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static com.easypost.easyvcr.internal.Utilities.startDelay;
+
+/**
+ * A java.net.http.HttpClient that records requests to and replays responses from a cassette.
+ * <p>
+ * Replayed responses are fed to the caller's body handler straight from the cassette, so {@link #sendAsync}
+ * futures complete without blocking a thread (simulated delays are scheduled rather than slept).
+ * Recorded response bodies are captured as they stream through the caller's body subscriber; the interaction
+ * is recorded once the body is complete.
+ */
+public final class RecordableHttpClient extends HttpClient {
+    /**
+     * The HttpClient used to send requests that are not replayed.
+     */
+    private final HttpClient client;
+    /**
+     * The Cassette that this client is recording to and reading from.
+     */
+    private final Cassette cassette;
+    /**
+     * The VCR mode that this client is using.
+     */
+    private final Mode mode;
+    /**
+     * The AdvancedSettings that this client is using.
+     */
+    private final AdvancedSettings advancedSettings;
+    /**
+     * The HttpClientInteractionConverter that converts requests and responses to HttpInteractions.
+     */
+    private final HttpClientInteractionConverter converter;
+    /**
+     * Logger to use for logging (uses custom logger internally if set, otherwise logs to console).
+     */
+    private final ConsoleFallbackLogger logger;
+
+    /**
+     * Constructor for the RecordableHttpClient class.
+     *
+     * @param client           The HttpClient to send requests that are not replayed with.
+     * @param cassette         The cassette to use.
+     * @param mode             The mode to use.
+     * @param advancedSettings The advanced settings to use.
+     * @throws RecordingExpirationException If the expiration settings are not compatible with the mode.
+     */
+    public RecordableHttpClient(HttpClient client, Cassette cassette, Mode mode, AdvancedSettings advancedSettings)
+            throws RecordingExpirationException {
+        if (client == null) {
+            throw new IllegalArgumentException("Client cannot be null");
+        }
+        if (cassette == null) {
+            throw new IllegalArgumentException("Cassette cannot be null");
+        }
+        this.client = client;
+        this.cassette = cassette;
+        this.mode = mode;
+        this.advancedSettings = advancedSettings != null ? advancedSettings : new AdvancedSettings();
+        this.converter = new HttpClientInteractionConverter();
+        this.logger = new ConsoleFallbackLogger(this.advancedSettings.logger, "EasyVCR");
+        ExpirationActionExtensions.checkCompatibleSettings(this.advancedSettings.whenExpired, mode);
+    }
+
+    /**
+     * Constructor for the RecordableHttpClient class.
+     *
+     * @param client   The HttpClient to send requests that are not replayed with.
+     * @param cassette The cassette to use.
+     * @param mode     The mode to use.
+     * @throws RecordingExpirationException If the expiration settings are not compatible with the mode.
+     */
+    public RecordableHttpClient(HttpClient client, Cassette cassette, Mode mode)
+            throws RecordingExpirationException {
+        this(client, cassette, mode, new AdvancedSettings());
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return client.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return client.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return client.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return client.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return client.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return client.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return client.authenticator();
+    }
+
+    @Override
+    public Version version() {
+        return client.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return client.executor();
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        if (mode == Mode.Bypass) {
+            return client.send(request, responseBodyHandler);
+        }
+        try {
+            return sendAsync(request, responseBodyHandler).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            // VCRException or RecordingExpirationException, surfaced like the HttpURLConnection clients do
+            throw new RuntimeException(cause);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return sendAsync(request, responseBodyHandler, null);
+    }
+
+    /**
+     * Sends the given request asynchronously.
+     * Push promises are only passed through to the underlying client while recording; they are not recorded.
+     *
+     * @param request               The request.
+     * @param responseBodyHandler   The response body handler.
+     * @param pushPromiseHandler    The push promise handler, may be null.
+     * @param <T>                   The response body type.
+     * @return A future of the response.
+     */
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        if (mode == Mode.Bypass) {
+            return client.sendAsync(request, responseBodyHandler, pushPromiseHandler);
+        }
+        return captureRequestBody(request).thenCompose(body -> {
+            Request recordedRequest = converter.createRecordedRequest(request, body, advancedSettings.censors);
+            if (mode == Mode.Record) {
+                return record(request, body, recordedRequest, responseBodyHandler, pushPromiseHandler);
+            }
+            HttpInteraction matchingInteraction;
+            try {
+                matchingInteraction =
+                        converter.loadExistingInteraction(cassette, recordedRequest, advancedSettings, mode, logger);
+            } catch (VCRException | RecordingExpirationException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            if (matchingInteraction != null) {
+                return replay(request, matchingInteraction, responseBodyHandler);
+            }
+            if (mode == Mode.Auto) {
+                return record(request, body, recordedRequest, responseBodyHandler, pushPromiseHandler);
+            }
+            return CompletableFuture.failedFuture(new VCRException("No matching interaction found."));
+        });
+    }
+
+    /**
+     * Collect the body of a request from its body publisher.
+     *
+     * @param request The request.
+     * @return A future of the request body (empty if there is none).
+     */
+    private static CompletableFuture<byte[]> captureRequestBody(HttpRequest request) {
+        Optional<HttpRequest.BodyPublisher> publisher = request.bodyPublisher();
+        if (publisher.isEmpty() || publisher.get().contentLength() == 0) {
+            return CompletableFuture.completedFuture(new byte[0]);
+        }
+        RequestBodyCapture capture = new RequestBodyCapture();
+        publisher.get().subscribe(capture);
+        return capture.body;
+    }
+
+    /**
+     * Replay a recorded interaction by feeding its response body to the caller's body handler.
+     *
+     * @param request             The request.
+     * @param interaction         The recorded interaction.
+     * @param responseBodyHandler The caller's body handler.
+     * @param <T>                 The response body type.
+     * @return A future of the replayed response.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> replay(HttpRequest request, HttpInteraction interaction,
+                                                          HttpResponse.BodyHandler<T> responseBodyHandler) {
+        Response response = interaction.getResponse();
+        response.addReplayHeaders();
+        int statusCode = response.getStatus().getCode();
+        HttpHeaders headers = converter.toHttpHeaders(response);
+
+        long delay = startDelay(interaction, advancedSettings);
+        CompletableFuture<Void> ready;
+        if (delay > 0) {
+            // schedule rather than sleep, so no thread is blocked while waiting
+            Executor executor = client.executor().orElse(ForkJoinPool.commonPool());
+            ready = CompletableFuture.runAsync(() -> {
+            }, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, executor));
+        } else {
+            ready = CompletableFuture.completedFuture(null);
+        }
+
+        return ready.thenCompose(ignored -> {
+            HttpResponse.ResponseInfo responseInfo = new ReplayedResponseInfo(statusCode, headers);
+            HttpResponse.BodySubscriber<T> subscriber = responseBodyHandler.apply(responseInfo);
+            subscriber.onSubscribe(new ReplayedBodySubscription(subscriber, response.getBodyBytes()));
+            return subscriber.getBody().<HttpResponse<T>>thenApply(
+                    body -> new ReplayedHttpResponse<>(request, statusCode, headers, body)).toCompletableFuture();
+        });
+    }
+
+    /**
+     * Send a request with the underlying client and record the interaction once the response body is complete.
+     *
+     * @param request             The request.
+     * @param body                The request body, already collected from the request's body publisher.
+     * @param recordedRequest     The EasyVCR request.
+     * @param responseBodyHandler The caller's body handler.
+     * @param pushPromiseHandler  The push promise handler, may be null.
+     * @param <T>                 The response body type.
+     * @return A future of the response.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> record(HttpRequest request, byte[] body, Request recordedRequest,
+                                                          HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                          HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        long start = System.nanoTime();
+        HttpResponse.BodyHandler<T> recordingBodyHandler = responseInfo -> {
+            // time how long it takes to get the initial response, like the HttpURLConnection clients do
+            long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new RecordingBodySubscriber<>(responseBodyHandler.apply(responseInfo), captured -> {
+                Response response =
+                        converter.createRecordedResponse(responseInfo, request.uri(), captured,
+                                advancedSettings.censors);
+                HttpInteraction interaction = converter.createInteraction(recordedRequest, response, duration);
+                synchronized (cassette) {
+                    cassette.updateInteraction(interaction, advancedSettings.matchRules, false);
+                }
+            });
+        };
+        // the body publisher was used up collecting the body, so send a copy of the request with the collected body
+        return client.sendAsync(copyRequest(request, body), recordingBodyHandler, pushPromiseHandler);
+    }
+
+    /**
+     * Copy a request, replacing its body publisher with one of the already collected body.
+     *
+     * @param request The request.
+     * @param body    The request body.
+     * @return The copied request.
+     */
+    private static HttpRequest copyRequest(HttpRequest request, byte[] body) {
+        HttpRequest.BodyPublisher publisher = request.bodyPublisher().isPresent()
+                ? HttpRequest.BodyPublishers.ofByteArray(body)
+                : HttpRequest.BodyPublishers.noBody();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri())
+                .method(request.method(), publisher)
+                .expectContinue(request.expectContinue());
+        request.timeout().ifPresent(builder::timeout);
+        request.version().ifPresent(builder::version);
+        request.headers().map().forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+        return builder.build();
+    }
+
+    /**
+     * The status and headers of a replayed response.
+     */
+    private static final class ReplayedResponseInfo implements HttpResponse.ResponseInfo {
+        private final int statusCode;
+        private final HttpHeaders headers;
+
+        ReplayedResponseInfo(int statusCode, HttpHeaders headers) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+        }
+
+        @Override
+        public int statusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        public Version version() {
+            return Version.HTTP_1_1;
+        }
+    }
+
+    /**
+     * Collects the bytes published by a request body publisher.
+     */
+    private static final class RequestBodyCapture implements Flow.Subscriber<ByteBuffer> {
+        private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+        private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            byte[] bytes = new byte[item.remaining()];
+            item.get(bytes);
+            captured.write(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            body.complete(captured.toByteArray());
+        }
+    }
+}
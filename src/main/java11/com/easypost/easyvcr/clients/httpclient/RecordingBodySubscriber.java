@@ -0,0 +1,95 @@
+package com.easypost.easyvcr.clients.httpclient;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * A body subscriber that passes the response body through to the caller's subscriber while keeping a copy of it.
+ * Once the body is complete, the copy is handed to a listener before the caller's subscriber is completed.
+ *
+ * @param <T> The type of the response body.
+ */
+final class RecordingBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+    /**
+     * Listener notified with the captured bytes once the body is complete.
+     */
+    interface CompleteListener {
+        /**
+         * Called once the whole body has been received.
+         *
+         * @param captured All bytes of the body.
+         * @throws Exception If the captured bytes could not be processed.
+         */
+        void onComplete(byte[] captured) throws Exception;
+    }
+
+    /**
+     * The caller's subscriber.
+     */
+    private final HttpResponse.BodySubscriber<T> delegate;
+    /**
+     * The listener to notify once the body is complete.
+     */
+    private final CompleteListener listener;
+    /**
+     * The copy of every byte received.
+     */
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+    /**
+     * Constructor for RecordingBodySubscriber.
+     *
+     * @param delegate The caller's subscriber.
+     * @param listener The listener to notify with the captured bytes once the body is complete.
+     */
+    RecordingBodySubscriber(HttpResponse.BodySubscriber<T> delegate, CompleteListener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return delegate.getBody();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        delegate.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        for (ByteBuffer item : items) {
+            // copy from a view, the caller's subscriber still has to read the buffer itself
+            ByteBuffer view = item.duplicate();
+            if (view.hasArray()) {
+                captured.write(view.array(), view.arrayOffset() + view.position(), view.remaining());
+            } else {
+                byte[] bytes = new byte[view.remaining()];
+                view.get(bytes);
+                captured.write(bytes, 0, bytes.length);
+            }
+        }
+        delegate.onNext(items);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        delegate.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            listener.onComplete(captured.toByteArray());
+        } catch (Exception e) {
+            delegate.onError(e);
+            return;
+        }
+        delegate.onComplete();
+    }
+}
@@ -0,0 +1,56 @@
+package com.easypost.easyvcr.clients.httpclient;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * A subscription that delivers a replayed response body to a body subscriber in a single item, on the thread that
+ * requests it.
+ */
+final class ReplayedBodySubscription implements Flow.Subscription {
+    /**
+     * The subscriber to deliver the body to.
+     */
+    private final Flow.Subscriber<? super List<ByteBuffer>> subscriber;
+    /**
+     * The body to deliver.
+     */
+    private final ByteBuffer body;
+    /**
+     * Whether the body has been delivered (or the subscription cancelled).
+     */
+    private boolean done;
+
+    /**
+     * Constructor for ReplayedBodySubscription.
+     *
+     * @param subscriber The subscriber to deliver the body to.
+     * @param body       The body to deliver.
+     */
+    ReplayedBodySubscription(Flow.Subscriber<? super List<ByteBuffer>> subscriber, ByteBuffer body) {
+        this.subscriber = subscriber;
+        this.body = body;
+    }
+
+    @Override
+    public synchronized void request(long n) {
+        if (done) {
+            return;
+        }
+        done = true;
+        if (n <= 0) {
+            subscriber.onError(new IllegalArgumentException("non-positive subscription request: " + n));
+            return;
+        }
+        if (body.hasRemaining()) {
+            subscriber.onNext(List.of(body));
+        }
+        subscriber.onComplete();
+    }
+
+    @Override
+    public synchronized void cancel() {
+        done = true;
+    }
+}
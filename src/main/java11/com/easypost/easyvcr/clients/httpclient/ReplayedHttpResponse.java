@@ -0,0 +1,88 @@
+package com.easypost.easyvcr.clients.httpclient;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+
+/**
+ * An HttpClient response replayed from a cassette.
+ *
+ * @param <T> The type of the response body.
+ */
+final class ReplayedHttpResponse<T> implements HttpResponse<T> {
+    /**
+     * The request the response was replayed for.
+     */
+    private final HttpRequest request;
+    /**
+     * The status code of the response.
+     */
+    private final int statusCode;
+    /**
+     * The headers of the response.
+     */
+    private final HttpHeaders headers;
+    /**
+     * The body of the response, as converted by the caller's body handler.
+     */
+    private final T body;
+
+    /**
+     * Constructor for ReplayedHttpResponse.
+     *
+     * @param request    The request the response was replayed for.
+     * @param statusCode The status code of the response.
+     * @param headers    The headers of the response.
+     * @param body       The body of the response.
+     */
+    ReplayedHttpResponse(HttpRequest request, int statusCode, HttpHeaders headers, T body) {
+        this.request = request;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    @Override
+    public int statusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public HttpRequest request() {
+        return request;
+    }
+
+    @Override
+    public Optional<HttpResponse<T>> previousResponse() {
+        return Optional.empty();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    @Override
+    public T body() {
+        return body;
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+        return Optional.empty();
+    }
+
+    @Override
+    public URI uri() {
+        return request.uri();
+    }
+
+    @Override
+    public HttpClient.Version version() {
+        return HttpClient.Version.HTTP_1_1;
+    }
+}
@@ -0,0 +1,115 @@
+package com.easypost.easyvcr.interactionconverters;
+
+import com.easypost.easyvcr.Censors;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Request;
+import com.easypost.easyvcr.requestelements.Response;
+import com.easypost.easyvcr.requestelements.Status;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The interaction converter to convert java.net.http.HttpClient requests/responses to/from EasyVCR
+ * requests/responses.
+ */
+public final class HttpClientInteractionConverter extends BaseInteractionConverter {
+    /**
+     * Convert an HttpRequest to an EasyVCR request.
+     *
+     * @param httpRequest The HttpRequest.
+     * @param body        The request body, as captured from the request's body publisher.
+     * @param censors     The censors to apply to the request.
+     * @return The EasyVCR request, or null if the request could not be converted.
+     */
+    public Request createRecordedRequest(HttpRequest httpRequest, byte[] body, Censors censors) {
+        try {
+            // collect elements from the request
+            String uriString = httpRequest.uri().toString();
+            Map<String, List<String>> headers = new LinkedHashMap<>(httpRequest.headers().map());
+            String bodyString = new String(body, StandardCharsets.UTF_8);
+
+            // apply censors
+            uriString = censors.applyUrlCensors(uriString);
+            headers = censors.applyHeaderCensors(headers);
+            bodyString = censors.applyBodyParameterCensors(bodyString);
+
+            // create the request
+            Request request = new Request();
+            request.setMethod(httpRequest.method());
+            request.setUri(new URI(uriString));
+            request.setHeaders(headers);
+            request.setBody(bodyString);
+
+            return request;
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * Convert the status, headers and body of an HttpClient response to an EasyVCR response.
+     *
+     * @param responseInfo The status and headers of the response.
+     * @param uri          The URI of the response.
+     * @param body         The raw (UTF-8) response body.
+     * @param censors      The censors to apply to the response.
+     * @return The EasyVCR response.
+     * @throws URISyntaxException If the censored URI is invalid.
+     */
+    public Response createRecordedResponse(HttpResponse.ResponseInfo responseInfo, URI uri, byte[] body,
+                                           Censors censors) throws URISyntaxException {
+        // apply censors
+        String uriString = censors.applyUrlCensors(uri.toString());
+        Map<String, List<String>> headers =
+                censors.applyHeaderCensors(new LinkedHashMap<>(responseInfo.headers().map()));
+        // we don't censor the response body, only the request body
+
+        // create the response
+        Response response = new Response();
+        // HttpClient doesn't expose the reason phrase
+        response.setStatus(new Status(responseInfo.statusCode(), null));
+        response.setUri(new URI(uriString));
+        response.setHeaders(headers);
+        response.setBody(censors.applyBodyParameterCensors(new String(body, StandardCharsets.UTF_8)));
+        return response;
+    }
+
+    /**
+     * Create an EasyVCR HttpInteraction from a converted request and response.
+     *
+     * @param request  The EasyVCR request.
+     * @param response The EasyVCR response.
+     * @param duration The time it took to receive the response status and headers, in milliseconds.
+     * @return The EasyVCR HttpInteraction.
+     */
+    public HttpInteraction createInteraction(Request request, Response response, long duration) {
+        return super.createInteraction(request, response, duration);
+    }
+
+    /**
+     * Convert the headers of a recorded response to HttpClient response headers.
+     *
+     * @param response The recorded response.
+     * @return The HttpClient response headers.
+     */
+    public HttpHeaders toHttpHeaders(Response response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        if (response.getHeaders() != null) {
+            for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+                // HttpURLConnection recordings store the status line under a null key
+                if (header.getKey() != null && header.getValue() != null) {
+                    headers.put(header.getKey(), header.getValue());
+                }
+            }
+        }
+        return HttpHeaders.of(headers, (name, value) -> true);
+    }
+}
@@ -0,0 +1,75 @@
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.MatchRules;
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.clients.apachehttpclient5.RecordableHttpAsyncClients;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.http.ContentType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+
+public class ApacheHttpClient5Test {
+
+    private static SimpleHttpResponse execute(CloseableHttpAsyncClient client, SimpleHttpRequest request)
+            throws Exception {
+        client.start();
+        try {
+            return client.execute(request, null).get();
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_apache_http_client_5_record_and_replay");
+        cassette.erase(); // Erase cassette before recording
+        AdvancedSettings advancedSettings = new AdvancedSettings();
+        advancedSettings.matchRules = new MatchRules().byMethod().byBody();
+
+        HttpServer server = TestUtils.startLocalServer(200, "{\"recorded\": true}");
+        try {
+            SimpleHttpRequest request = SimpleRequestBuilder.post(TestUtils.getLocalServerUrl(server))
+                    .setBody("{'name': 'Upendra'}", ContentType.APPLICATION_JSON)
+                    .build();
+            SimpleHttpResponse response =
+                    execute(RecordableHttpAsyncClients.custom(cassette, Mode.Record, advancedSettings).build(),
+                            request);
+            Assert.assertEquals(200, response.getCode());
+            Assert.assertEquals("{\"recorded\": true}", response.getBodyText());
+        } finally {
+            server.stop(0);
+        }
+        Assert.assertEquals(1, cassette.numInteractions());
+        Assert.assertEquals("{'name': 'Upendra'}", cassette.read().get(0).getRequest().getBody());
+        Assert.assertEquals("{\"recorded\": true}", cassette.read().get(0).getResponse().getBody());
+
+        // the server is gone, so the response can only come from the cassette
+        SimpleHttpRequest request = SimpleRequestBuilder.post("http://easyvcr-replay.invalid/")
+                .setBody("{'name': 'Upendra'}", ContentType.APPLICATION_JSON)
+                .build();
+        SimpleHttpResponse response =
+                execute(RecordableHttpAsyncClients.custom(cassette, Mode.Replay, advancedSettings).build(), request);
+        Assert.assertEquals(200, response.getCode());
+        Assert.assertEquals("{\"recorded\": true}", response.getBodyText());
+        Assert.assertNotNull(response.getFirstHeader("X-Via-EasyVCR-Recording"));
+    }
+
+    @Test
+    public void testReplayWithoutMatch() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_apache_http_client_5_replay_without_match");
+        cassette.erase(); // Erase cassette before recording
+
+        CloseableHttpAsyncClient client = RecordableHttpAsyncClients.custom(cassette, Mode.Replay).build();
+        SimpleHttpRequest request = SimpleRequestBuilder.get("http://easyvcr-replay.invalid/").build();
+        ExecutionException exception = Assert.assertThrows(ExecutionException.class, () -> execute(client, request));
+        Assert.assertTrue(exception.getCause() instanceof VCRException);
+    }
+}
@@ -0,0 +1,74 @@
+import com.easypost.easyvcr.internal.ByteBufferInputStream;
+import com.easypost.easyvcr.requestelements.Response;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class ByteBufferInputStreamTest {
+
+    private static String read(InputStream input, int length) throws Exception {
+        byte[] bytes = new byte[length];
+        int count = input.read(bytes);
+        return count < 0 ? null : new String(bytes, 0, count, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer buffer(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+    }
+
+    @Test
+    public void testResetWithoutMark() throws Exception {
+        ByteBuffer buffer = buffer("0123456789");
+        buffer.position(2);
+        InputStream input = new ByteBufferInputStream(buffer);
+
+        Assert.assertEquals("2345", read(input, 4));
+        // back to where the stream started, like ByteArrayInputStream
+        input.reset();
+        Assert.assertEquals("23", read(input, 2));
+        Assert.assertEquals(2, buffer.position());
+    }
+
+    @Test
+    public void testMarkAndReset() throws Exception {
+        InputStream input = new ByteBufferInputStream(buffer("0123456789"));
+        Assert.assertTrue(input.markSupported());
+
+        Assert.assertEquals("012", read(input, 3));
+        input.mark(0);
+        Assert.assertEquals("3456", read(input, 4));
+        Assert.assertEquals(3, input.available());
+        input.reset();
+        Assert.assertEquals(7, input.available());
+        Assert.assertEquals('3', input.read());
+        Assert.assertEquals(2, input.skip(2));
+        Assert.assertEquals("6789", read(input, 10));
+        Assert.assertNull(read(input, 10));
+        input.reset();
+        Assert.assertEquals("3456789", read(input, 10));
+    }
+
+    @Test
+    public void testStreamsOverTheSameBodyAreIndependent() throws Exception {
+        Response response = new Response();
+        response.setBody("{\"id\": \"shp_123\"}");
+
+        InputStream first = new ByteBufferInputStream(response.getBodyBytes());
+        InputStream second = new ByteBufferInputStream(response.getBodyBytes());
+        Assert.assertEquals("{\"id\"", read(first, 5));
+        Assert.assertEquals("{\"id\": \"shp", read(second, 11));
+        first.mark(0);
+        Assert.assertEquals(": \"", read(first, 3));
+        second.reset();
+
+        InputStream third = new ByteBufferInputStream(response.getBodyBytes());
+        Assert.assertEquals("{\"id\": \"shp_123\"}", read(third, 100));
+        Assert.assertEquals("{\"id\": \"shp_123\"}", read(second, 100));
+        first.reset();
+        Assert.assertEquals(": \"shp_123\"}", read(first, 100));
+        Assert.assertEquals("{\"id\": \"shp_123\"}", response.getBody());
+    }
+}
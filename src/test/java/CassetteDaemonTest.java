@@ -0,0 +1,101 @@
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.clients.httpurlconnection.RecordableHttpURLConnection;
+import com.easypost.easyvcr.clients.httpurlconnection.RecordableURL;
+import com.easypost.easyvcr.daemon.CassetteDaemon;
+import com.easypost.easyvcr.daemon.CassetteDaemonClient;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class CassetteDaemonTest {
+
+    private static String record(String url, String cassetteName) throws Exception {
+        RecordableHttpURLConnection connection =
+                TestUtils.getSimpleHttpURLConnection(url, cassetteName, Mode.Record, new AdvancedSettings());
+        try (InputStream input = connection.getInputStream()) {
+            return new String(TestUtils.readAllBytes(input), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String replay(String url, Cassette cassette) throws Exception {
+        RecordableHttpURLConnection connection = new RecordableURL(url, cassette, Mode.Replay).openConnection();
+        Assert.assertEquals(200, connection.getResponseCode());
+        Assert.assertEquals("true", connection.getHeaderField("X-Via-EasyVCR-Recording"));
+        try (InputStream input = connection.getInputStream()) {
+            return new String(TestUtils.readAllBytes(input), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void testDaemon(boolean loopbackTcp) throws Exception {
+        TestUtils.getCassette("test_cassette_daemon").erase(); // Erase cassette before recording
+        TestUtils.getCassette("test_cassette_daemon_late").erase();
+
+        String url;
+        HttpServer server = TestUtils.startLocalServer(200, "{\"id\": \"shp_123\"}");
+        try {
+            url = TestUtils.getLocalServerUrl(server) + "v2/shipments";
+            Assert.assertEquals("{\"id\": \"shp_123\"}", record(url, "test_cassette_daemon"));
+
+            Path folder = Files.createTempDirectory("easyvcr");
+            Path endpoint = folder.resolve("daemon.sock");
+            CassetteDaemon daemon = new CassetteDaemon(TestUtils.cassetteFolder);
+            if (loopbackTcp) {
+                daemon.loopbackTcp();
+            }
+            daemon.start(endpoint);
+            // recorded after the daemon read the cassettes
+            record(url + "?late=true", "test_cassette_daemon_late");
+            record(url + "?late=true", "test_cassette_daemon");
+            server.stop(0);
+            server = null;
+
+            try (CassetteDaemonClient client = new CassetteDaemonClient(endpoint)) {
+                Assert.assertTrue(daemon.getCassetteNames().contains("test_cassette_daemon"));
+                Assert.assertEquals(loopbackTcp, Files.isRegularFile(endpoint));
+
+                // the upstream server is gone, so responses can only come from the daemon (or the cassette file)
+                Cassette cassette = TestUtils.getCassette("test_cassette_daemon").replayFrom(client);
+                for (int i = 0; i < 3; i++) {
+                    Assert.assertEquals("{\"id\": \"shp_123\"}", replay(url, cassette));
+                }
+                Assert.assertEquals(3, daemon.getHitCount());
+
+                // the cassette files changed since the daemon started, so it reads them again
+                Assert.assertEquals("{\"id\": \"shp_123\"}", replay(url + "?late=true", cassette));
+                Cassette lateCassette = TestUtils.getCassette("test_cassette_daemon_late").replayFrom(client);
+                Assert.assertEquals("{\"id\": \"shp_123\"}", replay(url + "?late=true", lateCassette));
+                Assert.assertEquals(5, daemon.getHitCount());
+
+                cassette.lock();
+                Assert.assertThrows(Exception.class, () -> replay(url, cassette));
+                Assert.assertEquals(5, daemon.getHitCount());
+            } finally {
+                daemon.stop();
+            }
+            Assert.assertFalse(Files.exists(endpoint));
+            Files.delete(folder);
+        } finally {
+            if (server != null) {
+                server.stop(0);
+            }
+        }
+    }
+
+    @Test
+    public void testDaemon() throws Exception {
+        // a Unix domain socket on Java 16+
+        testDaemon(false);
+    }
+
+    @Test
+    public void testDaemonOverLoopbackTcp() throws Exception {
+        testDaemon(true);
+    }
+}
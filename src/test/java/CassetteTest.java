@@ -0,0 +1,156 @@
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.MatchRules;
+import com.easypost.easyvcr.internal.Files;
+import com.easypost.easyvcr.internal.Utilities;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.LatencyDistribution;
+import com.easypost.easyvcr.requestelements.Request;
+import com.easypost.easyvcr.requestelements.Response;
+import com.easypost.easyvcr.requestelements.Status;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class CassetteTest {
+
+    private static HttpInteraction createInteraction(String url, String responseBody) throws Exception {
+        Request request = new Request();
+        request.setMethod("GET");
+        request.setUri(new URI(url));
+        request.setHeaders(new HashMap<>());
+        request.setBody("");
+
+        Response response = new Response();
+        response.setStatus(new Status(200, "OK"));
+        response.setUri(new URI(url));
+        response.setHeaders(new HashMap<>());
+        response.setBody(responseBody);
+
+        return new HttpInteraction(request, response, 10);
+    }
+
+    private static String readAll(InputStream input) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = input.read(buffer)) != -1) {
+            output.write(buffer, 0, count);
+        }
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testStoreLargeBodiesInFiles() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_store_large_bodies_in_files");
+        cassette.erase(); // Erase cassette before recording
+        cassette.storeLargeBodiesInFiles(1024);
+
+        StringBuilder largeBody = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            largeBody.append("{\"line\": ").append(i).append(", \"text\": \"äöü\"}\n");
+        }
+        cassette.updateInteraction(createInteraction("https://example.com/large", largeBody.toString()),
+                MatchRules.regular(), false);
+        cassette.updateInteraction(createInteraction("https://example.com/small", "small body"),
+                MatchRules.regular(), false);
+
+        List<HttpInteraction> interactions = cassette.read();
+        Response large = interactions.get(0).getResponse();
+        Response small = interactions.get(1).getResponse();
+        Assert.assertNotNull(large.getBodyFile());
+        Assert.assertNull(small.getBodyFile());
+        Assert.assertEquals(largeBody.toString(), readAll(large.getBodyInputStream()));
+        Assert.assertEquals(largeBody.toString(), large.getBody());
+        Assert.assertEquals("small body", small.getBody());
+
+        // the cassette only mentions body files where they are used
+        String cassetteJson = Files.readFile(TestUtils.cassetteFolder + "/" + cassette.name + ".json");
+        Assert.assertEquals(cassetteJson.indexOf("\"bodyFile\""), cassetteJson.lastIndexOf("\"bodyFile\""));
+
+        // re-recorded with a different body, the file of the old body is deleted
+        String changedBody = largeBody + "{\"line\": \"changed\"}\n";
+        cassette.updateInteraction(createInteraction("https://example.com/large", changedBody), MatchRules.regular(),
+                false);
+        File[] bodyFiles = new File(TestUtils.cassetteFolder, cassette.name + ".bodies").listFiles();
+        Assert.assertNotNull(bodyFiles);
+        Assert.assertEquals(1, bodyFiles.length);
+        Assert.assertEquals(changedBody, cassette.read().get(0).getResponse().getBody());
+
+        cassette.erase();
+    }
+
+    @Test
+    public void testCassetteFormatUnchangedWithoutBodyFiles() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_cassette_format_unchanged");
+        cassette.erase(); // Erase cassette before recording
+        HttpInteraction interaction = createInteraction("https://example.com/", "body");
+        cassette.updateInteraction(interaction, MatchRules.regular(), false);
+
+        String cassetteJson = Files.readFile(TestUtils.cassetteFolder + "/" + cassette.name + ".json");
+        Assert.assertFalse(cassetteJson.contains("bodyFile"));
+        Assert.assertEquals("body", cassette.read().get(0).getResponse().getBody());
+
+        cassette.erase();
+    }
+
+    @Test
+    public void testLatencyDistributionOfRetakes() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_latency_distribution_of_retakes");
+        cassette.erase(); // Erase cassette before recording
+        for (int duration : new int[] { 100, 300, 200 }) {
+            HttpInteraction interaction = createInteraction("https://example.com/", "body");
+            interaction.setDuration(duration);
+            cassette.updateInteraction(interaction, MatchRules.regular(), false);
+        }
+
+        LatencyDistribution latency = cassette.read().get(0).getLatency();
+        Assert.assertEquals(3, latency.getCount());
+        Assert.assertEquals(100, latency.getPercentile(0));
+        Assert.assertEquals(200, latency.getPercentile(50));
+        Assert.assertEquals(300, latency.getPercentile(100));
+        int cassetteLength = Files.readFile(TestUtils.cassetteFolder + "/" + cassette.name + ".json").length();
+
+        for (int i = 0; i < 200; i++) {
+            HttpInteraction interaction = createInteraction("https://example.com/", "body");
+            interaction.setDuration(200 + i % 10);
+            cassette.updateInteraction(interaction, MatchRules.regular(), false);
+        }
+        latency = cassette.read().get(0).getLatency();
+        Assert.assertEquals(203, latency.getCount());
+        Assert.assertTrue(latency.getPercentile(50) >= 200 && latency.getPercentile(50) <= 209);
+        // only the summary is stored, so the cassette doesn't grow with the number of takes
+        int finalLength = Files.readFile(TestUtils.cassetteFolder + "/" + cassette.name + ".json").length();
+        Assert.assertTrue(Math.abs(finalLength - cassetteLength) < 64);
+
+        // the same seed draws the same delays
+        HttpInteraction replayed = cassette.read().get(0);
+        long[] first = drawDelays(replayed, 42);
+        Assert.assertArrayEquals(first, drawDelays(replayed, 42));
+        for (long delay : first) {
+            Assert.assertTrue(delay >= latency.getPercentile(0) && delay <= latency.getPercentile(100));
+        }
+
+        cassette.erase();
+    }
+
+    private static long[] drawDelays(HttpInteraction interaction, long seed) {
+        AdvancedSettings advancedSettings = new AdvancedSettings();
+        advancedSettings.simulateDelay = true;
+        advancedSettings.random = new Random(seed);
+        long[] delays = new long[20];
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = TimeUnit.NANOSECONDS.toMillis(Utilities.startDelay(interaction, advancedSettings));
+        }
+        return delays;
+    }
+}
@@ -0,0 +1,105 @@
+import com.easypost.easyvcr.Censors;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CensorsTest {
+
+    @Test
+    public void testCensoredBodyCache() {
+        List<String> bodyElements = new ArrayList<>();
+        bodyElements.add("api_key");
+        Censors censors = new Censors("censored-by-test").censorBodyElementsByKeys(bodyElements)
+                .cacheCensoredBodies(10);
+
+        String body = "{\"api_key\": \"secret\", \"name\": \"value\"}";
+        String firstResult = censors.applyBodyParameterCensors(body);
+        String secondResult = censors.applyBodyParameterCensors(body);
+
+        Assert.assertEquals(firstResult, secondResult);
+        Assert.assertTrue(firstResult.contains("censored-by-test"));
+        Assert.assertFalse(firstResult.contains("secret"));
+        Assert.assertEquals(1, censors.getBodyCensorCacheMisses());
+        Assert.assertEquals(1, censors.getBodyCensorCacheHits());
+
+        // changing the censor configuration should not serve the old censored body
+        List<String> moreBodyElements = new ArrayList<>();
+        moreBodyElements.add("name");
+        censors.censorBodyElementsByKeys(moreBodyElements);
+        String thirdResult = censors.applyBodyParameterCensors(body);
+
+        Assert.assertFalse(thirdResult.contains("value"));
+        Assert.assertEquals(2, censors.getBodyCensorCacheMisses());
+    }
+
+    @Test
+    public void testParallelArrayCensoringMatchesSequential() {
+        List<String> bodyElements = new ArrayList<>();
+        bodyElements.add("api_key");
+
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) {
+                body.append(",");
+            }
+            body.append("{\"id\": ").append(i).append(", \"api_key\": \"secret\", \"items\": [1, 2, {\"api_key\": 3}]}");
+        }
+        body.append("]");
+
+        String sequential = new Censors().censorBodyElementsByKeys(bodyElements)
+                .applyBodyParameterCensors(body.toString());
+        String parallel = new Censors().censorBodyElementsByKeys(bodyElements).censorLargeArraysInParallel(100)
+                .applyBodyParameterCensors(body.toString());
+
+        Assert.assertEquals(sequential, parallel);
+        Assert.assertFalse(parallel.contains("secret"));
+    }
+
+    @Test
+    public void testCensorBodyElementsByPath() {
+        List<String> paths = new ArrayList<>();
+        paths.add("$.card.id");
+        paths.add("$.shipments[*].parcel");
+        paths.add("$..password");
+        Censors censors = new Censors("censored-by-test").censorBodyElementsByPath(paths);
+
+        String body = "{\"id\": \"keep-1\", \"card\": {\"id\": \"hide-1\", \"name\": \"keep-2\"}, "
+                + "\"shipments\": [{\"id\": \"keep-3\", \"parcel\": {\"weight\": 1}}], "
+                + "\"nested\": {\"deeper\": {\"password\": \"hide-2\"}}}";
+        String censoredBody = censors.applyBodyParameterCensors(body);
+
+        Assert.assertTrue(censoredBody.contains("keep-1"));
+        Assert.assertTrue(censoredBody.contains("keep-2"));
+        Assert.assertTrue(censoredBody.contains("keep-3"));
+        Assert.assertFalse(censoredBody.contains("hide-1"));
+        Assert.assertFalse(censoredBody.contains("hide-2"));
+        Assert.assertFalse(censoredBody.contains("weight"));
+        Assert.assertTrue(censoredBody.contains("censored-by-test"));
+    }
+
+    @Test
+    public void testCensorBodyElementsByInvalidPath() {
+        List<String> paths = new ArrayList<>();
+        paths.add("card.id");
+        Assert.assertThrows(IllegalArgumentException.class, () -> new Censors().censorBodyElementsByPath(paths));
+    }
+
+    @Test
+    public void testUrlCensors() {
+        List<String> queryParameters = new ArrayList<>();
+        queryParameters.add("api_key");
+        List<String> pathPatterns = new ArrayList<>();
+        pathPatterns.add("\\d{6}");
+        Censors censors = new Censors("censored-by-test").censorQueryParametersByKeys(queryParameters)
+                .censorPathElementsByPattern(pathPatterns);
+
+        String censoredUrl = censors.applyUrlCensors(
+                "https://user@api.example.com:8443/v2/shipments/123456?api_key=secret&carrier=usps%20ground");
+
+        Assert.assertEquals(
+                "https://user@api.example.com:8443/v2/shipments/censored-by-test?api_key=censored-by-test"
+                        + "&carrier=usps%20ground", censoredUrl);
+    }
+}
@@ -10,20 +10,37 @@ import com.easypost.easyvcr.Mode;
 import com.easypost.easyvcr.RecordingExpirationException;
 import com.easypost.easyvcr.TimeFrame;
 import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.VirtualClock;
+import com.easypost.easyvcr.clients.httpurlconnection.RecordableHttpURLConnection;
 import com.easypost.easyvcr.clients.httpurlconnection.RecordableHttpsURLConnection;
+import com.easypost.easyvcr.clients.httpurlconnection.RecordableRequestBody;
+import com.easypost.easyvcr.faults.FaultInjector;
+import com.easypost.easyvcr.faults.FaultProfile;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.easypost.easyvcr.requestelements.Timings;
 import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.easypost.easyvcr.internal.Utilities.readFromInputStream;
 
@@ -573,4 +590,494 @@ public class HttpUrlConnectionTest {
             Assert.assertEquals(e.getCause().getMessage(), "No matching interaction found.");
         }
     }
+
+    @Test
+    public void testTeeResponseStreams() throws Exception {
+        String body = "first line\nsecond line";
+        HttpServer server = TestUtils.startLocalServer(200, body);
+        try {
+            Cassette cassette = TestUtils.getCassette("test_tee_response_streams");
+            cassette.erase(); // Erase cassette before recording
+
+            AdvancedSettings advancedSettings = new AdvancedSettings();
+            advancedSettings.teeResponseStreams = true;
+            RecordableHttpURLConnection connection =
+                    TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                            Mode.Record, advancedSettings);
+
+            InputStream stream = connection.getInputStream();
+            // nothing is recorded until the caller is done with the body
+            Assert.assertEquals(0, cassette.numInteractions());
+            byte[] first = new byte[5];
+            Assert.assertEquals(5, stream.read(first));
+            Assert.assertEquals("first", new String(first, StandardCharsets.UTF_8));
+            // closing early still records the whole body
+            stream.close();
+            Assert.assertEquals(1, cassette.numInteractions());
+
+            connection = TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                    Mode.Replay, new AdvancedSettings());
+            Assert.assertEquals(200, connection.getResponseCode());
+            Assert.assertEquals(body, cassette.read().get(0).getResponse().getBody());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testReplayNeverTouchesNetwork() throws Exception {
+        String body = "{\"name\": \"test\"}";
+        HttpServer server = TestUtils.startLocalServer(200, "recorded");
+        Cassette cassette = TestUtils.getCassette("test_replay_never_touches_network");
+        cassette.erase(); // Erase cassette before recording
+        AdvancedSettings advancedSettings = new AdvancedSettings();
+        advancedSettings.matchRules = new MatchRules().byMethod().byBody();
+        try {
+            // Auto mode only opens a real connection on a miss
+            RecordableHttpURLConnection connection =
+                    TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                            Mode.Auto, advancedSettings);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+            connection.connect();
+            Assert.assertEquals("recorded", readFromInputStream(connection.getInputStream()));
+            Assert.assertEquals(1, cassette.numInteractions());
+        } finally {
+            server.stop(0);
+        }
+
+        // the host doesn't even resolve, so this would fail if replaying tried to connect
+        RecordableHttpURLConnection connection =
+                TestUtils.getSimpleHttpURLConnection("http://easyvcr-replay.invalid/", cassette.name, Mode.Replay,
+                        advancedSettings);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream output = connection.getOutputStream()) {
+            output.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        connection.connect();
+        Assert.assertEquals(200, connection.getResponseCode());
+        Assert.assertEquals("recorded", readFromInputStream(connection.getInputStream()));
+    }
+
+    @Test
+    public void testReplayedHeaderGetters() throws Exception {
+        HttpServer server = TestUtils.startLocalServer(200, "recorded");
+        server.removeContext("/");
+        server.createContext("/", exchange -> {
+            byte[] bytes = "recorded".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("X-Rate-Limit", "42");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        });
+        Cassette cassette = TestUtils.getCassette("test_replayed_header_getters");
+        cassette.erase(); // Erase cassette before recording
+        try {
+            RecordableHttpURLConnection connection =
+                    TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                            Mode.Record, new AdvancedSettings());
+            connection.connect();
+            Assert.assertEquals("recorded", readFromInputStream(connection.getInputStream()));
+        } finally {
+            server.stop(0);
+        }
+
+        RecordableHttpURLConnection connection =
+                TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name, Mode.Replay,
+                        new AdvancedSettings());
+        connection.connect();
+        Assert.assertEquals(8, connection.getContentLength());
+        Assert.assertEquals(8, connection.getContentLengthLong());
+        Assert.assertEquals(42, connection.getHeaderFieldInt("x-rate-limit", -1));
+        Assert.assertEquals(-1, connection.getHeaderFieldInt("X-Missing", -1));
+        Assert.assertTrue(connection.getDate() > 0);
+    }
+
+    @Test
+    public void testRecordingReusesConnections() throws Exception {
+        Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+        HttpServer server = TestUtils.startLocalServer(200, "recorded");
+        server.removeContext("/");
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] bytes = "recorded".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        });
+        try {
+            Cassette cassette = TestUtils.getCassette("test_recording_reuses_connections");
+            cassette.erase(); // Erase cassette before recording
+            for (int i = 0; i < 3; i++) {
+                RecordableHttpURLConnection connection =
+                        TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server) + "item" + i,
+                                cassette.name, Mode.Record, new AdvancedSettings());
+                connection.connect();
+                Assert.assertEquals(200, connection.getResponseCode());
+            }
+            Assert.assertEquals(3, cassette.numInteractions());
+            // responses are read and closed rather than disconnected, so the JDK keeps the connection alive
+            Assert.assertEquals(1, clientPorts.size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testRecordedTimings() throws Exception {
+        HttpServer server = TestUtils.startLocalServer(200, "timed");
+        try {
+            Cassette cassette = TestUtils.getCassette("test_recorded_timings");
+            cassette.erase(); // Erase cassette before recording
+
+            RecordableHttpURLConnection connection =
+                    TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                            Mode.Record, new AdvancedSettings());
+            connection.connect();
+            Assert.assertEquals(200, connection.getResponseCode());
+
+            Timings timings = cassette.read().get(0).getTimings();
+            Assert.assertNotNull(timings);
+            Assert.assertTrue(timings.getConnect() >= 0);
+            // plain HTTP, so there is no TLS handshake
+            Assert.assertEquals(0, timings.getHandshake());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testRecordedTransferTime() throws Exception {
+        HttpServer server = startSlowBodyServer();
+        try {
+            for (boolean teeResponseStreams : new boolean[] { false, true }) {
+                Cassette cassette = TestUtils.getCassette("test_recorded_transfer_time");
+                cassette.erase(); // Erase cassette before recording
+
+                AdvancedSettings advancedSettings = new AdvancedSettings();
+                advancedSettings.teeResponseStreams = teeResponseStreams;
+                RecordableHttpURLConnection connection =
+                        TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                                Mode.Record, advancedSettings);
+                try (InputStream body = connection.getInputStream()) {
+                    Assert.assertEquals("first half, second half", readFromInputStream(body));
+                }
+
+                Timings timings = cassette.read().get(0).getTimings();
+                Assert.assertTrue(timings.getFirstByte() >= 0);
+                // the second half of the body was held back by the server
+                Assert.assertTrue(timings.getTransfer() >= 250);
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testTransferTimeLeavesOutReaderTime() throws Exception {
+        HttpServer server = TestUtils.startLocalServer(200, "first half, second half");
+        Cassette cassette = TestUtils.getCassette("test_transfer_time_leaves_out_reader_time");
+        cassette.erase(); // Erase cassette before recording
+        try {
+            AdvancedSettings advancedSettings = new AdvancedSettings();
+            advancedSettings.teeResponseStreams = true;
+            RecordableHttpURLConnection connection =
+                    TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                            Mode.Record, advancedSettings);
+            try (InputStream body = connection.getInputStream()) {
+                Assert.assertEquals('f', body.read());
+                // the reader is busy, the server isn't
+                Thread.sleep(300);
+                Assert.assertEquals("irst half, second half", readFromInputStream(body));
+            }
+        } finally {
+            server.stop(0);
+        }
+
+        Assert.assertTrue(cassette.read().get(0).getTimings().getTransfer() < 250);
+    }
+
+    @Test
+    public void testPacedReplay() throws Exception {
+        HttpServer server = startSlowBodyServer();
+        Cassette cassette = TestUtils.getCassette("test_paced_replay");
+        cassette.erase(); // Erase cassette before recording
+        try {
+            RecordableHttpURLConnection connection =
+                    TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                            Mode.Record, new AdvancedSettings());
+            Assert.assertEquals(200, connection.getResponseCode());
+        } finally {
+            server.stop(0);
+        }
+        HttpInteraction recording = cassette.read().get(0);
+        Timings timings = recording.getTimings();
+
+        // on a virtual clock, the whole breakdown passes without waiting
+        VirtualClock clock = new VirtualClock();
+        AdvancedSettings advancedSettings = new AdvancedSettings();
+        advancedSettings.simulateDelay = true;
+        advancedSettings.clock = clock;
+        Instant start = Instant.now();
+        RecordableHttpURLConnection connection =
+                TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name, Mode.Replay,
+                        advancedSettings);
+        Assert.assertEquals("first half, second half", readFromInputStream(connection.getInputStream()));
+        Assert.assertTrue(Duration.between(start, Instant.now()).toMillis() < timings.getTransfer());
+        Assert.assertEquals(Duration.ofMillis(recording.getDuration() + timings.getConnect() + timings.getTransfer()),
+                clock.getElapsed());
+
+        // in real time, reading the body takes as long as it took to receive it
+        advancedSettings.clock = Clock.systemUTC();
+        connection = TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                Mode.Replay, advancedSettings);
+        Assert.assertEquals(200, connection.getResponseCode());
+        start = Instant.now();
+        Assert.assertEquals("first half, second half", readFromInputStream(connection.getInputStream()));
+        Assert.assertTrue(Duration.between(start, Instant.now()).toMillis() >= timings.getTransfer() - 10);
+    }
+
+    @Test
+    public void testFaultInjection() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            body.append("line ").append(i).append(", ");
+        }
+        HttpServer server = TestUtils.startLocalServer(200, body.toString());
+        String shipmentsUrl = TestUtils.getLocalServerUrl(server) + "v2/shipments";
+        String addressesUrl = TestUtils.getLocalServerUrl(server) + "v2/addresses";
+        Cassette cassette = TestUtils.getCassette("test_fault_injection");
+        cassette.erase(); // Erase cassette before recording
+        try {
+            for (String url : new String[] { shipmentsUrl, addressesUrl }) {
+                RecordableHttpURLConnection connection =
+                        TestUtils.getSimpleHttpURLConnection(url, cassette.name, Mode.Record, new AdvancedSettings());
+                Assert.assertEquals(200, connection.getResponseCode());
+            }
+        } finally {
+            server.stop(0);
+        }
+
+        VirtualClock clock = new VirtualClock();
+        AdvancedSettings advancedSettings = new AdvancedSettings();
+        advancedSettings.clock = clock;
+
+        // 503 with Retry-After, only for the profiled path
+        advancedSettings.faultInjector =
+                new FaultInjector(42).forPath("/v2/shipments", new FaultProfile().serviceUnavailable(1, 30));
+        RecordableHttpURLConnection connection =
+                TestUtils.getSimpleHttpURLConnection(shipmentsUrl, cassette.name, Mode.Replay, advancedSettings);
+        Assert.assertEquals(503, connection.getResponseCode());
+        Assert.assertEquals("30", connection.getHeaderField("Retry-After"));
+        connection = TestUtils.getSimpleHttpURLConnection(addressesUrl, cassette.name, Mode.Replay, advancedSettings);
+        Assert.assertEquals(200, connection.getResponseCode());
+
+        // read timeout, after the connection's read timeout passed
+        advancedSettings.faultInjector =
+                new FaultInjector(42).forHost("localhost", new FaultProfile().readTimeout(1).tailLatency(1, 250));
+        connection = TestUtils.getSimpleHttpURLConnection(shipmentsUrl, cassette.name, Mode.Replay, advancedSettings);
+        connection.setReadTimeout(5000);
+        RecordableHttpURLConnection timedOut = connection;
+        Assert.assertThrows(SocketTimeoutException.class, timedOut::getResponseCode);
+        Assert.assertThrows(SocketTimeoutException.class, timedOut::getInputStream);
+        Assert.assertEquals(Duration.ofMillis(5250), clock.getElapsed());
+        // without a read timeout, a real connection would wait for the response, so only the latency is injected
+        connection = TestUtils.getSimpleHttpURLConnection(shipmentsUrl, cassette.name, Mode.Replay, advancedSettings);
+        Assert.assertEquals(200, connection.getResponseCode());
+        Assert.assertEquals(Duration.ofMillis(5500), clock.getElapsed());
+
+        // connection reset halfway through the body
+        advancedSettings.faultInjector = new FaultInjector(42).forPath("/v2", new FaultProfile().connectionReset(1));
+        connection = TestUtils.getSimpleHttpURLConnection(addressesUrl, cassette.name, Mode.Replay, advancedSettings);
+        Assert.assertEquals(200, connection.getResponseCode());
+        InputStream stream = connection.getInputStream();
+        byte[] buffer = new byte[body.length()];
+        int received = 0;
+        try {
+            int count;
+            while ((count = stream.read(buffer, received, buffer.length - received)) > 0) {
+                received += count;
+            }
+            Assert.fail("Expected the connection to be reset");
+        } catch (SocketException e) {
+            Assert.assertEquals(body.length() / 2, received);
+        }
+
+        // the same seed injects the same faults
+        FaultProfile profile = new FaultProfile().serviceUnavailable(0.3, 1).tooManyRequests(0.3, 2);
+        List<List<Integer>> runs = new ArrayList<>();
+        for (int run = 0; run < 2; run++) {
+            advancedSettings.faultInjector = new FaultInjector(7).forHost("localhost", profile);
+            List<Integer> codes = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                codes.add(TestUtils.getSimpleHttpURLConnection(shipmentsUrl, cassette.name, Mode.Replay,
+                        advancedSettings).getResponseCode());
+            }
+            runs.add(codes);
+        }
+        Assert.assertEquals(runs.get(0), runs.get(1));
+        Assert.assertTrue(runs.get(0).contains(200));
+        Assert.assertTrue(runs.get(0).contains(503) || runs.get(0).contains(429));
+    }
+
+    /**
+     * Start a local server that sends the first half of its response body, then waits before sending the rest.
+     *
+     * @return The server.
+     * @throws IOException If the server could not be started.
+     */
+    private static HttpServer startSlowBodyServer() throws IOException {
+        HttpServer server = TestUtils.startLocalServer(200, "slow");
+        server.removeContext("/");
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write("first half, ".getBytes(StandardCharsets.UTF_8));
+                body.flush();
+                Thread.sleep(300);
+                body.write("second half".getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return server;
+    }
+
+    @Test
+    public void testSpilledRequestBodyIsDeleted() throws Exception {
+        HttpServer server = TestUtils.startLocalServer(200, "spilled");
+        Cassette cassette = TestUtils.getCassette("test_spilled_request_body");
+        cassette.erase(); // Erase cassette before recording
+        Set<String> tempFilesBefore = listRequestBodyTempFiles();
+        try {
+            AdvancedSettings advancedSettings = new AdvancedSettings();
+            advancedSettings.requestBodySpillThreshold = 16;
+            for (Mode mode : new Mode[] { Mode.Record, Mode.Replay }) {
+                RecordableHttpURLConnection connection =
+                        TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                                mode, advancedSettings);
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                RecordableRequestBody body = (RecordableRequestBody) connection.getOutputStream();
+                body.write("{\"name\": \"a body larger than the spill threshold\"}".getBytes(StandardCharsets.UTF_8));
+                Assert.assertTrue(body.isSpilled());
+                Assert.assertEquals(tempFilesBefore.size() + 1, listRequestBodyTempFiles().size());
+
+                Assert.assertEquals(200, connection.getResponseCode());
+                Assert.assertFalse(body.isSpilled());
+                Assert.assertEquals(tempFilesBefore, listRequestBodyTempFiles());
+            }
+            Assert.assertEquals("{\"name\": \"a body larger than the spill threshold\"}",
+                    cassette.read().get(0).getRequest().getBody());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static Set<String> listRequestBodyTempFiles() {
+        String[] names = new File(System.getProperty("java.io.tmpdir"))
+                .list((folder, name) -> name.startsWith("easyvcr-request-body"));
+        return names == null ? new HashSet<>() : new HashSet<>(Arrays.asList(names));
+    }
+
+    @Test
+    public void testBypassSendsRequestBody() throws Exception {
+        List<String> receivedBodies = new ArrayList<>();
+        HttpServer server = TestUtils.startLocalServer(200, "bypassed");
+        server.removeContext("/");
+        server.createContext("/", exchange -> {
+            receivedBodies.add(readFromInputStream(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        try {
+            RecordableHttpURLConnection connection =
+                    TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), "test_bypass",
+                            Mode.Bypass, null);
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write("{'name': 'Upendra'}".getBytes(StandardCharsets.UTF_8));
+            }
+            // no connect(), the body is sent by the real connection as it is read
+            Assert.assertEquals(200, connection.getResponseCode());
+            Assert.assertEquals(1, receivedBodies.size());
+            Assert.assertEquals("{'name': 'Upendra'}", receivedBodies.get(0));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testVirtualClockDelay() throws Exception {
+        HttpServer server = TestUtils.startLocalServer(200, "delayed");
+        Cassette cassette = TestUtils.getCassette("test_virtual_clock_delay");
+        cassette.erase(); // Erase cassette before recording
+        try {
+            RecordableHttpURLConnection connection =
+                    TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                            Mode.Record, new AdvancedSettings());
+            Assert.assertEquals(200, connection.getResponseCode());
+        } finally {
+            server.stop(0);
+        }
+
+        VirtualClock clock = new VirtualClock();
+        AdvancedSettings advancedSettings = new AdvancedSettings();
+        advancedSettings.manualDelay = 60000;
+        advancedSettings.clock = clock;
+        advancedSettings.timeFrame = new TimeFrame(0, 0, 0, 30);
+        advancedSettings.whenExpired = ExpirationActions.ThrowException;
+
+        Instant start = Instant.now();
+        RecordableHttpURLConnection connection =
+                TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name, Mode.Replay,
+                        advancedSettings);
+        Assert.assertEquals("delayed", readFromInputStream(connection.getInputStream()));
+        // the delay only passed on the virtual clock
+        Assert.assertTrue(Duration.between(start, Instant.now()).toMillis() < 30000);
+        Assert.assertEquals(Duration.ofMinutes(1), clock.getElapsed());
+
+        // a minute later on the virtual clock, the 30-second time frame has lapsed
+        Assert.assertTrue(advancedSettings.timeFrame.hasLapsed(cassette.read().get(0).getRecordedAt(), clock));
+        // this throws a RuntimeException rather than a RecordingExpirationException because the exceptions are coalesced internally
+        RuntimeException exception = Assert.assertThrows(RuntimeException.class,
+                () -> TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                        Mode.Replay, advancedSettings).getResponseCode());
+        Assert.assertTrue(exception.getCause() instanceof RecordingExpirationException);
+    }
+
+    @Test
+    public void testScaledDelay() throws Exception {
+        HttpServer server = TestUtils.startLocalServer(200, "delayed");
+        Cassette cassette = TestUtils.getCassette("test_scaled_delay");
+        cassette.erase(); // Erase cassette before recording
+        try {
+            RecordableHttpURLConnection connection =
+                    TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name,
+                            Mode.Record, new AdvancedSettings());
+            Assert.assertEquals(200, connection.getResponseCode());
+        } finally {
+            server.stop(0);
+        }
+
+        AdvancedSettings advancedSettings = new AdvancedSettings();
+        advancedSettings.manualDelay = 10000;
+        advancedSettings.delayScale = 0.05;
+
+        Instant start = Instant.now();
+        RecordableHttpURLConnection connection =
+                TestUtils.getSimpleHttpURLConnection(TestUtils.getLocalServerUrl(server), cassette.name, Mode.Replay,
+                        advancedSettings);
+        Assert.assertEquals("delayed", readFromInputStream(connection.getInputStream()));
+        long elapsed = Duration.between(start, Instant.now()).toMillis();
+        Assert.assertTrue(elapsed >= 500);
+        Assert.assertTrue(elapsed < 10000);
+    }
 }
@@ -0,0 +1,62 @@
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.clients.httpurlconnection.RecordableHttpURLConnection;
+import com.easypost.easyvcr.load.LoadGenerator;
+import com.easypost.easyvcr.load.LoadReport;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void testLoadGenerator() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_load_generator");
+        cassette.erase(); // Erase cassette before recording
+
+        HttpServer server = TestUtils.startLocalServer(200, "{\"id\": 1}");
+        try {
+            String url = TestUtils.getLocalServerUrl(server);
+            for (String path : new String[]{"v2/shipments", "v2/addresses", "v2/parcels"}) {
+                RecordableHttpURLConnection connection =
+                        TestUtils.getSimpleHttpURLConnection(url + path, cassette.name, Mode.Record,
+                                new AdvancedSettings());
+                try (InputStream input = connection.getInputStream()) {
+                    TestUtils.readAllBytes(input);
+                }
+            }
+            Assert.assertEquals(3, cassette.numInteractions());
+
+            LoadReport report = new LoadGenerator(url, cassette).concurrency(2).timeScale(0).run();
+            Assert.assertEquals(3, report.getRequestCount());
+            Assert.assertEquals(0, report.getErrorCount());
+            Assert.assertEquals(0, report.getStatusMismatchCount());
+            Assert.assertEquals(0, report.getBodyMismatchCount());
+            Assert.assertTrue(report.getThroughput() > 0);
+            Assert.assertTrue(report.getMaxLatencyMicros() >= report.getLatencyPercentileMicros(50));
+        } finally {
+            server.stop(0);
+        }
+
+        // a server answering differently than when the cassette was recorded
+        HttpServer changedServer = TestUtils.startLocalServer(200, "{\"id\": 2}");
+        try {
+            LoadReport report =
+                    new LoadGenerator(TestUtils.getLocalServerUrl(changedServer), cassette).timeScale(0).run();
+            Assert.assertEquals(0, report.getStatusMismatchCount());
+            Assert.assertEquals(3, report.getBodyMismatchCount());
+            Assert.assertEquals(3, report.getMismatches().size());
+        } finally {
+            changedServer.stop(0);
+        }
+
+        // nothing listening anymore
+        LoadReport report = new LoadGenerator(TestUtils.getLocalServerUrl(changedServer), cassette).timeScale(0)
+                .timeout(1000).run();
+        Assert.assertEquals(3, report.getErrorCount());
+        Assert.assertEquals(0, report.getMaxLatencyMicros());
+    }
+}
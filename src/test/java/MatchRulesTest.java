@@ -0,0 +1,47 @@
+import com.easypost.easyvcr.MatchRules;
+import com.easypost.easyvcr.requestelements.Request;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MatchRulesTest {
+
+    private static Request makeRequest(String method, String url) {
+        Request request = new Request();
+        request.setMethod(method);
+        request.setUriString(url);
+        return request;
+    }
+
+    @Test
+    public void testByBaseUrl() {
+        MatchRules matchRules = new MatchRules().byBaseUrl();
+        Request request = makeRequest("GET", "https://api.example.com:443/v2/shipments?page=1");
+
+        Assert.assertTrue(matchRules.requestsMatch(request,
+                makeRequest("GET", "HTTPS://API.example.com:443/v2/shipments?page=2")));
+        Assert.assertFalse(matchRules.requestsMatch(request,
+                makeRequest("GET", "http://api.example.com:443/v2/shipments?page=1")));
+        Assert.assertFalse(matchRules.requestsMatch(request,
+                makeRequest("GET", "https://api.example.com/v2/shipments?page=1")));
+        Assert.assertFalse(matchRules.requestsMatch(request,
+                makeRequest("GET", "https://api.example.com:443/v2/parcels?page=1")));
+        // paths are compared decoded
+        Assert.assertTrue(matchRules.requestsMatch(makeRequest("GET", "https://api.example.com/a%7Eb"),
+                makeRequest("GET", "https://api.example.com/a~b")));
+        Assert.assertFalse(matchRules.requestsMatch(makeRequest("GET", "https://api.example.com/a%20b"),
+                makeRequest("GET", "https://api.example.com/a+b")));
+    }
+
+    @Test
+    public void testByFullUrl() {
+        MatchRules matchRules = MatchRules.regular();
+        Request request = makeRequest("GET", "https://api.example.com/v2/shipments?page=1&page_size=20");
+
+        Assert.assertTrue(matchRules.requestsMatch(request,
+                makeRequest("GET", "https://api.example.com/v2/shipments?page_size=20&page=1")));
+        Assert.assertFalse(matchRules.requestsMatch(request,
+                makeRequest("GET", "https://api.example.com/v2/shipments?page=1")));
+        Assert.assertFalse(matchRules.requestsMatch(request,
+                makeRequest("POST", "https://api.example.com/v2/shipments?page=1&page_size=20")));
+    }
+}
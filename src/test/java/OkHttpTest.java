@@ -0,0 +1,88 @@
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.MatchRules;
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.clients.okhttp.RecordableInterceptor;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class OkHttpTest {
+
+    private static OkHttpClient getClient(Cassette cassette, Mode mode, AdvancedSettings advancedSettings)
+            throws Exception {
+        return new OkHttpClient.Builder()
+                .addInterceptor(new RecordableInterceptor(cassette, mode, advancedSettings))
+                .build();
+    }
+
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_ok_http_record_and_replay");
+        cassette.erase(); // Erase cassette before recording
+        AdvancedSettings advancedSettings = new AdvancedSettings();
+        advancedSettings.matchRules = new MatchRules().byMethod().byBody();
+        RequestBody requestBody = RequestBody.create("{'name': 'Upendra'}", MediaType.parse("application/json"));
+
+        HttpServer server = TestUtils.startLocalServer(200, "{\"recorded\": true}");
+        try {
+            Request request = new Request.Builder().url(TestUtils.getLocalServerUrl(server)).post(requestBody).build();
+            try (Response response = getClient(cassette, Mode.Record, advancedSettings).newCall(request).execute()) {
+                Assert.assertEquals(200, response.code());
+                // not recorded until the caller is done with the body
+                Assert.assertEquals(0, cassette.numInteractions());
+                Assert.assertEquals("{\"recorded\": true}", response.body().string());
+            }
+        } finally {
+            server.stop(0);
+        }
+        Assert.assertEquals(1, cassette.numInteractions());
+        Assert.assertEquals("{'name': 'Upendra'}", cassette.read().get(0).getRequest().getBody());
+        Assert.assertEquals("{\"recorded\": true}", cassette.read().get(0).getResponse().getBody());
+
+        // the server is gone, so the response can only come from the cassette
+        Request request = new Request.Builder().url("http://easyvcr-replay.invalid/").post(requestBody).build();
+        try (Response response = getClient(cassette, Mode.Replay, advancedSettings).newCall(request).execute()) {
+            Assert.assertEquals(200, response.code());
+            Assert.assertEquals("{\"recorded\": true}", response.body().string());
+            Assert.assertNotNull(response.header("X-Via-EasyVCR-Recording"));
+        }
+    }
+
+    @Test
+    public void testRecordUnreadBody() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_ok_http_record_unread_body");
+        cassette.erase(); // Erase cassette before recording
+
+        HttpServer server = TestUtils.startLocalServer(200, "unread\nbody");
+        try {
+            Request request = new Request.Builder().url(TestUtils.getLocalServerUrl(server)).build();
+            getClient(cassette, Mode.Record, new AdvancedSettings()).newCall(request).execute().close();
+        } finally {
+            server.stop(0);
+        }
+
+        // the rest of the body is read when the caller closes it
+        Assert.assertEquals(1, cassette.numInteractions());
+        Assert.assertEquals("unread\nbody", cassette.read().get(0).getResponse().getBody());
+    }
+
+    @Test
+    public void testReplayWithoutMatch() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_ok_http_replay_without_match");
+        cassette.erase(); // Erase cassette before recording
+
+        OkHttpClient client = getClient(cassette, Mode.Replay, new AdvancedSettings());
+        Request request = new Request.Builder().url("http://easyvcr-replay.invalid/").build();
+        IOException exception = Assert.assertThrows(IOException.class, () -> client.newCall(request).execute());
+        Assert.assertTrue(exception.getCause() instanceof VCRException);
+    }
+}
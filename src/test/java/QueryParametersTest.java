@@ -0,0 +1,41 @@
+import com.easypost.easyvcr.internal.QueryParameters;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryParametersTest {
+
+    @Test
+    public void testParse() {
+        QueryParameters parameters = QueryParameters.parse("page_size=20&carrier=usps%20ground&name=a+b&page=1&page=2");
+
+        // sorted by name, last duplicate wins
+        Assert.assertEquals(4, parameters.size());
+        Assert.assertEquals("carrier", parameters.getName(0));
+        Assert.assertEquals("usps ground", parameters.getValue(0));
+        Assert.assertEquals("a b", parameters.get("name"));
+        Assert.assertEquals("2", parameters.get("page"));
+        Assert.assertEquals("20", parameters.get("page_size"));
+        Assert.assertNull(parameters.get("missing"));
+    }
+
+    @Test
+    public void testEqualsIgnoresOrderAndEncoding() {
+        QueryParameters first = QueryParameters.parse("a=1&b=hello%20world");
+        QueryParameters second = QueryParameters.parse("b=hello+world&a=1");
+        QueryParameters third = QueryParameters.parse("a=1&b=goodbye");
+
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.hashCode(), second.hashCode());
+        Assert.assertNotEquals(first, third);
+        Assert.assertTrue(first.hasSameNames(third));
+        Assert.assertFalse(first.hasSameNames(QueryParameters.parse("a=1")));
+    }
+
+    @Test
+    public void testEmptyAndMalformed() {
+        Assert.assertEquals(0, QueryParameters.parse(null).size());
+        Assert.assertEquals(0, QueryParameters.parse("&&").size());
+        Assert.assertEquals("100%", QueryParameters.parse("discount=100%").get("discount"));
+        Assert.assertEquals("", QueryParameters.parse("flag").get("flag"));
+    }
+}
@@ -0,0 +1,83 @@
+import com.easypost.easyvcr.clients.httpurlconnection.RecordableRequestBody;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+public class RecordableRequestBodyTest {
+
+    private static byte[] expectedBytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i % 251);
+        }
+        return bytes;
+    }
+
+    private static byte[] readAll(InputStream input) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        int count;
+        while ((count = input.read(buffer)) != -1) {
+            output.write(buffer, 0, count);
+        }
+        return output.toByteArray();
+    }
+
+    @Test
+    public void testSingleByteWrites() throws Exception {
+        RecordableRequestBody body = new RecordableRequestBody();
+        PrintStream printStream = new PrintStream(body, true, "UTF-8");
+        printStream.print("{\"name\": \"test\"}");
+        printStream.close();
+
+        Assert.assertTrue(body.hasData());
+        Assert.assertEquals("{\"name\": \"test\"}", new String(body.getData(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testChunkedWritesInMemory() throws Exception {
+        byte[] expected = expectedBytes(100_000);
+        RecordableRequestBody body = new RecordableRequestBody();
+        for (int i = 0; i < expected.length; i += 333) {
+            body.write(expected, i, Math.min(333, expected.length - i));
+        }
+
+        Assert.assertFalse(body.isSpilled());
+        Assert.assertEquals(expected.length, body.size());
+        Assert.assertArrayEquals(expected, body.getData());
+        Assert.assertArrayEquals(expected, readAll(body.getInputStream()));
+    }
+
+    @Test
+    public void testSpillToDisk() throws Exception {
+        byte[] expected = expectedBytes(50_000);
+        RecordableRequestBody body = new RecordableRequestBody(10_000);
+        body.write(expected, 0, 5_000);
+        Assert.assertFalse(body.isSpilled());
+        body.write(expected, 5_000, expected.length - 5_000);
+        Assert.assertTrue(body.isSpilled());
+
+        Assert.assertArrayEquals(expected, body.getData());
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        body.writeTo(sent);
+        Assert.assertArrayEquals(expected, sent.toByteArray());
+
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+        try (ReadableByteChannel channel = body.getChannel()) {
+            while (channel.read(buffer) > 0) {
+                // keep reading
+            }
+        }
+        Assert.assertArrayEquals(expected, buffer.array());
+
+        body.discard();
+        Assert.assertFalse(body.hasData());
+        Assert.assertFalse(body.isSpilled());
+    }
+}
@@ -0,0 +1,144 @@
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.proxy.RecordingProxy;
+import com.easypost.easyvcr.requestelements.HttpInteraction;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RecordingProxyTest {
+
+    private static String readBody(InputStream input) throws Exception {
+        try (InputStream stream = input) {
+            return new String(TestUtils.readAllBytes(stream), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testRecordThroughProxy() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_recording_proxy");
+        cassette.erase(); // Erase cassette before recording
+
+        HttpServer server = TestUtils.startLocalServer(201, "{\"recorded\": true}");
+        RecordingProxy recordingProxy = new RecordingProxy(cassette).start();
+        try {
+            Proxy proxy = new Proxy(Proxy.Type.HTTP, recordingProxy.getAddress());
+            HttpURLConnection connection = (HttpURLConnection) new URL(
+                    TestUtils.getLocalServerUrl(server) + "v2/shipments?page=1").openConnection(proxy);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setChunkedStreamingMode(4);
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write("{'name': 'Upendra'}".getBytes(StandardCharsets.UTF_8));
+            }
+            Assert.assertEquals(201, connection.getResponseCode());
+            Assert.assertEquals("{\"recorded\": true}", readBody(connection.getInputStream()));
+        } finally {
+            // waits for the interaction to be written
+            recordingProxy.stop();
+            server.stop(0);
+        }
+
+        Assert.assertEquals(1, cassette.numInteractions());
+        HttpInteraction interaction = cassette.read().get(0);
+        Assert.assertEquals("POST", interaction.getRequest().getMethod());
+        Assert.assertEquals(TestUtils.getLocalServerUrl(server) + "v2/shipments?page=1",
+                interaction.getRequest().getUriString());
+        // sent chunked, recorded decoded
+        Assert.assertEquals("{'name': 'Upendra'}", interaction.getRequest().getBody());
+        Assert.assertEquals(201, interaction.getResponse().getStatus().getCode());
+        Assert.assertEquals("{\"recorded\": true}", interaction.getResponse().getBody());
+    }
+
+    @Test
+    public void testConnectIsTunneled() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_recording_proxy_connect");
+        cassette.erase(); // Erase cassette before recording
+
+        HttpServer server = TestUtils.startLocalServer(200, "tunneled");
+        RecordingProxy recordingProxy = new RecordingProxy(cassette).start();
+        try (Socket socket = new Socket()) {
+            InetSocketAddress proxyAddress = recordingProxy.getAddress();
+            socket.connect(proxyAddress);
+            String target = "localhost:" + server.getAddress().getPort();
+            OutputStream output = socket.getOutputStream();
+            output.write(("CONNECT " + target + " HTTP/1.1\r\nHost: " + target + "\r\n\r\n"
+                    + "GET / HTTP/1.1\r\nHost: " + target + "\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            output.flush();
+            String response = readBody(socket.getInputStream());
+            Assert.assertTrue(response.startsWith("HTTP/1.1 200 Connection Established\r\n\r\nHTTP/1.1 200"));
+            Assert.assertTrue(response.endsWith("tunneled"));
+        } finally {
+            recordingProxy.stop();
+            server.stop(0);
+        }
+
+        // tunneled traffic isn't recorded
+        Assert.assertEquals(0, cassette.numInteractions());
+    }
+
+    @Test
+    public void testStopMidBodyKeepsRecording() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_recording_proxy_stop_mid_body");
+        cassette.erase(); // Erase cassette before recording
+
+        CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = TestUtils.startLocalServer(200, "complete");
+        String url = TestUtils.getLocalServerUrl(server) + "partial";
+        RecordingProxy recordingProxy = new RecordingProxy(cassette).start();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection(
+                    new Proxy(Proxy.Type.HTTP, recordingProxy.getAddress()));
+            Assert.assertEquals("complete", readBody(connection.getInputStream()));
+        } finally {
+            recordingProxy.stop();
+        }
+        Assert.assertEquals(1, cassette.numInteractions());
+
+        // the next response promises 100 bytes, but only sends 9 before the proxy is stopped
+        server.removeContext("/");
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, 100);
+            OutputStream body = exchange.getResponseBody();
+            body.write("truncated".getBytes(StandardCharsets.UTF_8));
+            body.flush();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        recordingProxy = new RecordingProxy(cassette).start();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection(
+                    new Proxy(Proxy.Type.HTTP, recordingProxy.getAddress()));
+            InputStream body = connection.getInputStream();
+            byte[] received = new byte[9];
+            int count = 0;
+            while (count < received.length) {
+                count += body.read(received, count, received.length - count);
+            }
+            Assert.assertEquals("truncated", new String(received, StandardCharsets.UTF_8));
+        } finally {
+            recordingProxy.stop();
+            release.countDown();
+            server.stop(0);
+        }
+
+        // the earlier complete recording was kept
+        Assert.assertEquals(1, cassette.numInteractions());
+        Assert.assertEquals("complete", cassette.read().get(0).getResponse().getBody());
+    }
+}
@@ -0,0 +1,68 @@
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.clients.httpurlconnection.RecordableHttpURLConnection;
+import com.easypost.easyvcr.server.ReplayServer;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ReplayServerTest {
+
+    private static String readBody(InputStream input) throws Exception {
+        try (InputStream stream = input) {
+            return new String(TestUtils.readAllBytes(stream), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testReplayServer() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_replay_server");
+        cassette.erase(); // Erase cassette before recording
+
+        String upstream;
+        HttpServer server = TestUtils.startLocalServer(201, "{\"recorded\": true}");
+        try {
+            upstream = TestUtils.getLocalServerUrl(server);
+            RecordableHttpURLConnection connection =
+                    TestUtils.getSimpleHttpURLConnection(upstream + "v2/shipments?page=1", cassette.name, Mode.Record,
+                            new AdvancedSettings());
+            Assert.assertEquals(201, connection.getResponseCode());
+            Assert.assertEquals("{\"recorded\": true}", readBody(connection.getInputStream()));
+        } finally {
+            server.stop(0);
+        }
+
+        // the upstream server is gone, so responses can only come from the cassette
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ReplayServer replayServer = new ReplayServer(cassette).upstream(upstream).executor(executor).start();
+        try {
+            String replayUrl = "http://localhost:" + replayServer.getAddress().getPort();
+            for (int i = 0; i < 3; i++) {
+                HttpURLConnection connection =
+                        (HttpURLConnection) new URL(replayUrl + "/v2/shipments?page=1").openConnection();
+                Assert.assertEquals(201, connection.getResponseCode());
+                Assert.assertEquals("{\"recorded\": true}", readBody(connection.getInputStream()));
+                Assert.assertEquals("true", connection.getHeaderField("X-Via-EasyVCR-Recording"));
+            }
+
+            HttpURLConnection connection =
+                    (HttpURLConnection) new URL(replayUrl + "/v2/addresses").openConnection();
+            Assert.assertEquals(ReplayServer.NO_MATCH_STATUS, connection.getResponseCode());
+
+            Assert.assertEquals(3, replayServer.getHitCount());
+            Assert.assertEquals(1, replayServer.getMissCount());
+            Assert.assertTrue(replayServer.getMaxLatencyMicros() >= replayServer.getAverageLatencyMicros());
+        } finally {
+            replayServer.stop(0);
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.VCR;
+import com.easypost.easyvcr.clients.httpurlconnection.RecordableHttpURLConnection;
+import com.easypost.easyvcr.clients.httpurlconnection.RecordableURLStreamHandlerFactory;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+
+public class URLStreamHandlerFactoryTest {
+
+    private static String readBody(URLConnection connection) throws Exception {
+        try (InputStream stream = connection.getInputStream()) {
+            return new String(TestUtils.readAllBytes(stream), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static URL getUrl(RecordableURLStreamHandlerFactory factory, String url) throws Exception {
+        // the same handler install() routes all URLs through, without installing it for the whole JVM
+        return new URL(null, url, factory.createURLStreamHandler("http"));
+    }
+
+    @Test
+    public void testRecordAndReplayThroughFactory() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_url_stream_handler_factory");
+        cassette.erase(); // Erase cassette before recording
+
+        VCR vcr = new VCR();
+        vcr.insert(cassette);
+        RecordableURLStreamHandlerFactory factory = new RecordableURLStreamHandlerFactory(vcr);
+
+        String url;
+        HttpServer server = TestUtils.startLocalServer(200, "{\"recorded\": true}");
+        try {
+            url = TestUtils.getLocalServerUrl(server) + "v2/shipments";
+            vcr.record();
+            URLConnection connection = getUrl(factory, url).openConnection();
+            Assert.assertTrue(connection instanceof RecordableHttpURLConnection);
+            Assert.assertEquals("{\"recorded\": true}", readBody(connection));
+        } finally {
+            server.stop(0);
+        }
+        Assert.assertEquals(1, cassette.numInteractions());
+
+        // the server is gone, so the response can only come from the cassette
+        vcr.replay();
+        HttpURLConnection connection = (HttpURLConnection) getUrl(factory, url).openConnection();
+        Assert.assertEquals(200, connection.getResponseCode());
+        Assert.assertEquals("{\"recorded\": true}", readBody(connection));
+        Assert.assertEquals("true", connection.getHeaderField("X-Via-EasyVCR-Recording"));
+    }
+
+    @Test
+    public void testHostRules() throws Exception {
+        VCR vcr = new VCR();
+        vcr.insert(TestUtils.getCassette("test_url_stream_handler_factory_hosts"));
+        vcr.replay();
+        RecordableURLStreamHandlerFactory factory = new RecordableURLStreamHandlerFactory(vcr)
+                .allowHosts("*.easypost.com", "localhost")
+                .denyHosts("internal.easypost.com");
+
+        Assert.assertTrue(factory.intercepts("api.easypost.com"));
+        Assert.assertTrue(factory.intercepts("API.EasyPost.com"));
+        Assert.assertTrue(factory.intercepts("localhost"));
+        Assert.assertFalse(factory.intercepts("internal.easypost.com"));
+        Assert.assertFalse(factory.intercepts("easypost.com"));
+        Assert.assertFalse(factory.intercepts("example.com"));
+
+        // hosts that aren't intercepted open the JDK's own connections
+        Assert.assertFalse(getUrl(factory, "http://example.com/").openConnection() instanceof
+                RecordableHttpURLConnection);
+        Assert.assertTrue(getUrl(factory, "http://localhost/").openConnection() instanceof
+                RecordableHttpURLConnection);
+
+        // as do all hosts while no cassette is inserted
+        vcr.eject();
+        Assert.assertFalse(getUrl(factory, "http://localhost/").openConnection() instanceof
+                RecordableHttpURLConnection);
+    }
+}
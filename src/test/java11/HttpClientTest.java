@@ -0,0 +1,92 @@
+import com.easypost.easyvcr.AdvancedSettings;
+import com.easypost.easyvcr.Cassette;
+import com.easypost.easyvcr.MatchRules;
+import com.easypost.easyvcr.Mode;
+import com.easypost.easyvcr.VCRException;
+import com.easypost.easyvcr.clients.httpclient.RecordableHttpClient;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class HttpClientTest {
+
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_http_client_record_and_replay");
+        cassette.erase(); // Erase cassette before recording
+        AdvancedSettings advancedSettings = new AdvancedSettings();
+        advancedSettings.matchRules = new MatchRules().byMethod().byBody();
+
+        HttpServer server = TestUtils.startLocalServer(200, "{\"recorded\": true}");
+        try {
+            RecordableHttpClient client =
+                    new RecordableHttpClient(HttpClient.newHttpClient(), cassette, Mode.Record, advancedSettings);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(TestUtils.getLocalServerUrl(server)))
+                    .POST(HttpRequest.BodyPublishers.ofString("{'name': 'Upendra'}"))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            Assert.assertEquals(200, response.statusCode());
+            Assert.assertEquals("{\"recorded\": true}", response.body());
+        } finally {
+            server.stop(0);
+        }
+        Assert.assertEquals(1, cassette.numInteractions());
+
+        // the server is gone, so the response can only come from the cassette
+        RecordableHttpClient client =
+                new RecordableHttpClient(HttpClient.newHttpClient(), cassette, Mode.Replay, advancedSettings);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://easyvcr-replay.invalid/"))
+                .POST(HttpRequest.BodyPublishers.ofString("{'name': 'Upendra'}"))
+                .build();
+        CompletableFuture<HttpResponse<String>> future =
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = future.get();
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertEquals("{\"recorded\": true}", response.body());
+        Assert.assertTrue(response.headers().firstValue("X-Via-EasyVCR-Recording").isPresent());
+    }
+
+    @Test
+    public void testRecordStreamedBody() throws Exception {
+        Cassette cassette = TestUtils.getCassette("test_http_client_record_streamed_body");
+        cassette.erase(); // Erase cassette before recording
+
+        HttpServer server = TestUtils.startLocalServer(200, "streamed\nbody");
+        try {
+            RecordableHttpClient client =
+                    new RecordableHttpClient(HttpClient.newHttpClient(), cassette, Mode.Record);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(TestUtils.getLocalServerUrl(server))).build();
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                Assert.assertEquals("streamed\nbody", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            server.stop(0);
+        }
+
+        // recorded once the caller has read the whole body
+        Assert.assertEquals(1, cassette.numInteractions());
+        Assert.assertEquals("streamed\nbody", cassette.read().get(0).getResponse().getBody());
+    }
+
+    @Test
+    public void testReplayWithoutMatch() {
+        Cassette cassette = TestUtils.getCassette("test_http_client_replay_without_match");
+        cassette.erase(); // Erase cassette before recording
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://easyvcr-replay.invalid/")).build();
+        ExecutionException exception = Assert.assertThrows(ExecutionException.class,
+                () -> new RecordableHttpClient(HttpClient.newHttpClient(), cassette, Mode.Replay)
+                        .sendAsync(request, HttpResponse.BodyHandlers.ofString()).get());
+        Assert.assertTrue(exception.getCause() instanceof VCRException);
+    }
+}